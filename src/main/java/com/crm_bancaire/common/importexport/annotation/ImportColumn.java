@@ -0,0 +1,64 @@
+package com.crm_bancaire.common.importexport.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Déclare le mapping d'une colonne du fichier vers un champ de l'entité.
+ *
+ * Utilisé par {@link com.crm_bancaire.common.importexport.mapper.AnnotatedImportMapper}
+ * pour générer le mapping sans écrire de {@code mapRow}.
+ *
+ * Usage:
+ * <pre>
+ * {@code
+ * public class User {
+ *
+ *     @ImportColumn(required = true)
+ *     private String email;
+ *
+ *     @ImportColumn(name = "dateNaissance", format = "dd/MM/yyyy")
+ *     private LocalDate birthDate;
+ *
+ *     @ImportColumn(enumMapping = {"Actif:ACTIVE", "Inactif:INACTIVE"})
+ *     private UserStatus status;
+ * }
+ * }
+ * </pre>
+ *
+ * Types supportés: String, Integer/int, Long/long, Double/double, BigDecimal,
+ * Boolean/boolean, LocalDate, LocalDateTime et enums.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ImportColumn {
+
+    /**
+     * Nom de la colonne dans le fichier.
+     * Par défaut: nom du champ
+     */
+    String name() default "";
+
+    /**
+     * Colonne obligatoire (header requis et valeur non vide).
+     * Par défaut: false
+     */
+    boolean required() default false;
+
+    /**
+     * Format de la valeur (pattern DateTimeFormatter pour les dates).
+     * Par défaut: dd/MM/yyyy (dd/MM/yyyy HH:mm:ss pour LocalDateTime), puis ISO
+     */
+    String format() default "";
+
+    /**
+     * Mapping libellé → constante pour les enums.
+     * Ex: {"Actif:ACTIVE", "Inactif:INACTIVE"}
+     *
+     * Les noms des constantes restent acceptés. Les libellés alimentent
+     * aussi les listes déroulantes du template.
+     */
+    String[] enumMapping() default {};
+}
@@ -0,0 +1,51 @@
+package com.crm_bancaire.common.importexport.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Écriture directe en base via JDBC batch, sans passer par le save du service.
+ *
+ * Destiné aux tables de référence et aux chargements de masse: les entités sont
+ * toujours mappées et validées, puis insérées avec {@code JdbcTemplate.batchUpdate}
+ * (un PreparedStatement réutilisé par batch).
+ *
+ * Usage:
+ * <pre>
+ * {@code
+ * @Importable(
+ *     entity = "Country",
+ *     mapper = CountryImportMapper.class,
+ *     batchSize = 5000,                         // Commit tous les 5000 lignes
+ *     transactionMode = TransactionMode.PER_BATCH,
+ *     table = @ImportTable(
+ *         name = "ref_country",
+ *         columns = {"code", "label", "iso_code=isoCode"},
+ *         jdbcBatchSize = 1000                  // executeBatch tous les 1000 lignes
+ *     )
+ * )
+ * }
+ * </pre>
+ */
+@Target({})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ImportTable {
+
+    /**
+     * Nom de la table. Vide = sink JDBC désactivé (save du service).
+     */
+    String name() default "";
+
+    /**
+     * Colonnes à insérer: "colonne" (propriété de même nom) ou "colonne=propriété".
+     * Les propriétés imbriquées sont supportées: "city=address.city"
+     */
+    String[] columns() default {};
+
+    /**
+     * Nombre de lignes par executeBatch.
+     * Par défaut: 1000
+     */
+    int jdbcBatchSize() default 1000;
+}
@@ -1,6 +1,8 @@
 package com.crm_bancaire.common.importexport.annotation;
 
 import com.crm_bancaire.common.importexport.enums.FailureStrategy;
+import com.crm_bancaire.common.importexport.enums.ImportMode;
+import com.crm_bancaire.common.importexport.enums.TransactionMode;
 import com.crm_bancaire.common.importexport.mapper.ImportMapper;
 
 import java.lang.annotation.ElementType;
@@ -66,9 +68,108 @@ public @interface Importable {
      */
     int batchSize() default 100;
 
+    /**
+     * Ajuste la taille des batchs pendant l'import d'après la durée et le débit observés
+     * de chaque écriture: batchSize devient la taille initiale, bornes et durée visée sont
+     * réglées par {@code import-export.adaptive-batch.*}. Tailles retenues dans
+     * ImportResponse.batchStats.
+     * Par défaut: false (taille fixe)
+     */
+    boolean adaptiveBatchSize() default false;
+
+    /**
+     * Appels unitaires de saveMethod en parallèle, pour les méthodes save lentes en E/S
+     * (appel HTTP à un autre microservice): au plus saveConcurrency appels en cours, sur des
+     * threads virtuels (Java 21+) ou un pool de threads. Les erreurs restent attribuées à
+     * leur ligne; en FAIL_FAST, les appels en cours sont interrompus à la première erreur.
+     * Sans effet avec une méthode de sauvegarde par lot (saveAll) et en PER_FILE.
+     * La méthode save est appelée sur un autre thread (contexte ThreadLocal non transmis).
+     * Par défaut: 1 (appels l'un après l'autre)
+     */
+    int saveConcurrency() default 1;
+
     /**
      * Méthode du service à appeler pour sauvegarder les entités.
      * Par défaut: "save" → Cherche save(T), save(List&lt;T&gt;), saveAll(List&lt;T&gt;)
      */
     String saveMethod() default "save";
+
+    /**
+     * Frontières de transaction des sauvegardes (un PlatformTransactionManager est requis).
+     * Par défaut: AUTO (PER_FILE pour FAIL_FAST/COLLECT_ALL, PER_BATCH pour SKIP_ERRORS)
+     */
+    TransactionMode transactionMode() default TransactionMode.AUTO;
+
+    /**
+     * Écriture directe dans une table via JDBC batch (au lieu de saveMethod).
+     * Par défaut: désactivé
+     */
+    ImportTable table() default @ImportTable;
+
+    /**
+     * Mode d'écriture: INSERT ou UPSERT (mise à jour si la clé métier existe).
+     * Par défaut: INSERT
+     */
+    ImportMode mode() default ImportMode.INSERT;
+
+    /**
+     * Clé métier: propriété de l'entité, qui est aussi le nom de la colonne du fichier.
+     * Ex: "email". Requise pour mode = UPSERT.
+     */
+    String businessKey() default "";
+
+    /**
+     * Méthode du service retournant les entités existantes pour un ensemble de clés
+     * (paramètre Collection, retour Collection d'entités ou Map clé → entité).
+     * Par défaut: findAllBy{BusinessKey}In → ex: findAllByEmailIn(Collection&lt;String&gt;)
+     */
+    String findByKeysMethod() default "";
+
+    /**
+     * Propriété identifiant copiée de l'entité existante vers l'entité importée
+     * pour que saveMethod effectue une mise à jour.
+     * Par défaut: "id"
+     */
+    String idProperty() default "id";
+
+    /**
+     * Ignore les lignes identiques à celles du dernier import (même businessKey, mêmes valeurs):
+     * ni mapping, ni validation, ni sauvegarde. Nécessite businessKey.
+     * L'index des hashs est stocké localement (import-export.change-index.directory).
+     * Par défaut: false
+     */
+    boolean skipUnchanged() default false;
+
+    /**
+     * Colonnes dont la combinaison doit être unique dans le fichier (ex: {"numeroClient"}).
+     * Les doublons sont rejetés en ImportError indiquant la première occurrence,
+     * sans attendre la contrainte d'unicité de la base.
+     * Par défaut: aucun contrôle
+     */
+    String[] uniqueColumns() default {};
+
+    /**
+     * Validation Bean compilée pour les contraintes courantes
+     * (@NotNull, @NotBlank, @Size, @Pattern, @Email).
+     * Le Validator n'est appelé que sur la propriété en défaut.
+     * Par défaut: true
+     */
+    boolean fastValidation() default true;
+
+    /**
+     * Rejette dès le parsing les valeurs absentes de getAcceptedValues() du mapper,
+     * par défaut getDropdownOptions() (comparaison insensible à la casse, cellules vides
+     * autorisées). À activer explicitement: des options de template jusque-là indicatives
+     * deviennent des rejets.
+     * Par défaut: false
+     */
+    boolean validateDropdowns() default false;
+
+    /**
+     * Importe toutes les feuilles d'un classeur Excel (ex: une feuille par région),
+     * lues en parallèle et sauvegardées ensemble. Les feuilles reprennent les colonnes
+     * de la première; les erreurs indiquent la feuille et la ligne dans la feuille.
+     * Par défaut: false (première feuille seulement)
+     */
+    boolean allSheets() default false;
 }
@@ -2,10 +2,19 @@ package com.crm_bancaire.common.importexport.config;
 
 import com.crm_bancaire.common.importexport.parser.CsvParser;
 import com.crm_bancaire.common.importexport.parser.ExcelParser;
+import com.crm_bancaire.common.importexport.parser.XlsbParser;
+import com.crm_bancaire.common.importexport.service.ImportTransactionSupport;
+import com.crm_bancaire.common.importexport.service.JdbcImportSupport;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  * Auto-configuration pour common-import-export.
@@ -15,6 +24,7 @@ import org.springframework.context.annotation.ComponentScan;
 @Slf4j
 @AutoConfiguration
 @ComponentScan(basePackages = "com.crm_bancaire.common.importexport")
+@EnableConfigurationProperties(ImportExportProperties.class)
 public class ImportExportAutoConfiguration {
 
     public ImportExportAutoConfiguration() {
@@ -22,12 +32,44 @@ public class ImportExportAutoConfiguration {
     }
 
     @Bean
-    public ExcelParser excelParser() {
-        return new ExcelParser();
+    public ExcelParser excelParser(ImportExportProperties properties) {
+        return new ExcelParser(properties.getXlsx());
     }
 
     @Bean
-    public CsvParser csvParser() {
-        return new CsvParser();
+    public XlsbParser xlsbParser(ImportExportProperties properties) {
+        return new XlsbParser(properties.getXlsx());
+    }
+
+    @Bean
+    public CsvParser csvParser(ImportExportProperties properties) {
+        return new CsvParser(properties.getCsv());
+    }
+
+    /**
+     * Support transactionnel des imports, seulement si spring-tx est présent.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.transaction.PlatformTransactionManager")
+    static class TransactionConfiguration {
+
+        @Bean
+        public ImportTransactionSupport importTransactionSupport(
+                ObjectProvider<PlatformTransactionManager> transactionManager) {
+            return new ImportTransactionSupport(transactionManager);
+        }
+    }
+
+    /**
+     * Sink JDBC batch (@ImportTable), seulement si spring-jdbc est présent.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.jdbc.core.JdbcTemplate")
+    static class JdbcConfiguration {
+
+        @Bean
+        public JdbcImportSupport jdbcImportSupport(ObjectProvider<JdbcTemplate> jdbcTemplate) {
+            return new JdbcImportSupport(jdbcTemplate);
+        }
     }
 }
@@ -0,0 +1,285 @@
+package com.crm_bancaire.common.importexport.config;
+
+import com.crm_bancaire.common.importexport.enums.CsvEngine;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration globale de common-import-export (préfixe {@code import-export}).
+ *
+ * Exemple application.yml:
+ * <pre>
+ * import-export:
+ *   change-index:
+ *     directory: /var/lib/crm/import-index
+ *   jobs:
+ *     directory: /var/lib/crm/import-jobs
+ *     retention: 48h
+ *   errors:
+ *     max-inline: 200
+ *   csv:
+ *     engine: mapped
+ *     delimiter: ';'
+ *     encoding: windows-1252
+ *     parallelism: 8
+ *   xlsx:
+ *     shared-strings-on-disk: true
+ *   upload:
+ *     max-decompressed-size: 2GB
+ *   archive:
+ *     parallelism: 4
+ *   adaptive-batch:
+ *     target-latency: 500ms
+ *     max-size: 2000
+ *   admission:
+ *     enabled: true
+ *     max-concurrent: 4
+ *     memory-budget: 1GB
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "import-export")
+public class ImportExportProperties {
+
+    /**
+     * Index de détection des lignes inchangées (@Importable(skipUnchanged = true)).
+     */
+    private ChangeIndex changeIndex = new ChangeIndex();
+
+    /**
+     * Imports conservés sur disque (copie du fichier, checkpoints) pour la reprise.
+     */
+    private Jobs jobs = new Jobs();
+
+    /**
+     * Erreurs renvoyées dans ImportResponse.
+     */
+    private Errors errors = new Errors();
+
+    /**
+     * Lecture des fichiers CSV importés.
+     */
+    private Csv csv = new Csv();
+
+    /**
+     * Lecture des fichiers Excel importés.
+     */
+    private Xlsx xlsx = new Xlsx();
+
+    /**
+     * Fichiers uploadés compressés (.gz, .zip).
+     */
+    private Upload upload = new Upload();
+
+    /**
+     * Archives zip de plusieurs fichiers (POST /api/{entity}/import/archive).
+     */
+    private Archive archive = new Archive();
+
+    /**
+     * Taille de batch adaptative (@Importable(adaptiveBatchSize = true)).
+     */
+    private AdaptiveBatch adaptiveBatch = new AdaptiveBatch();
+
+    /**
+     * Contrôle d'admission des imports et exports (concurrence, mémoire, file d'attente).
+     */
+    private Admission admission = new Admission();
+
+    @Data
+    public static class ChangeIndex {
+
+        /**
+         * Répertoire des fichiers d'index (un fichier par entité et clé métier).
+         */
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "import-export", "change-index");
+    }
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * Répertoire des imports (un sous-répertoire par job).
+         */
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "import-export", "jobs");
+
+        /**
+         * Durée de conservation d'un job (fichier, journal) après sa création.
+         */
+        private Duration retention = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class Errors {
+
+        /**
+         * Nombre maximal d'erreurs détaillées dans ImportResponse.errors; toutes les lignes
+         * en erreur restent dans le rapport téléchargeable du job.
+         */
+        private int maxInline = 100;
+    }
+
+    @Data
+    public static class Csv {
+
+        /**
+         * Moteur de lecture (OPENCSV par défaut).
+         */
+        private CsvEngine engine = CsvEngine.OPENCSV;
+
+        /**
+         * Séparateur de champs.
+         */
+        private char delimiter = ',';
+
+        /**
+         * Encodage des fichiers; un BOM UTF-8 est toujours reconnu et retiré.
+         */
+        private Charset encoding = StandardCharsets.UTF_8;
+
+        /**
+         * Threads de lecture d'un gros fichier (1 = lecture séquentielle; moteur MAPPED
+         * uniquement, OPENCSV lit toujours séquentiellement).
+         */
+        private int parallelism = 1;
+
+        /**
+         * Taille des morceaux lus en parallèle; un fichier plus petit que deux morceaux
+         * est lu séquentiellement.
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(4);
+    }
+
+    @Data
+    public static class Xlsx {
+
+        /**
+         * Table des chaînes partagées gardée dans des fichiers temporaires mappés en mémoire
+         * plutôt que sur le heap (classeurs à millions de chaînes).
+         */
+        private boolean sharedStringsOnDisk = false;
+
+        /**
+         * Chaînes partagées gardées en mémoire (LRU) quand la table est sur disque.
+         */
+        private int sharedStringsCache = 1024;
+    }
+
+    @Data
+    public static class Upload {
+
+        /**
+         * Taille maximale du contenu d'un upload compressé, une fois décompressé: au-delà,
+         * l'import est refusé (archives piégées, "zip bombs").
+         */
+        private DataSize maxDecompressedSize = DataSize.ofGigabytes(1);
+    }
+
+    @Data
+    public static class Archive {
+
+        /**
+         * Fichiers de l'archive importés en même temps.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Nombre maximal de fichiers dans une archive.
+         */
+        private int maxFiles = 200;
+    }
+
+    @Data
+    public static class AdaptiveBatch {
+
+        /**
+         * Durée visée pour l'écriture d'un batch: au-delà, la taille est divisée
+         * ({@code decrease-factor}); en deçà, elle augmente tant que le débit suit.
+         */
+        private Duration targetLatency = Duration.ofSeconds(1);
+
+        /**
+         * Taille minimale d'un batch.
+         */
+        private int minSize = 10;
+
+        /**
+         * Taille maximale d'un batch (borne la mémoire des lignes en attente).
+         */
+        private int maxSize = 5000;
+
+        /**
+         * Lignes ajoutées à la taille après un batch rapide.
+         */
+        private int increment = 50;
+
+        /**
+         * Facteur appliqué à la taille après un batch trop lent.
+         */
+        private double decreaseFactor = 0.5;
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * Active le contrôle d'admission des endpoints d'import et d'export.
+         * Désactivé par défaut: les opérations démarrent sans limite.
+         */
+        private boolean enabled;
+
+        /**
+         * Imports et exports en cours au plus, toutes entités confondues.
+         */
+        private int maxConcurrent = 4;
+
+        /**
+         * Imports et exports en cours au plus pour une même entité.
+         */
+        private int maxConcurrentPerEntity = 2;
+
+        /**
+         * Mémoire réservable par les opérations en cours (somme de leurs estimations).
+         * Par défaut: la moitié du heap maximal.
+         */
+        private DataSize memoryBudget;
+
+        /**
+         * Estimation mémoire d'un import (batch en attente, pipeline de lecture).
+         */
+        private DataSize importMemory = DataSize.ofMegabytes(32);
+
+        /**
+         * Estimation mémoire d'un import .xlsx/.xlsb, en multiple de la taille du fichier
+         * (chaînes partagées en mémoire), en plus de {@code import-memory}.
+         * Ignoré avec {@code import-export.xlsx.shared-strings-on-disk}.
+         */
+        private int excelMemoryFactor = 6;
+
+        /**
+         * Estimation mémoire d'une ligne exportée (export paginé: {@code size} lignes).
+         */
+        private DataSize exportRowMemory = DataSize.ofKilobytes(2);
+
+        /**
+         * Estimation mémoire d'un export non paginé (toutes les lignes en mémoire).
+         */
+        private DataSize unpagedExportMemory = DataSize.ofMegabytes(256);
+
+        /**
+         * Requêtes en attente au plus: au-delà, refus immédiat (HTTP 429).
+         */
+        private int maxQueued = 20;
+
+        /**
+         * Attente maximale d'une requête dans la file: au-delà, refus (HTTP 429).
+         */
+        private Duration queueTimeout = Duration.ofSeconds(30);
+    }
+}
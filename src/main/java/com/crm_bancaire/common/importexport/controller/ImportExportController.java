@@ -1,29 +1,47 @@
 package com.crm_bancaire.common.importexport.controller;
 
 import com.crm_bancaire.common.importexport.config.ImportExportRegistry;
+import com.crm_bancaire.common.importexport.dto.ArchiveImportResponse;
+import com.crm_bancaire.common.importexport.dto.ImportJobResponse;
 import com.crm_bancaire.common.importexport.dto.ImportResponse;
 import com.crm_bancaire.common.importexport.enums.ExportFormat;
+import com.crm_bancaire.common.importexport.service.AdmissionRejectedException;
+import com.crm_bancaire.common.importexport.service.ArchiveImportService;
 import com.crm_bancaire.common.importexport.service.ExportService;
+import com.crm_bancaire.common.importexport.service.ImportExportScheduler;
 import com.crm_bancaire.common.importexport.service.ImportService;
 import com.crm_bancaire.common.importexport.service.TemplateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller REST pour import/export automatique.
  *
  * Génère automatiquement les endpoints pour tous les services annotés:
  * - POST /api/{entity}/import
+ * - POST /api/{entity}/import/archive
+ * - GET /api/{entity}/import/jobs/{jobId}
+ * - POST /api/{entity}/import/jobs/{jobId}/resume
+ * - GET /api/{entity}/import/jobs/{jobId}/errors
  * - GET /api/{entity}/import/template
  * - GET /api/{entity}/export
+ *
+ * Avec {@code import-export.admission.enabled}, imports et exports passent par le contrôle
+ * d'admission ({@link ImportExportScheduler}): HTTP 429 avec {@code Retry-After} quand trop d'opérations sont en cours ou en attente.
  */
 @RestController
 @RequestMapping("/api")
@@ -33,8 +51,10 @@ public class ImportExportController {
 
     private final ImportExportRegistry registry;
     private final ImportService importService;
+    private final ArchiveImportService archiveImportService;
     private final ExportService exportService;
     private final TemplateService templateService;
+    private final ImportExportScheduler scheduler;
 
     /**
      * Upload et importe un fichier Excel/CSV.
@@ -56,15 +76,187 @@ public class ImportExportController {
         // Récupérer config
         ImportExportRegistry.ImportConfig config = registry.getImportConfig(entity);
 
-        // Effectuer l'import
-        ImportResponse response = importService.importFile(
-            file,
-            config.getService(),
-            config.getMapper(),
-            config.getAnnotation()
-        );
+        // Effectuer l'import (après admission)
+        ImportExportScheduler.Permit permit;
+        try {
+            permit = scheduler.admitImport(entity, file.getOriginalFilename(), file.getSize());
+        } catch (AdmissionRejectedException e) {
+            return tooManyRequests(e, ImportResponse.builder().success(false).message(e.getMessage()).build());
+        }
+        try {
+            ImportResponse response = importService.importFile(
+                file,
+                config.getService(),
+                config.getMapper(),
+                config.getAnnotation()
+            );
+
+            return ResponseEntity.ok(response);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Upload une archive zip de fichiers Excel/CSV et les importe en parallèle
+     * (un résultat par fichier, plus les totaux).
+     *
+     * POST /api/{entity}/import/archive
+     */
+    @PostMapping("/{entity}/import/archive")
+    public ResponseEntity<ArchiveImportResponse> importArchive(
+            @PathVariable String entity,
+            @RequestParam("file") MultipartFile file
+    ) {
+        log.info("Archive import request for entity '{}', file: {}", entity, file.getOriginalFilename());
+
+        // Vérifier que l'entité est importable
+        if (!registry.isImportable(entity)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ImportExportRegistry.ImportConfig config = registry.getImportConfig(entity);
+
+        ImportExportScheduler.Permit permit;
+        try {
+            permit = scheduler.admitArchive(entity, file.getSize());
+        } catch (AdmissionRejectedException e) {
+            return tooManyRequests(e, ArchiveImportResponse.builder().success(false).message(e.getMessage()).build());
+        }
+        try {
+            ArchiveImportResponse response = archiveImportService.importArchive(
+                file,
+                config.getService(),
+                config.getMapper(),
+                config.getAnnotation()
+            );
+
+            return ResponseEntity.ok(response);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Reprend un import interrompu depuis son dernier checkpoint (sans nouvel upload).
+     *
+     * POST /api/{entity}/import/jobs/{jobId}/resume
+     */
+    @PostMapping("/{entity}/import/jobs/{jobId}/resume")
+    public ResponseEntity<ImportResponse> resumeImport(
+            @PathVariable String entity,
+            @PathVariable String jobId
+    ) {
+        log.info("Resume request for entity '{}', job: {}", entity, jobId);
+
+        // Vérifier que l'entité est importable
+        if (!registry.isImportable(entity)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ImportExportRegistry.ImportConfig config = registry.getImportConfig(entity);
+
+        // Fichier déjà sur disque: estimation selon le nom et la taille de l'upload conservé
+        // (job inconnu: la reprise répond elle-même "introuvable")
+        String filename = null;
+        long size = 0;
+        try {
+            Optional<ImportJobResponse> job = importService.getJob(jobId, config.getAnnotation());
+            if (job.isPresent()) {
+                filename = job.get().getFilename();
+                size = job.get().getUploadSize();
+            }
+        } catch (IOException e) {
+            log.warn("Could not read import job {} before resuming it: {}", jobId, e.getMessage());
+        }
+
+        ImportExportScheduler.Permit permit;
+        try {
+            permit = scheduler.admitImport(entity, filename, size);
+        } catch (AdmissionRejectedException e) {
+            return tooManyRequests(e, ImportResponse.builder().success(false).message(e.getMessage()).build());
+        }
+        try {
+            ImportResponse response = importService.resumeImport(
+                jobId,
+                config.getService(),
+                config.getMapper(),
+                config.getAnnotation()
+            );
+
+            return ResponseEntity.ok(response);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * État et progression d'un import (interrogeable pendant l'import).
+     *
+     * GET /api/{entity}/import/jobs/{jobId}
+     */
+    @GetMapping("/{entity}/import/jobs/{jobId}")
+    public ResponseEntity<ImportJobResponse> getImportJob(
+            @PathVariable String entity,
+            @PathVariable String jobId
+    ) {
+        // Vérifier que l'entité est importable
+        if (!registry.isImportable(entity)) {
+            return ResponseEntity.notFound().build();
+        }
 
-        return ResponseEntity.ok(response);
+        try {
+            ImportExportRegistry.ImportConfig config = registry.getImportConfig(entity);
+            return importService.getJob(jobId, config.getAnnotation())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            log.error("Error reading import job {} for entity '{}'", jobId, entity, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Télécharge le rapport des lignes en erreur d'un import (Excel ou CSV).
+     *
+     * GET /api/{entity}/import/jobs/{jobId}/errors?format=xlsx
+     */
+    @GetMapping("/{entity}/import/jobs/{jobId}/errors")
+    public ResponseEntity<Resource> downloadErrorReport(
+            @PathVariable String entity,
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "xlsx") String format
+    ) {
+        log.info("Error report request for entity '{}', job: {}, format: {}", entity, jobId, format);
+
+        // Vérifier que l'entité est importable
+        if (!registry.isImportable(entity)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            ImportExportRegistry.ImportConfig config = registry.getImportConfig(entity);
+            ExportFormat exportFormat = "csv".equalsIgnoreCase(format) ? ExportFormat.CSV : ExportFormat.XLSX;
+
+            Optional<Path> report = importService.getErrorReport(jobId, config.getAnnotation(), exportFormat);
+            if (report.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            // Préparer réponse (fichier envoyé en streaming depuis le disque)
+            String filename = entity + "-import-errors" + exportFormat.getExtension();
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType()));
+            headers.setContentDispositionFormData("attachment", filename);
+
+            return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(report.get()));
+
+        } catch (Exception e) {
+            log.error("Error building error report for entity '{}', job {}", entity, jobId, e);
+            return ResponseEntity.internalServerError().build();
+        }
     }
 
     /**
@@ -147,6 +339,12 @@ public class ImportExportController {
             return ResponseEntity.notFound().build();
         }
 
+        ImportExportScheduler.Permit permit;
+        try {
+            permit = scheduler.admitExport(entity, queryParams);
+        } catch (AdmissionRejectedException e) {
+            return tooManyRequests(e, null);
+        }
         try {
             // Récupérer config
             ImportExportRegistry.ExportConfig config = registry.getExportConfig(entity);
@@ -178,6 +376,17 @@ public class ImportExportController {
         } catch (Exception e) {
             log.error("Error exporting entity '{}'", entity, e);
             return ResponseEntity.internalServerError().build();
+        } finally {
+            permit.close();
         }
     }
+
+    /**
+     * Réponse HTTP 429: opération refusée par le contrôle d'admission.
+     */
+    private static <T> ResponseEntity<T> tooManyRequests(AdmissionRejectedException e, T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(body);
+    }
 }
@@ -0,0 +1,81 @@
+package com.crm_bancaire.common.importexport.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Réponse de l'import d'une archive zip: résultat de chaque fichier et totaux.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveImportResponse {
+
+    /**
+     * Indique si tous les fichiers ont été importés avec succès
+     */
+    private boolean success;
+
+    /**
+     * Nombre de fichiers importés (hors répertoires et métadonnées macOS)
+     */
+    private int fileCount;
+
+    /**
+     * Nombre de fichiers dont l'import a échoué
+     */
+    private int failedFileCount;
+
+    /**
+     * Nombre total de lignes, tous fichiers confondus
+     */
+    private int totalRows;
+
+    /**
+     * Nombre de lignes importées avec succès
+     */
+    private int successCount;
+
+    /**
+     * Parmi les lignes importées, nombre de mises à jour (mode UPSERT)
+     */
+    private int updatedCount;
+
+    /**
+     * Lignes identiques au dernier import, ignorées (skipUnchanged)
+     */
+    private int unchangedCount;
+
+    /**
+     * Lignes remplacées par une ligne suivante de même clé métier, non écrites (mode UPSERT)
+     */
+    private int supersededCount;
+
+    /**
+     * Nombre de lignes en erreur
+     */
+    private int errorCount;
+
+    /**
+     * Durée de l'import de l'archive (ex: "PT42.3S")
+     */
+    private String duration;
+
+    /**
+     * Message global
+     */
+    private String message;
+
+    /**
+     * Résultat de chaque fichier (avec son jobId), par chemin dans l'archive et dans
+     * l'ordre de l'archive
+     */
+    @Builder.Default
+    private Map<String, ImportResponse> files = new LinkedHashMap<>();
+}
@@ -0,0 +1,66 @@
+package com.crm_bancaire.common.importexport.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Batchs écrits pendant un import: tailles retenues, durées et débit des sauvegardes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportBatchStats {
+
+    /**
+     * Taille ajustée pendant l'import (@Importable(adaptiveBatchSize = true))
+     */
+    private boolean adaptive;
+
+    /**
+     * Nombre de batchs écrits
+     */
+    private int batchCount;
+
+    /**
+     * Taille initiale (batchSize)
+     */
+    private int initialSize;
+
+    /**
+     * Taille retenue en fin d'import
+     */
+    private int finalSize;
+
+    /**
+     * Plus petite taille retenue
+     */
+    private int minSize;
+
+    /**
+     * Plus grande taille retenue
+     */
+    private int maxSize;
+
+    /**
+     * Nombre moyen de lignes par batch écrit
+     */
+    private int averageSize;
+
+    /**
+     * Durée moyenne d'écriture d'un batch, en millisecondes
+     */
+    private long averageLatencyMillis;
+
+    /**
+     * Durée d'écriture du batch le plus lent, en millisecondes
+     */
+    private long maxLatencyMillis;
+
+    /**
+     * Lignes écrites par seconde de sauvegarde (hors lecture, mapping et validation)
+     */
+    private long rowsPerSecond;
+}
@@ -34,6 +34,16 @@ public class ImportError {
      */
     private String message;
 
+    /**
+     * Feuille de la ligne en erreur (import de toutes les feuilles d'un classeur), null sinon.
+     * {@code row} est alors le numéro de la ligne dans cette feuille.
+     */
+    private String sheet;
+
+    public ImportError(int row, String field, String value, String message) {
+        this(row, field, value, message, null);
+    }
+
     /**
      * Constructor simplifié pour message seulement
      */
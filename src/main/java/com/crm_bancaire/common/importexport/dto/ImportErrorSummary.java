@@ -0,0 +1,46 @@
+package com.crm_bancaire.common.importexport.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Erreurs de même nature (même champ, même message à la valeur près) regroupées sur l'ensemble du fichier.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorSummary {
+
+    /**
+     * Nom du champ en erreur (optionnel)
+     */
+    private String field;
+
+    /**
+     * Message d'erreur commun aux lignes du groupe, sans la valeur en cause
+     */
+    private String message;
+
+    /**
+     * Nombre de lignes concernées
+     */
+    private int count;
+
+    /**
+     * Premières lignes concernées (exemples, numéros dans leur feuille en import multi-feuilles)
+     */
+    @Builder.Default
+    private List<Integer> sampleRows = new ArrayList<>();
+
+    /**
+     * Lignes concernées en plages compressées (ex: "2-500, 503, 510-512", ou "Nord!2-40, Sud!7"
+     * en import multi-feuilles), terminées par "..." si la liste est tronquée
+     */
+    private String rows;
+}
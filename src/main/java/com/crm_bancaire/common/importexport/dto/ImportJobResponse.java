@@ -0,0 +1,67 @@
+package com.crm_bancaire.common.importexport.dto;
+
+import com.crm_bancaire.common.importexport.enums.ImportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * État et progression d'un import (job).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobResponse {
+
+    /**
+     * Identifiant de l'import
+     */
+    private String jobId;
+
+    /**
+     * Entité importée
+     */
+    private String entity;
+
+    /**
+     * Nom du fichier uploadé
+     */
+    private String filename;
+
+    /**
+     * Taille du fichier uploadé conservé pour la reprise, en octets (0 s'il a été supprimé)
+     */
+    private long uploadSize;
+
+    /**
+     * État de l'import
+     */
+    private ImportJobStatus status;
+
+    /**
+     * Nombre de lignes de données du fichier (connu dès le pré-scan, 0 avant)
+     */
+    private int totalRows;
+
+    /**
+     * Lignes déjà traitées et commitées (dernier checkpoint)
+     */
+    private int processedRows;
+
+    /**
+     * Nombre de lignes importées avec succès au dernier checkpoint
+     */
+    private int successCount;
+
+    /**
+     * Nombre de lignes en erreur au dernier checkpoint
+     */
+    private int errorCount;
+
+    /**
+     * Progression en pourcentage (0-100)
+     */
+    private int progress;
+}
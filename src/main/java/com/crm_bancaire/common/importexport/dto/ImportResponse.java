@@ -32,6 +32,22 @@ public class ImportResponse {
      */
     private int successCount;
 
+    /**
+     * Parmi les lignes importées, nombre de mises à jour d'enregistrements existants (mode UPSERT)
+     */
+    private int updatedCount;
+
+    /**
+     * Lignes identiques au dernier import, ignorées (skipUnchanged)
+     */
+    private int unchangedCount;
+
+    /**
+     * Lignes remplacées par une ligne suivante de même clé métier dans le même batch,
+     * non écrites (mode UPSERT)
+     */
+    private int supersededCount;
+
     /**
      * Nombre de lignes en erreur
      */
@@ -48,6 +64,25 @@ public class ImportResponse {
     @Builder.Default
     private List<ImportError> errors = new ArrayList<>();
 
+    /**
+     * Indique que {@code errors} ne contient que les premières erreurs
+     * (limite import-export.errors.max-inline): voir le rapport d'erreurs
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * Erreurs regroupées par (champ, type d'erreur) avec leur nombre et les lignes concernées,
+     * les plus fréquentes d'abord (erreurs de cette exécution)
+     */
+    @Builder.Default
+    private List<ImportErrorSummary> errorSummary = new ArrayList<>();
+
+    /**
+     * Rapport des lignes en erreur téléchargeable (valeurs d'origine + colonne Erreur):
+     * GET /api/{entity}/import/jobs/{jobId}/errors?format=xlsx|csv
+     */
+    private boolean errorReportAvailable;
+
     /**
      * Warnings (non bloquants)
      */
@@ -58,4 +93,15 @@ public class ImportResponse {
      * Message global (optionnel)
      */
     private String message;
+
+    /**
+     * Tailles et durées des batchs écrits (null si aucun batch n'a été écrit)
+     */
+    private ImportBatchStats batchStats;
+
+    /**
+     * Identifiant de l'import, pour le reprendre après une interruption
+     * (POST /api/{entity}/import/jobs/{jobId}/resume)
+     */
+    private String jobId;
 }
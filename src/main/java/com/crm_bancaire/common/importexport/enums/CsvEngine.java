@@ -0,0 +1,19 @@
+package com.crm_bancaire.common.importexport.enums;
+
+/**
+ * Moteur de lecture des fichiers CSV importés.
+ */
+public enum CsvEngine {
+
+    /**
+     * OpenCSV via un Reader: décodage de tout le flux, un String[] par ligne.
+     */
+    OPENCSV,
+
+    /**
+     * Fichier mappé en mémoire, champs découpés directement sur les octets;
+     * seules les colonnes lues par le mapper sont décodées en String.
+     * Encodages compatibles ASCII uniquement (UTF-8, windows-1252, ISO-8859-x).
+     */
+    MAPPED
+}
@@ -0,0 +1,22 @@
+package com.crm_bancaire.common.importexport.enums;
+
+/**
+ * État d'un import (job) conservé sur disque.
+ */
+public enum ImportJobStatus {
+
+    /**
+     * Import en cours, ou interrompu (redémarrage du pod): peut être repris.
+     */
+    RUNNING,
+
+    /**
+     * Fichier traité jusqu'au bout.
+     */
+    COMPLETED,
+
+    /**
+     * Import arrêté sur erreur: peut être repris depuis le dernier checkpoint.
+     */
+    FAILED
+}
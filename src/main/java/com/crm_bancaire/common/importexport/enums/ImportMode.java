@@ -0,0 +1,18 @@
+package com.crm_bancaire.common.importexport.enums;
+
+/**
+ * Mode d'écriture des lignes importées.
+ */
+public enum ImportMode {
+
+    /**
+     * Chaque ligne crée un nouvel enregistrement.
+     */
+    INSERT,
+
+    /**
+     * Les lignes dont la clé métier existe déjà mettent à jour l'enregistrement existant,
+     * les autres sont insérées. L'existence est vérifiée en un appel groupé par batch.
+     */
+    UPSERT
+}
@@ -0,0 +1,35 @@
+package com.crm_bancaire.common.importexport.enums;
+
+/**
+ * Frontières de transaction pour la sauvegarde des lignes importées.
+ *
+ * Nécessite un PlatformTransactionManager dans le contexte Spring;
+ * sinon l'import se fait sans transaction (NONE).
+ */
+public enum TransactionMode {
+
+    /**
+     * Choisi selon la stratégie d'erreur:
+     * PER_FILE pour FAIL_FAST et COLLECT_ALL (tout ou rien),
+     * PER_BATCH pour SKIP_ERRORS.
+     */
+    AUTO,
+
+    /**
+     * Aucune transaction gérée par la lib: chaque appel save commit séparément.
+     */
+    NONE,
+
+    /**
+     * Une transaction par batch de {@code batchSize} lignes.
+     * En cas d'échec d'un batch, il est rollback puis rejoué ligne par ligne
+     * (une transaction par ligne) pour isoler les lignes en erreur.
+     */
+    PER_BATCH,
+
+    /**
+     * Une seule transaction pour tout le fichier.
+     * Toute erreur de sauvegarde annule l'import complet.
+     */
+    PER_FILE
+}
@@ -0,0 +1,332 @@
+package com.crm_bancaire.common.importexport.mapper;
+
+import com.crm_bancaire.common.importexport.annotation.ImportColumn;
+import com.crm_bancaire.common.importexport.parser.ParsedRow;
+import com.crm_bancaire.common.importexport.parser.RowHeaders;
+import org.springframework.core.GenericTypeResolver;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * ImportMapper générique piloté par les annotations {@link ImportColumn} de l'entité.
+ *
+ * Le mapping est compilé une seule fois par classe d'entité (setters, convertisseurs),
+ * et la position des colonnes est résolue une seule fois par fichier: le mapping
+ * d'une ligne se limite à des accès par index et des conversions précompilées.
+ *
+ * Usage:
+ * <pre>
+ * {@code
+ * @Component
+ * public class UserImportMapper extends AnnotatedImportMapper<User> {
+ *
+ *     @Override
+ *     public User getExampleRow() {
+ *         User example = new User();
+ *         example.setEmail("john@example.com");
+ *         return example;
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @param <T> Type de l'entité
+ */
+public abstract class AnnotatedImportMapper<T> implements ImportMapper<T> {
+
+    private static final Map<Class<?>, CompiledMapping> MAPPINGS = new ConcurrentHashMap<>();
+
+    private final CompiledMapping mapping;
+
+    /**
+     * Position des colonnes pour le dernier fichier rencontré.
+     */
+    private volatile HeaderBinding lastBinding;
+
+    protected AnnotatedImportMapper() {
+        Class<?> entityType = GenericTypeResolver.resolveTypeArgument(getClass(), AnnotatedImportMapper.class);
+        if (entityType == null) {
+            throw new IllegalStateException("Impossible de déterminer le type d'entité de " + getClass().getName()
+                + " - utilisez le constructeur AnnotatedImportMapper(Class<T>)");
+        }
+        this.mapping = MAPPINGS.computeIfAbsent(entityType, CompiledMapping::compile);
+    }
+
+    protected AnnotatedImportMapper(Class<T> entityType) {
+        this.mapping = MAPPINGS.computeIfAbsent(entityType, CompiledMapping::compile);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T mapRow(Map<String, String> row, int rowNumber) throws Exception {
+        T entity = (T) mapping.newInstance();
+        ColumnBinding[] columns = mapping.columns;
+
+        if (row instanceof ParsedRow parsed) {
+            int[] positions = positions(parsed.headers());
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].apply(entity, parsed.get(positions[i]));
+            }
+        } else {
+            for (ColumnBinding column : columns) {
+                column.apply(entity, row.get(column.name));
+            }
+        }
+
+        return entity;
+    }
+
+    @Override
+    public List<String> getRequiredColumns() {
+        // Copie modifiable: TemplateService y ajoute les colonnes optionnelles
+        return new ArrayList<>(mapping.requiredColumns);
+    }
+
+    @Override
+    public List<String> getOptionalColumns() {
+        return mapping.optionalColumns;
+    }
+
+    @Override
+    public Map<String, List<String>> getDropdownOptions() {
+        return mapping.dropdownOptions;
+    }
+
+    /**
+     * Options des listes déroulantes, plus les noms des constantes pour un enum
+     * avec enumMapping (acceptés par la conversion, absents du template).
+     */
+    @Override
+    public Map<String, List<String>> getAcceptedValues() {
+        return mapping.acceptedValues;
+    }
+
+    /**
+     * Résout la position des colonnes pour les headers d'un fichier (une fois par fichier).
+     */
+    private int[] positions(RowHeaders headers) {
+        HeaderBinding binding = lastBinding;
+        if (binding == null || binding.headers != headers) {
+            int[] positions = new int[mapping.columns.length];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = headers.indexOf(mapping.columns[i].name);
+            }
+            binding = new HeaderBinding(headers, positions);
+            lastBinding = binding;
+        }
+        return binding.positions;
+    }
+
+    private record HeaderBinding(RowHeaders headers, int[] positions) {
+    }
+
+    /**
+     * Mapping compilé d'une classe d'entité.
+     */
+    private static final class CompiledMapping {
+
+        private final MethodHandle constructor;
+        private final ColumnBinding[] columns;
+        private final List<String> requiredColumns;
+        private final List<String> optionalColumns;
+        private final Map<String, List<String>> dropdownOptions;
+        private final Map<String, List<String>> acceptedValues;
+
+        private CompiledMapping(MethodHandle constructor, List<ColumnBinding> columns) {
+            this.constructor = constructor;
+            this.columns = columns.toArray(new ColumnBinding[0]);
+
+            List<String> required = new ArrayList<>();
+            List<String> optional = new ArrayList<>();
+            Map<String, List<String>> dropdowns = new LinkedHashMap<>();
+            Map<String, List<String>> accepted = new LinkedHashMap<>();
+            for (ColumnBinding column : columns) {
+                (column.required ? required : optional).add(column.name);
+                if (column.dropdownOptions != null) {
+                    dropdowns.put(column.name, column.dropdownOptions);
+                    accepted.put(column.name, column.acceptedValues);
+                }
+            }
+            this.requiredColumns = List.copyOf(required);
+            this.optionalColumns = List.copyOf(optional);
+            this.dropdownOptions = Map.copyOf(dropdowns);
+            this.acceptedValues = Map.copyOf(accepted);
+        }
+
+        private Object newInstance() throws Exception {
+            try {
+                return constructor.invoke();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private static CompiledMapping compile(Class<?> entityType) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(entityType, MethodHandles.lookup());
+
+                Constructor<?> ctor = entityType.getDeclaredConstructor();
+                ctor.setAccessible(true);
+                MethodHandle constructor = lookup.unreflectConstructor(ctor)
+                    .asType(MethodType.methodType(Object.class));
+
+                List<ColumnBinding> columns = new ArrayList<>();
+                for (Field field : collectFields(entityType)) {
+                    ImportColumn column = field.getAnnotation(ImportColumn.class);
+                    if (column != null && !Modifier.isStatic(field.getModifiers())) {
+                        columns.add(ColumnBinding.compile(field, column, lookup));
+                    }
+                }
+
+                if (columns.isEmpty()) {
+                    throw new IllegalStateException("Aucun champ @ImportColumn dans " + entityType.getName());
+                }
+
+                return new CompiledMapping(constructor, columns);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(entityType.getName() + " doit avoir un constructeur sans argument", e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Accès impossible aux champs de " + entityType.getName(), e);
+            }
+        }
+
+        /**
+         * Champs de la classe et de ses parents (parents d'abord).
+         */
+        private static List<Field> collectFields(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            if (type.getSuperclass() != null && type.getSuperclass() != Object.class) {
+                fields.addAll(collectFields(type.getSuperclass()));
+            }
+            fields.addAll(Arrays.asList(type.getDeclaredFields()));
+            return fields;
+        }
+    }
+
+    /**
+     * Colonne compilée: nom, setter et convertisseur.
+     */
+    private static final class ColumnBinding {
+
+        private final String name;
+        private final boolean required;
+        private final boolean primitive;
+        private final MethodHandle setter;
+        private final Function<String, Object> converter;
+        private final List<String> dropdownOptions;
+        private final List<String> acceptedValues;
+
+        private ColumnBinding(String name, boolean required, boolean primitive, MethodHandle setter,
+                              Function<String, Object> converter, List<String> dropdownOptions,
+                              List<String> acceptedValues) {
+            this.name = name;
+            this.required = required;
+            this.primitive = primitive;
+            this.setter = setter;
+            this.converter = converter;
+            this.dropdownOptions = dropdownOptions;
+            this.acceptedValues = acceptedValues;
+        }
+
+        private void apply(Object entity, String raw) throws Exception {
+            if (raw == null || raw.isBlank()) {
+                if (required) {
+                    throw new ImportFieldException(name, raw, "Colonne obligatoire '" + name + "' vide");
+                }
+                if (primitive) {
+                    // Garder la valeur par défaut du type primitif
+                    return;
+                }
+                invoke(entity, null);
+                return;
+            }
+
+            Object value;
+            try {
+                value = converter.apply(raw.trim());
+            } catch (IllegalArgumentException e) {
+                String kind = e instanceof ImportFieldException conversion ? conversion.getKind() : e.getMessage();
+                throw new ImportFieldException(name, raw, name + ": " + e.getMessage(), name + ": " + kind, e);
+            }
+            invoke(entity, value);
+        }
+
+        private void invoke(Object entity, Object value) throws Exception {
+            try {
+                setter.invokeExact(entity, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private static ColumnBinding compile(Field field, ImportColumn column, MethodHandles.Lookup lookup)
+                throws IllegalAccessException {
+            String name = column.name().isEmpty() ? field.getName() : column.name();
+            Class<?> type = field.getType();
+
+            // Setter public en priorité (logique métier éventuelle), sinon accès direct au champ
+            MethodHandle setter;
+            Method method = findSetter(field);
+            if (method != null) {
+                setter = lookup.unreflect(method);
+            } else {
+                field.setAccessible(true);
+                setter = lookup.unreflectSetter(field);
+            }
+            setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            // Template: libellés de enumMapping, sinon noms des constantes.
+            // Validation: les noms des constantes restent acceptés avec enumMapping.
+            List<String> dropdownOptions = null;
+            List<String> acceptedValues = null;
+            if (type.isEnum()) {
+                List<String> names = new ArrayList<>();
+                for (Object constant : type.getEnumConstants()) {
+                    names.add(((Enum<?>) constant).name());
+                }
+                if (column.enumMapping().length > 0) {
+                    List<String> labels = new ArrayList<>();
+                    for (String mapping : column.enumMapping()) {
+                        labels.add(mapping.split(":", 2)[0].trim());
+                    }
+                    dropdownOptions = List.copyOf(labels);
+                    labels.addAll(names);
+                    acceptedValues = List.copyOf(labels);
+                } else {
+                    dropdownOptions = List.copyOf(names);
+                    acceptedValues = dropdownOptions;
+                }
+            }
+
+            return new ColumnBinding(name, column.required(), type.isPrimitive(), setter,
+                ColumnConverters.forType(type, column), dropdownOptions, acceptedValues);
+        }
+
+        private static Method findSetter(Field field) {
+            String setterName = "set" + Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+            try {
+                // Le type de retour est ignoré (setters fluents acceptés)
+                return field.getDeclaringClass().getMethod(setterName, field.getType());
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.crm_bancaire.common.importexport.mapper;
+
+import com.crm_bancaire.common.importexport.annotation.ImportColumn;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Fabrique des convertisseurs String → type de champ.
+ *
+ * Les convertisseurs sont construits une seule fois par champ (formatters,
+ * tables d'enums...) puis réutilisés pour chaque ligne.
+ */
+final class ColumnConverters {
+
+    private static final DateTimeFormatter DEFAULT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DEFAULT_DATETIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private ColumnConverters() {
+    }
+
+    /**
+     * Construit le convertisseur pour un type de champ.
+     * Les convertisseurs reçoivent une valeur non vide et lèvent
+     * IllegalArgumentException avec un message explicite si elle est invalide.
+     *
+     * @param type Type du champ
+     * @param column Annotation du champ
+     * @return Convertisseur précompilé
+     */
+    static Function<String, Object> forType(Class<?> type, ImportColumn column) {
+        if (type == String.class) {
+            return value -> value;
+        }
+        if (type == Integer.class || type == int.class) {
+            return value -> parseNumber(value, "un entier", v -> Integer.valueOf(v));
+        }
+        if (type == Long.class || type == long.class) {
+            return value -> parseNumber(value, "un entier", v -> Long.valueOf(v));
+        }
+        if (type == Double.class || type == double.class) {
+            return value -> parseNumber(normalizeDecimal(value), "un nombre", v -> Double.valueOf(v));
+        }
+        if (type == BigDecimal.class) {
+            return value -> parseNumber(normalizeDecimal(value), "un nombre", BigDecimal::new);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return ColumnConverters::parseBoolean;
+        }
+        if (type == LocalDate.class) {
+            return dateConverter(column.format(), DEFAULT_DATE, DateTimeFormatter.ISO_LOCAL_DATE, LocalDate::parse);
+        }
+        if (type == LocalDateTime.class) {
+            return dateConverter(column.format(), DEFAULT_DATETIME, DateTimeFormatter.ISO_LOCAL_DATE_TIME, LocalDateTime::parse);
+        }
+        if (type.isEnum()) {
+            return enumConverter(type, column.enumMapping());
+        }
+        throw new IllegalStateException("Type non supporté par @ImportColumn: " + type.getName());
+    }
+
+    /**
+     * Parse un nombre avec un message d'erreur homogène.
+     */
+    private static Object parseNumber(String value, String expected, Function<String, Object> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw invalid(value, "Valeur invalide '" + value + "' - " + expected + " est attendu",
+                "Valeur invalide - " + expected + " est attendu");
+        }
+    }
+
+    /**
+     * Accepte la virgule comme séparateur décimal (fichiers CSV Excel FR).
+     */
+    private static String normalizeDecimal(String value) {
+        return value.indexOf(',') >= 0 && value.indexOf('.') < 0 ? value.replace(',', '.') : value;
+    }
+
+    /**
+     * Parse un booléen (true/false, oui/non, yes/no, 1/0).
+     */
+    private static Object parseBoolean(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "oui", "yes", "1":
+                return Boolean.TRUE;
+            case "false", "non", "no", "0":
+                return Boolean.FALSE;
+            default:
+                throw invalid(value, "Valeur invalide '" + value + "' - oui/non attendu",
+                    "Valeur invalide - oui/non attendu");
+        }
+    }
+
+    /**
+     * Convertisseur de date: format de l'annotation, sinon format FR puis ISO.
+     */
+    private static Function<String, Object> dateConverter(
+            String pattern,
+            DateTimeFormatter defaultFormatter,
+            DateTimeFormatter isoFormatter,
+            BiFunction<String, DateTimeFormatter, Object> parser
+    ) {
+        if (!pattern.isEmpty()) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+            return value -> {
+                try {
+                    return parser.apply(value, formatter);
+                } catch (DateTimeParseException e) {
+                    throw invalid(value, "Date invalide '" + value + "' - format attendu: " + pattern,
+                        "Date invalide - format attendu: " + pattern);
+                }
+            };
+        }
+
+        return value -> {
+            try {
+                return parser.apply(value, defaultFormatter);
+            } catch (DateTimeParseException e) {
+                try {
+                    return parser.apply(value, isoFormatter);
+                } catch (DateTimeParseException iso) {
+                    String expected = defaultFormatter == DEFAULT_DATE ? "dd/MM/yyyy" : "dd/MM/yyyy HH:mm:ss";
+                    throw invalid(value, "Date invalide '" + value + "' - format attendu: " + expected,
+                        "Date invalide - format attendu: " + expected);
+                }
+            }
+        };
+    }
+
+    /**
+     * Convertisseur d'enum: table précalculée libellé/nom → constante (insensible à la casse).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> enumConverter(Class<?> type, String[] enumMapping) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            constants.put(((Enum<?>) constant).name().toUpperCase(Locale.ROOT), constant);
+        }
+        for (String mapping : enumMapping) {
+            String[] parts = mapping.split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalStateException("enumMapping invalide (attendu 'Libellé:CONSTANTE'): " + mapping);
+            }
+            Object constant = Enum.valueOf((Class<Enum>) type, parts[1].trim());
+            constants.put(parts[0].trim().toUpperCase(Locale.ROOT), constant);
+        }
+
+        return value -> {
+            Object constant = constants.get(value.toUpperCase(Locale.ROOT));
+            if (constant == null) {
+                throw invalid(value, "Valeur invalide '" + value + "' pour " + type.getSimpleName(),
+                    "Valeur invalide pour " + type.getSimpleName());
+            }
+            return constant;
+        };
+    }
+
+    /**
+     * Erreur de conversion; {@code kind} (sans la valeur) regroupe les lignes en erreur.
+     */
+    private static ImportFieldException invalid(String value, String message, String kind) {
+        return new ImportFieldException(null, value, message, kind, null);
+    }
+}
@@ -0,0 +1,133 @@
+package com.crm_bancaire.common.importexport.mapper;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Contexte d'un import, passé aux mappers et détruit à la fin de l'import.
+ *
+ * Permet de mémoïser la résolution des références (une seule requête par clé distincte)
+ * et de les précharger en un seul appel groupé.
+ *
+ * Usage:
+ * <pre>
+ * {@code
+ * @Override
+ * public void prepare(ImportContext context) {
+ *     context.lookup("agency", agencyService::findIdByCode, agencyService::findIdsByCodes)
+ *            .prefetch(context.distinctValues("agencyCode"));
+ * }
+ *
+ * @Override
+ * public Client mapRow(Map<String, String> row, int rowNumber, ImportContext context) {
+ *     Client client = new Client();
+ *     client.setAgencyId(context.<String, Long>lookup("agency").get(row.get("agencyCode")));
+ *     return client;
+ * }
+ *
+ * @Override
+ * public Client mapRow(Map<String, String> row, int rowNumber) {
+ *     try (ImportContext context = new ImportContext("Client", List.of())) {
+ *         prepare(context);
+ *         return mapRow(row, rowNumber, context);
+ *     }
+ * }
+ * }
+ * </pre>
+ */
+public class ImportContext implements AutoCloseable {
+
+    private final String entity;
+    private final Iterable<? extends Map<String, String>> rows;
+    private final Map<String, Lookup<?, ?>> lookups = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * @param entity Nom de l'entité importée
+     * @param rows Lignes du fichier (parcourues par {@link #distinctValues(String)})
+     */
+    public ImportContext(String entity, Iterable<? extends Map<String, String>> rows) {
+        this.entity = entity;
+        this.rows = rows;
+    }
+
+    /**
+     * Nom de l'entité importée.
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Récupère ou crée un lookup avec loader unitaire.
+     */
+    public <K, V> Lookup<K, V> lookup(String name, Function<K, V> loader) {
+        return lookup(name, loader, null);
+    }
+
+    /**
+     * Récupère ou crée un lookup avec loader unitaire et loader groupé.
+     *
+     * @param name Nom du lookup (unique dans l'import)
+     * @param loader Résolution d'une clé (peut être null si tout est préchargé)
+     * @param bulkLoader Résolution d'un ensemble de clés en un appel (peut être null)
+     * @return Le lookup, créé au premier appel
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Lookup<K, V> lookup(String name, Function<K, V> loader, Function<Set<K>, Map<K, V>> bulkLoader) {
+        checkOpen();
+        return (Lookup<K, V>) lookups.computeIfAbsent(name, n -> new Lookup<>(n, loader, bulkLoader));
+    }
+
+    /**
+     * Récupère un lookup déjà créé.
+     *
+     * @throws IllegalStateException Si le lookup n'existe pas
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Lookup<K, V> lookup(String name) {
+        checkOpen();
+        Lookup<?, ?> lookup = lookups.get(name);
+        if (lookup == null) {
+            throw new IllegalStateException("Lookup inconnu: " + name);
+        }
+        return (Lookup<K, V>) lookup;
+    }
+
+    /**
+     * Valeurs distinctes (non vides) d'une colonne, collectées en un seul passage.
+     *
+     * @param column Nom de la colonne
+     * @return Valeurs distinctes dans l'ordre d'apparition
+     */
+    public Set<String> distinctValues(String column) {
+        checkOpen();
+        Set<String> values = new LinkedHashSet<>();
+        for (Map<String, String> row : rows) {
+            String value = row.get(column);
+            if (value != null && !value.isBlank()) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Libère les caches. Appelé automatiquement à la fin de l'import.
+     */
+    @Override
+    public void close() {
+        lookups.values().forEach(Lookup::clear);
+        lookups.clear();
+        closed = true;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("ImportContext fermé: l'import de '" + entity + "' est terminé");
+        }
+    }
+}
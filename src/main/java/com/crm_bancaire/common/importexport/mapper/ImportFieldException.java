@@ -0,0 +1,51 @@
+package com.crm_bancaire.common.importexport.mapper;
+
+/**
+ * Erreur de mapping liée à une colonne précise.
+ *
+ * Levée depuis {@link ImportMapper#mapRow}, elle permet de renseigner
+ * les champs {@code field} et {@code value} de l'ImportError.
+ */
+public class ImportFieldException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String field;
+    private final String value;
+    private final String kind;
+
+    public ImportFieldException(String field, String value, String message) {
+        this(field, value, message, null, null);
+    }
+
+    public ImportFieldException(String field, String value, String message, Throwable cause) {
+        this(field, value, message, null, cause);
+    }
+
+    /**
+     * @param kind Message sans la valeur (ex: "age: Valeur invalide - un nombre entier est attendu"),
+     *             utilisé pour regrouper les erreurs; null si {@code message} ne contient pas la valeur
+     */
+    public ImportFieldException(String field, String value, String message, String kind, Throwable cause) {
+        super(message, cause);
+        this.field = field;
+        this.value = value;
+        this.kind = kind;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Type d'erreur, sans la valeur: les lignes ayant le même type sont regroupées
+     * dans ImportResponse.errorSummary (le message sinon).
+     */
+    public String getKind() {
+        return kind != null ? kind : getMessage();
+    }
+}
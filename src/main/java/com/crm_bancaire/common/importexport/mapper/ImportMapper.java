@@ -45,13 +45,42 @@ public interface ImportMapper<T> {
     /**
      * Mappe une ligne du fichier Excel/CSV vers une entité.
      *
+     * Un mapper qui a besoin du contexte de l'import redéfinit aussi
+     * {@link #mapRow(Map, int, ImportContext)}.
+     *
      * @param row Map contenant les valeurs des colonnes (key = nom colonne, value = valeur)
-     * @param rowNumber Numéro de la ligne (commence à 2 car ligne 1 = headers)
+     * @param rowNumber Numéro de la ligne (commence à 2 car ligne 1 = headers; ligne dans sa feuille
+     *                  en import multi-feuilles)
      * @return L'entité mappée (non sauvegardée)
      * @throws Exception Si le mapping échoue (email invalide, données manquantes, etc.)
      */
     T mapRow(Map<String, String> row, int rowNumber) throws Exception;
 
+    /**
+     * Mappe une ligne avec accès au contexte de l'import (lookups mémoïsés).
+     * Par défaut, délègue à {@link #mapRow(Map, int)}.
+     *
+     * @param row Map contenant les valeurs des colonnes
+     * @param rowNumber Numéro de la ligne
+     * @param context Contexte de l'import en cours
+     * @return L'entité mappée (non sauvegardée)
+     * @throws Exception Si le mapping échoue
+     */
+    default T mapRow(Map<String, String> row, int rowNumber, ImportContext context) throws Exception {
+        return mapRow(row, rowNumber);
+    }
+
+    /**
+     * Appelée une fois par import, après validation des headers et avant le mapping.
+     * Permet de précharger les références en un seul appel groupé (optionnel).
+     *
+     * @param context Contexte de l'import en cours
+     * @throws Exception Si le préchargement échoue (l'import est annulé)
+     */
+    default void prepare(ImportContext context) throws Exception {
+        // Par défaut, rien à précharger
+    }
+
     /**
      * Retourne la liste des colonnes obligatoires.
      * Utilisé pour valider que le fichier contient tous les headers nécessaires.
@@ -111,4 +140,15 @@ public interface ImportMapper<T> {
     default Map<String, List<String>> getDropdownOptions() {
         return Map.of();
     }
+
+    /**
+     * Valeurs acceptées par colonne, contrôlées dès le parsing (@Importable(validateDropdowns)).
+     * Par défaut: les options des listes déroulantes; à élargir quand le mapping accepte
+     * d'autres saisies que les options proposées (ex: noms des constantes d'un enum).
+     *
+     * @return Map avec nom de colonne → valeurs acceptées
+     */
+    default Map<String, List<String>> getAcceptedValues() {
+        return getDropdownOptions();
+    }
 }
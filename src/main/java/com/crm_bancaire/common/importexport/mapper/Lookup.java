@@ -0,0 +1,107 @@
+package com.crm_bancaire.common.importexport.mapper;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Cache mémoïsé de résolution de références (code agence → id, libellé produit → entité...).
+ *
+ * Chaque clé n'est résolue qu'une fois par import. Les clés introuvables sont
+ * aussi mémorisées (valeur null) pour ne pas relancer d'appel.
+ *
+ * Obtenu via {@link ImportContext#lookup(String, Function, Function)}; non thread-safe.
+ *
+ * @param <K> Type de la clé
+ * @param <V> Type de la valeur résolue
+ */
+public final class Lookup<K, V> {
+
+    private static final Object ABSENT = new Object();
+
+    private final String name;
+    private final Function<K, V> loader;
+    private final Function<Set<K>, Map<K, V>> bulkLoader;
+    private final Map<K, Object> cache = new HashMap<>();
+    private int loaderCalls;
+
+    Lookup(String name, Function<K, V> loader, Function<Set<K>, Map<K, V>> bulkLoader) {
+        this.name = name;
+        this.loader = loader;
+        this.bulkLoader = bulkLoader;
+    }
+
+    /**
+     * Résout une clé (appel au loader seulement si la clé n'a jamais été vue).
+     *
+     * @param key Clé à résoudre (null → null)
+     * @return Valeur résolue ou null si introuvable
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        Object cached = cache.get(key);
+        if (cached == null) {
+            if (loader == null) {
+                throw new IllegalStateException("Lookup '" + name + "': clé non préchargée et aucun loader unitaire: " + key);
+            }
+            V value = loader.apply(key);
+            loaderCalls++;
+            cached = value != null ? value : ABSENT;
+            cache.put(key, cached);
+        }
+        return cached == ABSENT ? null : (V) cached;
+    }
+
+    /**
+     * Précharge un ensemble de clés en un seul appel au bulk loader.
+     * Les clés déjà en cache sont ignorées.
+     *
+     * @param keys Clés à précharger (ex: {@link ImportContext#distinctValues(String)})
+     */
+    public void prefetch(Collection<? extends K> keys) {
+        if (bulkLoader == null) {
+            throw new IllegalStateException("Lookup '" + name + "': aucun bulk loader configuré");
+        }
+
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (key != null && !cache.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<K, V> loaded = bulkLoader.apply(missing);
+        loaderCalls++;
+        for (K key : missing) {
+            V value = loaded != null ? loaded.get(key) : null;
+            cache.put(key, value != null ? value : ABSENT);
+        }
+    }
+
+    /**
+     * Nombre de clés en cache.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Nombre d'appels effectués aux loaders (unitaire + bulk).
+     */
+    public int getLoaderCalls() {
+        return loaderCalls;
+    }
+
+    void clear() {
+        cache.clear();
+    }
+}
@@ -1,22 +1,86 @@
 package com.crm_bancaire.common.importexport.parser;
 
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.enums.CsvEngine;
+import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Parser pour fichiers CSV
+ *
+ * Séparateur, encodage et moteur de lecture configurables ({@code import-export.csv.*}):
+ * OPENCSV lit un flux caractère par caractère, MAPPED découpe directement les octets
+ * du fichier mappé en mémoire (voir {@link MappedCsvReader}).
  */
 @Slf4j
 @Component
-public class CsvParser implements FileParser {
+public class CsvParser implements FileParser, DisposableBean {
+
+    /**
+     * Taille des régions mappées en mémoire par le pré-scan.
+     */
+    private static final long SCAN_REGION_SIZE = 256L * 1024 * 1024;
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /**
+     * États du pré-scan dans un champ.
+     */
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int AFTER_QUOTE = 4;
+
+    private final CsvEngine engine;
+    private final char delimiter;
+    private final Charset encoding;
+    private final int parallelism;
+    private final long chunkSize;
+
+    /**
+     * Threads de la lecture parallèle, créés au premier gros fichier et arrêtés
+     * avec le contexte Spring ({@link #destroy()}).
+     */
+    private volatile ForkJoinPool pool;
+
+    /**
+     * Parser par défaut: OpenCSV, virgule, UTF-8.
+     */
+    public CsvParser() {
+        this(new ImportExportProperties.Csv());
+    }
+
+    public CsvParser(ImportExportProperties.Csv settings) {
+        this.engine = settings.getEngine();
+        this.delimiter = settings.getDelimiter();
+        this.encoding = settings.getEncoding();
+        this.parallelism = settings.getParallelism();
+        this.chunkSize = settings.getChunkSize().toBytes();
+        if (parallelism > 1 && engine != CsvEngine.MAPPED) {
+            log.warn("import-export.csv.parallelism={} ignored: parallel reading requires engine MAPPED", parallelism);
+        }
+    }
 
     @Override
     public List<Map<String, String>> parse(MultipartFile file) throws Exception {
@@ -29,41 +93,159 @@ public class CsvParser implements FileParser {
     public List<Map<String, String>> parse(InputStream inputStream) throws Exception {
         List<Map<String, String>> result = new ArrayList<>();
 
-        try (CSVReader reader = new CSVReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            List<String[]> allRows = reader.readAll();
+        try (RowReader reader = open(inputStream)) {
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                result.add(row);
+            }
+        }
+
+        log.info("Parsed {} rows from CSV file", result.size());
+        return result;
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return true;
+    }
+
+    /**
+     * Lit le CSV ligne par ligne (une seule ligne en mémoire).
+     */
+    @Override
+    public RowReader open(InputStream inputStream) throws Exception {
+        // BOM UTF-8: retiré, et le fichier est lu en UTF-8 quel que soit l'encodage configuré
+        PushbackInputStream in = new PushbackInputStream(inputStream, UTF8_BOM.length);
+        byte[] start = in.readNBytes(UTF8_BOM.length);
+        Charset charset = encoding;
+        if (Arrays.equals(start, UTF8_BOM)) {
+            charset = StandardCharsets.UTF_8;
+        } else {
+            in.unread(start);
+        }
 
-            if (allRows.isEmpty()) {
+        CSVReader reader = new CSVReaderBuilder(new InputStreamReader(in, charset))
+            .withCSVParser(new CSVParserBuilder().withSeparator(delimiter).build())
+            .build();
+        try {
+            // Ligne 1 = Headers
+            String[] headers = reader.readNext();
+            if (headers == null) {
                 throw new IllegalArgumentException("Fichier CSV vide");
             }
+            return new CsvRowReader(reader, new RowHeaders(cleanHeaders(headers)));
+        } catch (CsvValidationException e) {
+            reader.close();
+            throw new IllegalArgumentException("Erreur lors du parsing CSV: " + e.getMessage(), e);
+        } catch (Exception e) {
+            reader.close();
+            throw e;
+        }
+    }
 
-            // Ligne 1 = Headers
-            String[] headers = allRows.get(0);
-            List<String> cleanHeaders = cleanHeaders(headers);
+    /**
+     * Avec le moteur MAPPED, lit la copie locale mappée en mémoire: les valeurs ne sont
+     * décodées que pour les colonnes lues par le mapper.
+     *
+     * Avec {@code parallelism > 1}, un fichier d'au moins deux morceaux est lu par morceaux
+     * en parallèle (voir {@link ParallelCsvReader}, mêmes règles de découpage que MAPPED).
+     * Le moteur OPENCSV lit toujours séquentiellement.
+     */
+    @Override
+    public RowReader open(Path file) throws Exception {
+        if (engine == CsvEngine.MAPPED && parallelism > 1 && chunkSize > 0 && Files.size(file) >= 2 * chunkSize
+                && MappedCsvReader.supports(encoding)) {
+            return ParallelCsvReader.open(file, delimiter, encoding, pool(), chunkSize);
+        }
+        if (engine == CsvEngine.MAPPED) {
+            return MappedCsvReader.open(file, delimiter, encoding);
+        }
+        return FileParser.super.open(file);
+    }
 
-            // Lignes 2+ = Data
-            for (int i = 1; i < allRows.size(); i++) {
-                String[] row = allRows.get(i);
+    /**
+     * Pré-scan sur le fichier mappé en mémoire: compte les enregistrements sans décodage
+     * ni construction des valeurs, avec les règles de découpage de {@link MappedCsvReader}
+     * (guillemet ouvrant en début de champ seulement, guillemets doublés, texte après le
+     * guillemet fermant ignoré, fins de ligne \n, \r\n ou \r). Les enregistrements sans
+     * caractère non blanc hors guillemets de syntaxe ne sont pas comptés, comme au parsing.
+     */
+    @Override
+    public int scanRows(Path file, int limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            boolean header = true;
+            int state = FIELD_START;
+            boolean content = false;
+            boolean skipLineFeed = false;
+            int rows = 0;
 
-                // Skip lignes vides
-                if (isRowEmpty(row)) {
-                    continue;
-                }
+            for (long position = 0; position < size; position += SCAN_REGION_SIZE) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(SCAN_REGION_SIZE, size - position));
+                while (region.hasRemaining()) {
+                    byte b = region.get();
+                    if (skipLineFeed) {
+                        skipLineFeed = false;
+                        if (b == '\n') {
+                            continue; // \r\n: une seule fin de ligne
+                        }
+                    }
 
-                Map<String, String> rowData = new HashMap<>();
-                for (int j = 0; j < Math.min(row.length, cleanHeaders.size()); j++) {
-                    String value = row[j] != null ? row[j].trim() : null;
-                    rowData.put(cleanHeaders.get(j), value);
-                }
+                    if (state == QUOTE_IN_QUOTED) {
+                        if (b == '"') {
+                            state = QUOTED; // Guillemet doublé
+                            continue;
+                        }
+                        state = AFTER_QUOTE;
+                    }
+                    if (state == QUOTED) {
+                        if (b == '"') {
+                            state = QUOTE_IN_QUOTED;
+                        } else if (b < 0 || b > ' ') {
+                            content = true;
+                        }
+                        continue;
+                    }
+                    if (state == FIELD_START && b == '"') {
+                        state = QUOTED;
+                        continue;
+                    }
 
-                result.add(rowData);
+                    if (b == delimiter) {
+                        state = FIELD_START;
+                    } else if (b == '\n' || b == '\r') {
+                        if (header) {
+                            header = false;
+                        } else if (content && ++rows >= limit) {
+                            return rows;
+                        }
+                        content = false;
+                        state = FIELD_START;
+                        skipLineFeed = b == '\r';
+                    } else if (state != AFTER_QUOTE) {
+                        state = UNQUOTED;
+                        if (b < 0 || b > ' ') {
+                            content = true;
+                        }
+                    }
+                }
             }
-
-        } catch (CsvException e) {
-            throw new IllegalArgumentException("Erreur lors du parsing CSV: " + e.getMessage(), e);
+            if (!header && content) {
+                rows++; // Dernière ligne sans fin de ligne
+            }
+            return Math.min(rows, limit);
         }
+    }
 
-        log.info("Parsed {} rows from CSV file", result.size());
-        return result;
+    /**
+     * Exact avec le moteur MAPPED, dont le pré-scan reprend les règles. OpenCSV a ses propres
+     * règles (échappement par antislash, espaces avant un guillemet...): le pré-scan n'est alors
+     * qu'une borne, et les lignes sont comptées en lisant le fichier.
+     */
+    @Override
+    public boolean isScanExact() {
+        return engine == CsvEngine.MAPPED;
     }
 
     @Override
@@ -71,6 +253,35 @@ public class CsvParser implements FileParser {
         return filename != null && filename.toLowerCase().endsWith(".csv");
     }
 
+    /**
+     * Arrête les threads de la lecture parallèle (lectures en cours terminées normalement).
+     */
+    @Override
+    public void destroy() {
+        ForkJoinPool current;
+        synchronized (this) {
+            current = pool;
+            pool = null;
+        }
+        if (current != null) {
+            current.shutdown();
+        }
+    }
+
+    private ForkJoinPool pool() {
+        ForkJoinPool result = pool;
+        if (result == null) {
+            synchronized (this) {
+                result = pool;
+                if (result == null) {
+                    result = new ForkJoinPool(parallelism);
+                    pool = result;
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Nettoie les headers (enlève les * et trim).
      */
@@ -88,7 +299,7 @@ public class CsvParser implements FileParser {
     /**
      * Vérifie si une ligne est vide.
      */
-    private boolean isRowEmpty(String[] row) {
+    private static boolean isRowEmpty(String[] row) {
         for (String cell : row) {
             if (cell != null && !cell.trim().isEmpty()) {
                 return false;
@@ -96,4 +307,49 @@ public class CsvParser implements FileParser {
         }
         return true;
     }
+
+    /**
+     * Lignes 2+ = Data, lues à la demande.
+     */
+    private static final class CsvRowReader implements RowReader {
+
+        private final CSVReader reader;
+        private final RowHeaders headers;
+
+        CsvRowReader(CSVReader reader, RowHeaders headers) {
+            this.reader = reader;
+            this.headers = headers;
+        }
+
+        @Override
+        public List<String> headers() {
+            return headers.names();
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            try {
+                String[] row;
+                do {
+                    row = reader.readNext();
+                    if (row == null) {
+                        return null;
+                    }
+                } while (isRowEmpty(row)); // Skip lignes vides
+
+                String[] values = new String[headers.size()];
+                for (int j = 0; j < Math.min(row.length, headers.size()); j++) {
+                    values[j] = row[j] != null ? row[j].trim() : null;
+                }
+                return new ParsedRow(headers, values);
+            } catch (CsvValidationException e) {
+                throw new IllegalArgumentException("Erreur lors du parsing CSV: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
 }
@@ -1,8 +1,14 @@
 package com.crm_bancaire.common.importexport.parser;
 
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddressList;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.apache.poi.xssf.usermodel.XSSFDataValidation;
 import org.apache.poi.xssf.usermodel.XSSFDataValidationConstraint;
 import org.apache.poi.xssf.usermodel.XSSFDataValidationHelper;
@@ -11,18 +17,37 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import java.io.InputStream;
-import java.text.SimpleDateFormat;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Parser pour fichiers Excel (.xlsx)
+ *
+ * La lecture passe par l'archive et le XML de la feuille (pas de workbook POI en mémoire),
+ * en pipeline sur plusieurs threads: voir {@link XlsxRowReader}.
+ * La table des chaînes partagées peut être gardée sur disque ({@code import-export.xlsx.*}).
  */
 @Slf4j
 @Component
 public class ExcelParser implements FileParser {
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MM/yyyy");
+    private final boolean sharedStringsOnDisk;
+    private final int sharedStringsCache;
+
+    /**
+     * Parser par défaut: chaînes partagées en mémoire.
+     */
+    public ExcelParser() {
+        this(new ImportExportProperties.Xlsx());
+    }
+
+    public ExcelParser(ImportExportProperties.Xlsx settings) {
+        this.sharedStringsOnDisk = settings.isSharedStringsOnDisk();
+        this.sharedStringsCache = settings.getSharedStringsCache();
+    }
 
     @Override
     public List<Map<String, String>> parse(MultipartFile file) throws Exception {
@@ -35,32 +60,10 @@ public class ExcelParser implements FileParser {
     public List<Map<String, String>> parse(InputStream inputStream) throws Exception {
         List<Map<String, String>> result = new ArrayList<>();
 
-        try (Workbook workbook = new XSSFWorkbook(inputStream)) {
-            Sheet sheet = workbook.getSheetAt(0);
-
-            // Ligne 1 = Headers
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new IllegalArgumentException("Fichier vide - aucun header trouvé");
-            }
-
-            List<String> headers = extractHeaders(headerRow);
-
-            // Lignes 2+ = Data
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null || isRowEmpty(row)) {
-                    continue;
-                }
-
-                Map<String, String> rowData = new HashMap<>();
-                for (int j = 0; j < headers.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    String value = getCellValueAsString(cell);
-                    rowData.put(headers.get(j), value);
-                }
-
-                result.add(rowData);
+        try (RowReader reader = open(inputStream)) {
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                result.add(row);
             }
         }
 
@@ -69,81 +72,160 @@ public class ExcelParser implements FileParser {
     }
 
     @Override
-    public boolean supports(String filename) {
-        return filename != null && filename.toLowerCase().endsWith(".xlsx");
+    public boolean supportsStreaming() {
+        return true;
     }
 
     /**
-     * Extrait les headers de la première ligne.
+     * Lit la première feuille en pipeline (voir {@link XlsxRowReader}), sans workbook POI.
+     * Le stream est chargé en mémoire (archive ZIP); préférer {@link #open(Path)}.
      */
-    private List<String> extractHeaders(Row headerRow) {
-        List<String> headers = new ArrayList<>();
-        for (Cell cell : headerRow) {
-            String header = getCellValueAsString(cell);
-            if (header != null && !header.trim().isEmpty()) {
-                // Enlever les "*" (marqueur champ obligatoire)
-                header = header.replace("*", "").trim();
-                headers.add(header);
-            }
+    @Override
+    public RowReader open(InputStream inputStream) throws Exception {
+        try (InputStream in = inputStream) {
+            return open(OPCPackage.open(in));
         }
-        return headers;
     }
 
     /**
-     * Convertit une cellule en String.
+     * Lit la première feuille en pipeline, en accès direct aux entrées de l'archive.
      */
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return DATE_FORMAT.format(cell.getDateCellValue());
-                } else {
-                    double value = cell.getNumericCellValue();
-                    // Si c'est un entier, pas de décimales
-                    if (value == Math.floor(value)) {
-                        return String.valueOf((long) value);
-                    }
-                    return String.valueOf(value);
-                }
+    @Override
+    public RowReader open(Path file) throws Exception {
+        return open(OPCPackage.open(file.toFile(), PackageAccess.READ));
+    }
 
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
+    @Override
+    public boolean supportsSheets() {
+        return true;
+    }
 
-            case FORMULA:
-                try {
-                    return String.valueOf(cell.getNumericCellValue());
-                } catch (Exception e) {
-                    return cell.getStringCellValue();
-                }
+    /**
+     * Lit toutes les feuilles, plusieurs en parallèle (voir {@link XlsxSheetsReader}).
+     */
+    @Override
+    public RowReader openAllSheets(Path file) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        try {
+            return XlsxSheetsReader.open(pkg, SharedStrings.of(pkg, false, sharedStringsOnDisk, sharedStringsCache),
+                false);
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
 
-            case BLANK:
-                return null;
+    /**
+     * Lit toutes les feuilles d'un flux; le classeur est chargé en mémoire (archive ZIP).
+     */
+    @Override
+    public RowReader openAllSheets(InputStream inputStream) throws Exception {
+        OPCPackage pkg;
+        try (InputStream in = inputStream) {
+            pkg = OPCPackage.open(in);
+        }
+        try {
+            return XlsxSheetsReader.open(pkg, SharedStrings.of(pkg, false, sharedStringsOnDisk, sharedStringsCache),
+                false);
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
 
-            default:
-                return null;
+    private RowReader open(OPCPackage pkg) throws Exception {
+        try {
+            return XlsxRowReader.open(pkg, SharedStrings.of(pkg, false, sharedStringsOnDisk, sharedStringsCache),
+                false);
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
         }
     }
 
     /**
-     * Vérifie si une ligne est vide.
+     * Le pré-scan peut s'arrêter à {@code <dimension>} (borne haute): le nombre exact
+     * de lignes est obtenu en lisant le fichier.
      */
-    private boolean isRowEmpty(Row row) {
-        for (Cell cell : row) {
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                String value = getCellValueAsString(cell);
-                if (value != null && !value.trim().isEmpty()) {
-                    return false;
+    @Override
+    public boolean isScanExact() {
+        return false;
+    }
+
+    /**
+     * Pré-scan de la première feuille, lue en XML brut dans l'archive (ni workbook,
+     * ni cellules, ni table des chaînes partagées).
+     *
+     * Si l'élément {@code <dimension>} annonce une plage sous la limite, le fichier est
+     * accepté aussitôt (borne haute); sinon les lignes contenant au moins une valeur sont
+     * comptées jusqu'à la limite ({@code <dimension>} compte aussi les lignes vides formatées).
+     */
+    @Override
+    public int scanRows(Path file, int limit) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            Iterator<InputStream> sheets = new XSSFReader(pkg).getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            try (InputStream sheet = sheets.next()) {
+                return scanSheet(sheet, limit);
+            }
+        }
+    }
+
+    private int scanSheet(InputStream sheet, int limit) throws Exception {
+        XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(sheet);
+        try {
+            int rows = 0;
+            int rowNumber = 0;
+            boolean rowHasValue = false;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "dimension" -> {
+                            int lastRow = lastRowOf(xml.getAttributeValue(null, "ref"));
+                            if (lastRow > 0 && lastRow - 1 < limit) {
+                                return lastRow - 1; // Ligne 1 = headers
+                            }
+                        }
+                        case "row" -> {
+                            String r = xml.getAttributeValue(null, "r");
+                            rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                            rowHasValue = false;
+                        }
+                        case "v", "t" -> {
+                            if (!rowHasValue && !xml.getElementText().isBlank()) {
+                                rowHasValue = true;
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())
+                        && rowHasValue && rowNumber > 1 && ++rows >= limit) {
+                    return rows;
                 }
             }
+            return rows;
+        } finally {
+            xml.close();
         }
-        return true;
+    }
+
+    /**
+     * Dernière ligne d'une plage "A1:K5001" (0 si la plage est absente ou réduite à une cellule).
+     */
+    private static int lastRowOf(String ref) {
+        if (ref == null || !ref.contains(":")) {
+            return 0;
+        }
+        return new CellReference(ref.substring(ref.indexOf(':') + 1)).getRow() + 1;
+    }
+
+    @Override
+    public boolean supports(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".xlsx");
     }
 
     /**
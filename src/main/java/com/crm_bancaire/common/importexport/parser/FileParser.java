@@ -2,7 +2,10 @@ package com.crm_bancaire.common.importexport.parser;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +32,97 @@ public interface FileParser {
      */
     List<Map<String, String>> parse(InputStream inputStream) throws Exception;
 
+    /**
+     * Indique si {@link #open(InputStream)} lit réellement le fichier au fil de l'eau.
+     * Sinon, le fichier est parsé en entier et les lignes gardées en mémoire.
+     */
+    default boolean supportsStreaming() {
+        return false;
+    }
+
+    /**
+     * Ouvre le fichier en lecture ligne par ligne.
+     *
+     * Par défaut, parse tout le fichier puis parcourt la liste obtenue.
+     *
+     * @param inputStream Stream du fichier (fermé avec le lecteur)
+     * @return Lecteur de lignes, à fermer
+     * @throws Exception Si l'ouverture ou la lecture des headers échoue
+     */
+    default RowReader open(InputStream inputStream) throws Exception {
+        try (InputStream in = inputStream) {
+            return RowReader.of(parse(in));
+        }
+    }
+
+    /**
+     * Ouvre une copie locale du fichier en lecture ligne par ligne.
+     *
+     * Par défaut, lit le fichier comme un stream; un parser peut lire le fichier
+     * directement (accès aléatoire, mapping mémoire).
+     *
+     * @param file Copie locale du fichier
+     * @return Lecteur de lignes, à fermer
+     * @throws Exception Si l'ouverture ou la lecture des headers échoue
+     */
+    default RowReader open(Path file) throws Exception {
+        return open(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+    }
+
+    /**
+     * Indique si le format peut contenir plusieurs feuilles, lues ensemble par {@link #openAllSheets}.
+     */
+    default boolean supportsSheets() {
+        return false;
+    }
+
+    /**
+     * Ouvre toutes les feuilles d'une copie locale du fichier comme un seul fichier
+     * (@Importable(allSheets = true)): chaque ligne indique sa feuille ({@link ParsedRow#sheet()}).
+     *
+     * Par défaut, le format n'a qu'une feuille: équivalent à {@link #open(Path)}.
+     *
+     * @param file Copie locale du fichier
+     * @return Lecteur de lignes, à fermer
+     * @throws Exception Si l'ouverture ou la lecture des headers de la première feuille échoue
+     */
+    default RowReader openAllSheets(Path file) throws Exception {
+        return open(file);
+    }
+
+    /**
+     * Ouvre toutes les feuilles d'un flux (upload compressé, décompressé à la volée),
+     * comme {@link #openAllSheets(Path)}.
+     *
+     * @param inputStream Flux du fichier, fermé avec le lecteur
+     */
+    default RowReader openAllSheets(InputStream inputStream) throws Exception {
+        return open(inputStream);
+    }
+
+    /**
+     * Pré-scan rapide: compte les lignes de données sans construire les valeurs,
+     * pour rejeter un fichier trop gros (maxRows) avant tout parsing.
+     *
+     * Les lignes vides ne sont pas comptées, comme lors du parsing.
+     *
+     * @param file Copie locale du fichier
+     * @param limit Le comptage peut s'arrêter dès que {@code limit} est atteint
+     * @return Nombre de lignes de données (au plus {@code limit}), -1 si le format n'a pas de pré-scan
+     * @throws Exception Si le fichier est illisible
+     */
+    default int scanRows(Path file, int limit) throws Exception {
+        return -1;
+    }
+
+    /**
+     * Indique si {@link #scanRows} compte exactement les lignes que la lecture rendra
+     * (sinon c'est seulement une borne haute, et les lignes sont comptées en lisant le fichier).
+     */
+    default boolean isScanExact() {
+        return true;
+    }
+
     /**
      * Vérifie si ce parser supporte le fichier donné.
      *
@@ -0,0 +1,395 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecteur CSV sur fichier mappé en mémoire (moteur {@code MAPPED}).
+ *
+ * Les champs sont délimités directement sur les octets (guillemets, séparateur, fins de
+ * ligne), sans Reader ni String[] par ligne: chaque ligne garde seulement les bornes de
+ * ses champs, et une valeur n'est décodée (encodage, trim, guillemets doublés) qu'à la
+ * première lecture de sa colonne.
+ *
+ * Fonctionne pour les encodages compatibles ASCII (UTF-8, windows-1252, ISO-8859-x):
+ * les octets du séparateur, des guillemets et des fins de ligne n'y apparaissent
+ * jamais à l'intérieur d'un caractère multi-octets.
+ */
+final class MappedCsvReader implements RowReader {
+
+    /**
+     * Taille maximale d'une région mappée; un enregistrement ne peut pas la dépasser.
+     */
+    private static final long REGION_SIZE = 1L << 30;
+
+    private static final int MAX_COLUMNS = 1024;
+
+    private static final byte QUOTE = '"';
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final byte delimiter;
+    private final Charset charset;
+    private final RowHeaders headers;
+
+    /**
+     * Position à partir de laquelle aucun enregistrement n'est plus lu (morceau d'un
+     * fichier lu en parallèle); l'enregistrement en cours est lu jusqu'au bout.
+     */
+    private final long stop;
+
+    /**
+     * Lecteur principal (propriétaire du channel) ou lecteur d'un morceau.
+     */
+    private final boolean owner;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int position;
+
+    /**
+     * Au moins un champ non blanc dans le dernier enregistrement lu.
+     */
+    private boolean content;
+
+    private MappedCsvReader(FileChannel channel, char delimiter, Charset charset) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.delimiter = (byte) delimiter;
+        this.stop = fileSize;
+        this.owner = true;
+        map(0);
+
+        // BOM UTF-8: retiré, et le fichier est lu en UTF-8 quel que soit l'encodage configuré
+        if (fileSize >= 3 && region.get(0) == (byte) 0xEF && region.get(1) == (byte) 0xBB
+                && region.get(2) == (byte) 0xBF) {
+            position = 3;
+            charset = StandardCharsets.UTF_8;
+        }
+        this.charset = charset;
+        this.headers = readHeaders();
+    }
+
+    /**
+     * Ouvre le fichier et lit la ligne de headers.
+     *
+     * @throws IllegalArgumentException Si le séparateur ou l'encodage n'est pas supporté, ou si le fichier est vide
+     */
+    static MappedCsvReader open(Path file, char delimiter, Charset charset) throws IOException {
+        if (delimiter >= 128 || delimiter == QUOTE || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Séparateur CSV non supporté: '" + delimiter + "'");
+        }
+        if (!isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Encodage non supporté par le moteur CSV MAPPED: " + charset);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedCsvReader(channel, delimiter, charset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lecteur des enregistrements commençant dans [start, stop), sur le même fichier.
+     * {@code start} doit être un début d'enregistrement.
+     */
+    private MappedCsvReader(MappedCsvReader file, long start, long stop) throws IOException {
+        this.channel = file.channel;
+        this.fileSize = file.fileSize;
+        this.delimiter = file.delimiter;
+        this.charset = file.charset;
+        this.headers = file.headers;
+        this.stop = Math.min(stop, fileSize);
+        this.owner = false;
+        if (start < fileSize) {
+            map(start);
+        } else {
+            region = file.region;
+            regionStart = start;
+        }
+    }
+
+    /**
+     * Indique si le moteur MAPPED sait lire cet encodage.
+     */
+    static boolean supports(Charset charset) {
+        return isAsciiCompatible(charset);
+    }
+
+    /**
+     * Lecteur d'un morceau du fichier (voir {@link ParallelCsvReader}); le channel reste
+     * fermé par le lecteur principal.
+     */
+    MappedCsvReader chunk(long start, long stop) throws IOException {
+        return new MappedCsvReader(this, start, stop);
+    }
+
+    /**
+     * Position dans le fichier après le dernier enregistrement lu.
+     */
+    long offset() {
+        return regionStart + position;
+    }
+
+    long size() {
+        return fileSize;
+    }
+
+    FileChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public List<String> headers() {
+        return headers.names();
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        return next(false);
+    }
+
+    /**
+     * @param decode Décoder toutes les valeurs tout de suite (lecture dans un autre thread
+     *               que celui du mapper), sinon à la première lecture de chaque colonne
+     */
+    ParsedRow next(boolean decode) throws IOException {
+        int[] bounds = new int[2 * headers.size()];
+        while (readRecord(bounds)) {
+            if (content) {
+                LazyValues values = new LazyValues(region, bounds, charset);
+                if (!decode) {
+                    return new ParsedRow(headers, values);
+                }
+                String[] decoded = new String[headers.size()];
+                for (int i = 0; i < decoded.length; i++) {
+                    decoded[i] = values.decode(i);
+                }
+                return new ParsedRow(headers, decoded);
+            }
+            // Ligne vide (séparateurs et espaces seulement): ignorée
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (owner) {
+            channel.close();
+        }
+    }
+
+    private RowHeaders readHeaders() throws IOException {
+        // Nombre de colonnes inconnu: les colonnes au-delà de MAX_COLUMNS sont ignorées
+        int[] bounds = new int[2 * MAX_COLUMNS];
+        if (!readRecord(bounds)) {
+            throw new IllegalArgumentException("Fichier CSV vide");
+        }
+        LazyValues values = new LazyValues(region, bounds, charset);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < bounds.length / 2 && bounds[2 * i] >= 0; i++) {
+            String header = values.decode(i);
+            if (header != null && !header.isEmpty()) {
+                // Enlever les "*" (marqueur champ obligatoire)
+                String clean = header.replace("*", "").trim();
+                names.add(clean);
+            }
+        }
+        return new RowHeaders(names);
+    }
+
+    /**
+     * Lit l'enregistrement suivant; un enregistrement coupé par la fin de la région
+     * est relu depuis son début dans une nouvelle région.
+     *
+     * @return false en fin de fichier
+     */
+    private boolean readRecord(int[] bounds) throws IOException {
+        while (true) {
+            if (regionStart + position >= stop) {
+                return false;
+            }
+            if (position >= region.limit()) {
+                map(regionStart + position);
+            }
+            int end = tokenize(position, bounds);
+            if (end >= 0) {
+                position = end;
+                return true;
+            }
+            if (position == 0) {
+                throw new IOException("Enregistrement CSV plus grand que " + REGION_SIZE + " octets");
+            }
+            map(regionStart + position);
+        }
+    }
+
+    /**
+     * Délimite les champs d'un enregistrement.
+     *
+     * Bornes de la colonne i: {@code bounds[2i]} (début) et {@code bounds[2i + 1]} (fin,
+     * complément binaire si le champ contient des guillemets doublés); -1 = colonne absente.
+     *
+     * @return Position après l'enregistrement, -1 si la région se termine avant lui
+     */
+    private int tokenize(int start, int[] bounds) {
+        MappedByteBuffer buffer = region;
+        int limit = buffer.limit();
+        boolean lastRegion = regionStart + limit >= fileSize;
+        int columns = bounds.length / 2;
+        Arrays.fill(bounds, -1);
+        content = false;
+
+        int p = start;
+        int column = 0;
+        while (true) {
+            int fieldStart;
+            int fieldEnd;
+            boolean escaped = false;
+
+            if (p < limit && buffer.get(p) == QUOTE) {
+                fieldStart = ++p;
+                while (true) {
+                    if (p >= limit) {
+                        if (!lastRegion) {
+                            return -1;
+                        }
+                        fieldEnd = p; // Guillemet non fermé en fin de fichier
+                        break;
+                    }
+                    byte b = buffer.get(p);
+                    if (b == QUOTE) {
+                        if (p + 1 < limit && buffer.get(p + 1) == QUOTE) {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        if (p + 1 >= limit && !lastRegion) {
+                            return -1;
+                        }
+                        fieldEnd = p++;
+                        break;
+                    }
+                    if (b < 0 || b > ' ') {
+                        content = true;
+                    }
+                    p++;
+                }
+                // Caractères après le guillemet fermant: ignorés jusqu'au séparateur
+                while (p < limit) {
+                    byte b = buffer.get(p);
+                    if (b == delimiter || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    p++;
+                }
+            } else {
+                fieldStart = p;
+                while (p < limit) {
+                    byte b = buffer.get(p);
+                    if (b == delimiter || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    if (b < 0 || b > ' ') {
+                        content = true;
+                    }
+                    p++;
+                }
+                fieldEnd = p;
+            }
+
+            if (p >= limit && !lastRegion) {
+                return -1;
+            }
+            if (column < columns) {
+                bounds[2 * column] = fieldStart;
+                bounds[2 * column + 1] = escaped ? ~fieldEnd : fieldEnd;
+            }
+            column++;
+
+            if (p >= limit) {
+                return p; // Fin de fichier
+            }
+            byte separator = buffer.get(p++);
+            if (separator == delimiter) {
+                continue;
+            }
+            if (separator == '\r') {
+                if (p < limit) {
+                    if (buffer.get(p) == '\n') {
+                        p++;
+                    }
+                } else if (!lastRegion) {
+                    return -1;
+                }
+            }
+            return p;
+        }
+    }
+
+    private void map(long offset) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(REGION_SIZE, fileSize - offset));
+        regionStart = offset;
+        position = 0;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] probe = "\",;\t\r\n azAZ09".getBytes(charset);
+        return probe.length == 13 && new String(probe, StandardCharsets.US_ASCII).equals("\",;\t\r\n azAZ09");
+    }
+
+    /**
+     * Valeurs d'une ligne, décodées depuis la région mappée à la première lecture.
+     * La région reste mappée tant qu'une ligne la référence.
+     */
+    private record LazyValues(MappedByteBuffer region, int[] bounds, Charset charset)
+            implements ParsedRow.ValueSource {
+
+        @Override
+        public String decode(int index) {
+            int start = bounds[2 * index];
+            if (start < 0) {
+                return null; // Ligne plus courte que les headers
+            }
+            int end = bounds[2 * index + 1];
+            boolean escaped = end < 0;
+            if (escaped) {
+                end = ~end;
+            }
+
+            // trim() sur les octets: espaces et caractères de contrôle ASCII
+            while (start < end && (region.get(start) & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (region.get(end - 1) & 0xFF) <= ' ') {
+                end--;
+            }
+
+            byte[] bytes = new byte[end - start];
+            region.get(start, bytes);
+            int length = bytes.length;
+            if (escaped) {
+                length = 0;
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[length++] = bytes[i];
+                    if (bytes[i] == QUOTE && i + 1 < bytes.length && bytes[i + 1] == QUOTE) {
+                        i++;
+                    }
+                }
+            }
+            return new String(bytes, 0, length, charset);
+        }
+    }
+}
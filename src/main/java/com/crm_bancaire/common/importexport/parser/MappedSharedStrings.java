@@ -0,0 +1,158 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Table des chaînes partagées gardée sur disque, pour les classeurs à millions de chaînes
+ * (commentaires libres, identifiants).
+ *
+ * À l'ouverture, les entrées sont écrites en UTF-8 dans un fichier temporaire de données,
+ * et leurs positions dans un fichier d'index (un long par entrée). Les deux fichiers sont
+ * mappés en mémoire: une chaîne n'est décodée qu'à sa lecture, et seules les dernières
+ * lues sont gardées (LRU). La mémoire ne dépend donc pas du nombre de chaînes.
+ *
+ * Les lectures sont synchronisées: la table est partagée par les feuilles lues en
+ * parallèle ({@link XlsxSheetsReader}).
+ */
+@Slf4j
+final class MappedSharedStrings implements SharedStrings {
+
+    /**
+     * Taille maximale d'une région mappée du fichier de données.
+     */
+    private static final long REGION_SIZE = 1L << 30;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final MappedByteBuffer[] data;
+    private final MappedByteBuffer index;
+    private final int size;
+    private final Map<Integer, String> cache;
+
+    private MappedSharedStrings(Path dataFile, Path indexFile, int cacheSize) throws IOException {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Trop de chaînes partagées: " + (length / Long.BYTES - 1));
+            }
+            this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            this.size = (int) (length / Long.BYTES) - 1;
+        }
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            long length = channel.size();
+            this.data = new MappedByteBuffer[(int) ((length + REGION_SIZE - 1) / REGION_SIZE)];
+            for (int i = 0; i < data.length; i++) {
+                long offset = i * REGION_SIZE;
+                data[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(REGION_SIZE, length - offset));
+            }
+        }
+
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Copie la table du classeur dans des fichiers temporaires.
+     *
+     * @param entries Entrées de la table ({@code xl/sharedStrings.xml} ou {@code .bin})
+     * @param directory Répertoire des fichiers temporaires (null = répertoire temporaire du système)
+     * @param cacheSize Nombre de chaînes gardées en mémoire
+     */
+    static MappedSharedStrings copy(Entries entries, Path directory, int cacheSize) throws Exception {
+        Path dataFile = directory != null
+            ? Files.createTempFile(directory, "shared-strings-", ".dat")
+            : Files.createTempFile("shared-strings-", ".dat");
+        Path indexFile = dataFile.resolveSibling(dataFile.getFileName().toString().replace(".dat", ".idx"));
+        try {
+            long[] position = {0};
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dataFile), 64 * 1024);
+                 DataOutputStream offsets = new DataOutputStream(
+                     new BufferedOutputStream(Files.newOutputStream(indexFile), 64 * 1024))) {
+                offsets.writeLong(0);
+                entries.read(entry -> {
+                    try {
+                        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                        out.write(bytes);
+                        position[0] += bytes.length;
+                        offsets.writeLong(position[0]);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Écriture des chaînes partagées impossible: " + e.getMessage(), e);
+                    }
+                });
+            }
+            MappedSharedStrings strings = new MappedSharedStrings(dataFile, indexFile, Math.max(1, cacheSize));
+            log.debug("Shared strings table copied to disk: {} entries, {} bytes", strings.size, position[0]);
+            return strings;
+        } catch (Exception e) {
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(indexFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Chaîne partagée inexistante: " + index);
+        }
+        String value = cache.get(index);
+        if (value == null) {
+            value = read(index);
+            cache.put(index, value);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Supprime les fichiers temporaires (les régions mappées restent lisibles jusqu'à leur libération).
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(indexFile);
+    }
+
+    private String read(int entry) {
+        long start = index.getLong(entry * Long.BYTES);
+        long end = index.getLong((entry + 1) * Long.BYTES);
+        byte[] bytes = new byte[(int) (end - start)];
+
+        // Une entrée peut être à cheval sur deux régions
+        int copied = 0;
+        while (copied < bytes.length) {
+            long position = start + copied;
+            MappedByteBuffer region = data[(int) (position / REGION_SIZE)];
+            int offset = (int) (position % REGION_SIZE);
+            int length = Math.min(bytes.length - copied, region.limit() - offset);
+            region.get(offset, bytes, copied, length);
+            copied += length;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
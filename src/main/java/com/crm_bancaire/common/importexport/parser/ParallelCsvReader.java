@@ -0,0 +1,236 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lecture d'un gros CSV en parallèle, par morceaux.
+ *
+ * Le fichier est découpé en morceaux d'environ {@code chunkSize} octets, chacun commençant
+ * après une fin de ligne hors guillemets (parité des guillemets comptée en parallèle).
+ * Les morceaux sont lus par le tokenizer {@link MappedCsvReader} sur un {@link ForkJoinPool},
+ * puis rendus dans l'ordre du fichier: le numéro de ligne compté par l'appelant reste
+ * global, et les lignes vides sont ignorées comme en lecture séquentielle.
+ *
+ * Le découpage est spéculatif: un morceau doit commencer exactement là où le précédent
+ * s'est arrêté. Sinon (guillemet isolé dans un champ non quoté, par exemple), il est relu
+ * depuis la bonne position: le résultat est toujours celui d'une lecture séquentielle.
+ *
+ * Au plus {@code parallélisme + 1} morceaux sont lus d'avance (mémoire bornée).
+ */
+@Slf4j
+final class ParallelCsvReader implements RowReader {
+
+    private static final byte QUOTE = '"';
+
+    private final MappedCsvReader file;
+    private final ForkJoinPool pool;
+    private final long[] starts;
+    private final Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+    private int submitted;
+
+    /**
+     * Fin du dernier morceau rendu (début réel du morceau suivant).
+     */
+    private long expectedStart;
+    private Iterator<Map<String, String>> current = Collections.emptyIterator();
+
+    private ParallelCsvReader(MappedCsvReader file, ForkJoinPool pool, long[] starts) {
+        this.file = file;
+        this.pool = pool;
+        this.starts = starts;
+        this.expectedStart = starts[0];
+        int window = Math.min(starts.length - 1, pool.getParallelism() + 1);
+        for (int i = 0; i < window; i++) {
+            submit();
+        }
+    }
+
+    /**
+     * Ouvre le fichier, lit les headers et lance la lecture des premiers morceaux.
+     *
+     * @throws IllegalArgumentException Si le séparateur ou l'encodage n'est pas supporté, ou si le fichier est vide
+     */
+    static ParallelCsvReader open(Path path, char delimiter, Charset charset, ForkJoinPool pool,
+                                  long chunkSize) throws IOException {
+        MappedCsvReader file = MappedCsvReader.open(path, delimiter, charset);
+        try {
+            long[] starts = split(file, pool, chunkSize);
+            log.debug("Reading CSV {} in {} chunks on {} threads", path.getFileName(), starts.length - 1,
+                pool.getParallelism());
+            return new ParallelCsvReader(file, pool, starts);
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> headers() {
+        return file.headers();
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        while (!current.hasNext()) {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            Chunk chunk = join(pending.poll());
+            submit();
+            if (chunk.start() != expectedStart) {
+                // Découpage faux: le morceau précédent a débordé sur celui-ci
+                chunk = read(file, expectedStart, chunk.stop());
+            }
+            expectedStart = chunk.end();
+            current = chunk.rows().iterator();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ForkJoinTask<Chunk> task : pending) {
+            task.cancel(false);
+        }
+        pending.clear();
+        file.close();
+    }
+
+    private void submit() {
+        if (submitted < starts.length - 1) {
+            int index = submitted++;
+            pending.add(pool.submit(() -> read(file, starts[index], starts[index + 1])));
+        }
+    }
+
+    private static Chunk join(ForkJoinTask<Chunk> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lecture CSV interrompue", e);
+        } catch (CancellationException e) {
+            throw new IOException("Lecture CSV annulée", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Lit les enregistrements commençant dans [start, stop), valeurs décodées.
+     */
+    private static Chunk read(MappedCsvReader file, long start, long stop) throws IOException {
+        MappedCsvReader reader = file.chunk(start, stop);
+        List<Map<String, String>> rows = new ArrayList<>();
+        ParsedRow row;
+        while ((row = reader.next(true)) != null) {
+            rows.add(row);
+        }
+        return new Chunk(start, stop, reader.offset(), rows);
+    }
+
+    /**
+     * Début présumé de chaque morceau, suivi de la taille du fichier.
+     */
+    private static long[] split(MappedCsvReader file, ForkJoinPool pool, long chunkSize) {
+        long dataStart = file.offset();
+        long size = file.size();
+        int count = (int) Math.max(1, (size - dataStart + chunkSize - 1) / chunkSize);
+
+        // 1. Nombre de guillemets de chaque segment (en parallèle)
+        List<ForkJoinTask<Long>> counts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long from = dataStart + i * chunkSize;
+            long to = Math.min(size, from + chunkSize);
+            counts.add(pool.submit(() -> countQuotes(file.channel(), from, to)));
+        }
+
+        // 2. Premier début d'enregistrement de chaque segment, selon la parité des guillemets avant lui
+        List<ForkJoinTask<Long>> boundaries = new ArrayList<>(count);
+        boolean inQuotes = (counts.get(0).join() & 1) == 1;
+        for (int i = 1; i < count; i++) {
+            long from = dataStart + i * chunkSize;
+            boolean quoted = inQuotes;
+            boundaries.add(pool.submit(() -> nextRecord(file.channel(), from, size, quoted)));
+            inQuotes ^= (counts.get(i).join() & 1) == 1;
+        }
+
+        // 3. Débuts croissants (un enregistrement peut couvrir plusieurs segments)
+        long[] starts = new long[count + 1];
+        starts[0] = dataStart;
+        for (int i = 1; i < count; i++) {
+            starts[i] = Math.max(boundaries.get(i - 1).join(), starts[i - 1]);
+        }
+        starts[count] = size;
+        return starts;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) {
+        MappedByteBuffer buffer = map(channel, from, to);
+        long quotes = 0;
+        for (int i = 0, limit = buffer.limit(); i < limit; i++) {
+            if (buffer.get(i) == QUOTE) {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Position après la première fin de ligne hors guillemets à partir de {@code from}.
+     */
+    private static long nextRecord(FileChannel channel, long from, long size, boolean inQuotes) {
+        MappedByteBuffer buffer = map(channel, from, size);
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                inQuotes = !inQuotes;
+            } else if ((b == '\n' || b == '\r') && !inQuotes) {
+                if (b == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+                    i++;
+                }
+                return from + i + 1;
+            }
+        }
+        return from + limit;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(to - from, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lignes d'un morceau, et position réelle de sa fin.
+     */
+    private record Chunk(long start, long stop, long end, List<Map<String, String>> rows) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Ligne parsée: un tableau de valeurs indexé par les {@link RowHeaders} du fichier.
+ *
+ * Se comporte comme une {@code Map<String, String>} pour les mappers existants
+ * ({@code row.get("email")}), mais évite une HashMap par ligne et permet un accès
+ * direct par position via {@link #get(int)}.
+ *
+ * Les valeurs peuvent aussi être décodées à la demande ({@link ValueSource}):
+ * une colonne jamais lue ne crée alors aucune String.
+ */
+public final class ParsedRow extends AbstractMap<String, String> {
+
+    /**
+     * Décodage d'une valeur à sa première lecture.
+     */
+    interface ValueSource {
+        String decode(int index);
+    }
+
+    private final RowHeaders headers;
+    private final String[] values;
+    private ValueSource source;
+    private boolean[] decoded;
+    private String sheet;
+    private int sheetRow;
+
+    public ParsedRow(RowHeaders headers, String[] values) {
+        if (values.length != headers.size()) {
+            throw new IllegalArgumentException("Nombre de valeurs (" + values.length
+                + ") différent du nombre de colonnes (" + headers.size() + ")");
+        }
+        this.headers = headers;
+        this.values = values;
+    }
+
+    /**
+     * Ligne dont les valeurs sont décodées à la demande.
+     */
+    ParsedRow(RowHeaders headers, ValueSource source) {
+        this(headers, new String[headers.size()]);
+        this.source = source;
+        this.decoded = new boolean[headers.size()];
+    }
+
+    /**
+     * Origine de la ligne dans un import multi-feuilles.
+     */
+    void locate(String sheet, int sheetRow) {
+        this.sheet = sheet;
+        this.sheetRow = sheetRow;
+    }
+
+    /**
+     * Feuille d'origine (import de toutes les feuilles d'un classeur), null sinon.
+     */
+    public String sheet() {
+        return sheet;
+    }
+
+    /**
+     * Numéro de la ligne dans sa feuille (0 si la feuille n'est pas connue).
+     */
+    public int sheetRow() {
+        return sheetRow;
+    }
+
+    /**
+     * Headers partagés du fichier.
+     */
+    public RowHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * Valeur à une position donnée.
+     *
+     * @param index Position de la colonne (-1 = colonne absente)
+     * @return La valeur ou null
+     */
+    public String get(int index) {
+        if (index < 0 || index >= values.length) {
+            return null;
+        }
+        if (source != null && !decoded[index]) {
+            values[index] = source.decode(index);
+            decoded[index] = true;
+        }
+        return values[index];
+    }
+
+    @Override
+    public String get(Object key) {
+        return key instanceof String name ? get(headers.indexOf(name)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String name && headers.indexOf(name) >= 0;
+    }
+
+    @Override
+    public String put(String key, String value) {
+        int index = headers.indexOf(key);
+        if (index < 0) {
+            throw new UnsupportedOperationException("Colonne inconnue: " + key);
+        }
+        String previous = get(index);
+        values[index] = value;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return headers.positions().size();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                Iterator<Map.Entry<String, Integer>> it = headers.positions().entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, Integer> position = it.next();
+                        return new SimpleEntry<>(position.getKey(), get(position.getValue().intValue())) {
+                            @Override
+                            public String setValue(String value) {
+                                super.setValue(value);
+                                return ParsedRow.this.put(position.getKey(), value);
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ParsedRow.this.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headers nettoyés d'un fichier, partagés par toutes les lignes parsées.
+ *
+ * Une seule instance est créée par fichier: les mappers peuvent donc résoudre
+ * la position de leurs colonnes une fois, puis accéder aux valeurs par index.
+ */
+public final class RowHeaders {
+
+    private final List<String> names;
+    private final Map<String, Integer> positions;
+
+    public RowHeaders(List<String> names) {
+        this.names = List.copyOf(names);
+        this.positions = new HashMap<>();
+        for (int i = 0; i < this.names.size(); i++) {
+            // En cas de doublon, la dernière colonne l'emporte (comme Map.put)
+            positions.put(this.names.get(i), i);
+        }
+    }
+
+    /**
+     * Noms des colonnes, dans l'ordre du fichier.
+     */
+    public List<String> names() {
+        return names;
+    }
+
+    /**
+     * Nombre de colonnes.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Position d'une colonne.
+     *
+     * @param name Nom de la colonne
+     * @return Index de la colonne ou -1 si absente
+     */
+    public int indexOf(String name) {
+        Integer index = positions.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Index des colonnes (nom → position), en lecture seule.
+     */
+    Map<String, Integer> positions() {
+        return Collections.unmodifiableMap(positions);
+    }
+}
@@ -0,0 +1,54 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture ligne par ligne d'un fichier parsé (mode streaming).
+ *
+ * Les lignes vides sont ignorées, comme avec {@link FileParser#parse(java.io.InputStream)}:
+ * la n-ième ligne retournée correspond donc à la ligne n + 1 de l'import.
+ */
+public interface RowReader extends Closeable {
+
+    /**
+     * Colonnes du fichier (headers nettoyés), dans l'ordre du fichier.
+     */
+    List<String> headers();
+
+    /**
+     * Ligne suivante.
+     *
+     * @return La ligne (key = nom colonne, value = valeur), ou null en fin de fichier
+     * @throws IOException Si la lecture échoue
+     */
+    Map<String, String> next() throws IOException;
+
+    /**
+     * Lecteur sur des lignes déjà parsées en mémoire.
+     */
+    static RowReader of(List<? extends Map<String, String>> rows) {
+        List<String> headers = rows.isEmpty() ? List.of() : new ArrayList<>(rows.get(0).keySet());
+        Iterator<? extends Map<String, String>> iterator = rows.iterator();
+        return new RowReader() {
+            @Override
+            public List<String> headers() {
+                return headers;
+            }
+
+            @Override
+            public Map<String, String> next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+                // Rien à libérer
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table des chaînes partagées d'un classeur .xlsx ({@code xl/sharedStrings.xml}) ou .xlsb
+ * ({@code xl/sharedStrings.bin}), résolue par index pour les cellules {@code t="s"}.
+ */
+interface SharedStrings extends Closeable {
+
+    /**
+     * Table vide (classeur sans chaînes partagées).
+     */
+    SharedStrings EMPTY = new InMemory(List.of());
+
+    /**
+     * Type de contenu de {@code xl/sharedStrings.bin} (non public dans {@code XSSFBRelation}).
+     */
+    String BINARY_CONTENT_TYPE = "application/vnd.ms-excel.sharedStrings";
+
+    /**
+     * Texte de l'entrée {@code index}, comme {@code XSSFRichTextString.getString()}:
+     * runs concaténés, sans texte phonétique, échappements {@code _xHHHH_} décodés.
+     */
+    String get(int index);
+
+    /**
+     * Nombre d'entrées.
+     */
+    int size();
+
+    @Override
+    default void close() throws IOException {
+        // Rien à libérer
+    }
+
+    /**
+     * Charge la table d'un classeur, en mémoire ou copiée sur disque ({@link MappedSharedStrings}).
+     *
+     * @param binary Classeur .xlsb
+     * @param onDisk Table gardée sur disque
+     * @param cacheSize Chaînes gardées en mémoire, table sur disque
+     */
+    static SharedStrings of(OPCPackage pkg, boolean binary, boolean onDisk, int cacheSize) throws Exception {
+        String contentType = binary ? BINARY_CONTENT_TYPE : XSSFRelation.SHARED_STRINGS.getContentType();
+        List<PackagePart> parts = pkg.getPartsByContentType(contentType);
+        if (parts.isEmpty()) {
+            return EMPTY;
+        }
+        try (InputStream in = parts.get(0).getInputStream()) {
+            Entries entries = binary
+                ? consumer -> XlsbRecords.readSharedStrings(in, consumer)
+                : consumer -> read(in, consumer);
+            return onDisk ? MappedSharedStrings.copy(entries, null, cacheSize) : inMemory(entries);
+        }
+    }
+
+    /**
+     * Charge toute la table en mémoire.
+     */
+    static SharedStrings inMemory(Entries entries) throws Exception {
+        List<String> strings = new ArrayList<>();
+        entries.read(strings::add);
+        return new InMemory(strings);
+    }
+
+    /**
+     * Lit les entrées {@code <si>} dans l'ordre et les passe à {@code consumer}.
+     */
+    static void read(InputStream sharedStrings, EntryConsumer consumer) throws XMLStreamException {
+        XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(sharedStrings);
+        try {
+            StringBuilder text = new StringBuilder();
+            int phonetic = 0;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "si" -> text.setLength(0);
+                        case "rPh" -> phonetic++;
+                        case "t" -> {
+                            String value = xml.getElementText();
+                            if (phonetic == 0) {
+                                text.append(value);
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "si" -> consumer.accept(decode(text.toString()));
+                        case "rPh" -> phonetic--;
+                        default -> {
+                        }
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * Décode les échappements {@code _xHHHH_} (retours chariot, caractères de contrôle).
+     */
+    static String decode(String text) {
+        return text.contains("_x") ? new XSSFRichTextString(text).getString() : text;
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(String entry);
+    }
+
+    /**
+     * Entrées de la table, lues dans l'ordre.
+     */
+    @FunctionalInterface
+    interface Entries {
+        void read(EntryConsumer consumer) throws Exception;
+    }
+
+    /**
+     * Table gardée en mémoire.
+     */
+    final class InMemory implements SharedStrings {
+
+        private final List<String> strings;
+
+        private InMemory(List<String> strings) {
+            this.strings = strings;
+        }
+
+        @Override
+        public String get(int index) {
+            return strings.get(index);
+        }
+
+        @Override
+        public int size() {
+            return strings.size();
+        }
+    }
+}
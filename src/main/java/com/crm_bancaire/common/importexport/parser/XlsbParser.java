@@ -0,0 +1,168 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFBReader;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser pour fichiers Excel binaires (.xlsb)
+ *
+ * Même lecture en pipeline que {@link ExcelParser} ({@link XlsxRowReader}), les feuilles
+ * étant lues enregistrement par enregistrement ({@link XlsbRecords}) au lieu du XML:
+ * mêmes valeurs, mêmes headers, import multi-feuilles possible.
+ * La table des chaînes partagées suit les réglages {@code import-export.xlsx.*}.
+ */
+@Slf4j
+@Component
+public class XlsbParser implements FileParser {
+
+    private final boolean sharedStringsOnDisk;
+    private final int sharedStringsCache;
+
+    /**
+     * Parser par défaut: chaînes partagées en mémoire.
+     */
+    public XlsbParser() {
+        this(new ImportExportProperties.Xlsx());
+    }
+
+    public XlsbParser(ImportExportProperties.Xlsx settings) {
+        this.sharedStringsOnDisk = settings.isSharedStringsOnDisk();
+        this.sharedStringsCache = settings.getSharedStringsCache();
+    }
+
+    @Override
+    public List<Map<String, String>> parse(MultipartFile file) throws Exception {
+        try (InputStream is = file.getInputStream()) {
+            return parse(is);
+        }
+    }
+
+    @Override
+    public List<Map<String, String>> parse(InputStream inputStream) throws Exception {
+        List<Map<String, String>> result = new ArrayList<>();
+
+        try (RowReader reader = open(inputStream)) {
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                result.add(row);
+            }
+        }
+
+        log.info("Parsed {} rows from XLSB file", result.size());
+        return result;
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return true;
+    }
+
+    /**
+     * Lit la première feuille en pipeline. Le stream est chargé en mémoire (archive ZIP);
+     * préférer {@link #open(Path)}.
+     */
+    @Override
+    public RowReader open(InputStream inputStream) throws Exception {
+        try (InputStream in = inputStream) {
+            return open(OPCPackage.open(in));
+        }
+    }
+
+    /**
+     * Lit la première feuille en pipeline, en accès direct aux entrées de l'archive.
+     */
+    @Override
+    public RowReader open(Path file) throws Exception {
+        return open(OPCPackage.open(file.toFile(), PackageAccess.READ));
+    }
+
+    @Override
+    public boolean supportsSheets() {
+        return true;
+    }
+
+    /**
+     * Lit toutes les feuilles, plusieurs en parallèle (voir {@link XlsxSheetsReader}).
+     */
+    @Override
+    public RowReader openAllSheets(Path file) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        try {
+            return XlsxSheetsReader.open(pkg, SharedStrings.of(pkg, true, sharedStringsOnDisk, sharedStringsCache),
+                true);
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * Lit toutes les feuilles d'un flux; le classeur est chargé en mémoire (archive ZIP).
+     */
+    @Override
+    public RowReader openAllSheets(InputStream inputStream) throws Exception {
+        OPCPackage pkg;
+        try (InputStream in = inputStream) {
+            pkg = OPCPackage.open(in);
+        }
+        try {
+            return XlsxSheetsReader.open(pkg, SharedStrings.of(pkg, true, sharedStringsOnDisk, sharedStringsCache),
+                true);
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    private RowReader open(OPCPackage pkg) throws Exception {
+        try {
+            return XlsxRowReader.open(pkg, SharedStrings.of(pkg, true, sharedStringsOnDisk, sharedStringsCache),
+                true);
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * Le pré-scan peut s'arrêter à la dimension de la feuille (borne haute).
+     */
+    @Override
+    public boolean isScanExact() {
+        return false;
+    }
+
+    /**
+     * Pré-scan de la première feuille, mêmes règles que {@link ExcelParser#scanRows}:
+     * enregistrements lus sans conversion ni table des chaînes partagées.
+     */
+    @Override
+    public int scanRows(Path file, int limit) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            Iterator<InputStream> sheets = new XSSFBReader(pkg).getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            try (InputStream sheet = sheets.next()) {
+                return XlsbRecords.scanSheet(sheet, limit);
+            }
+        }
+    }
+
+    @Override
+    public boolean supports(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".xlsb");
+    }
+}
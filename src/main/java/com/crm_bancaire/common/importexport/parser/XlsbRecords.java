@@ -0,0 +1,300 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import com.crm_bancaire.common.importexport.parser.XlsxRowReader.RawRow;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.LittleEndian;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Lecture des parties binaires d'un classeur .xlsb: feuilles, styles, propriétés du
+ * classeur et table des chaînes partagées.
+ *
+ * Chaque partie est une suite d'enregistrements (type, longueur, données); seuls ceux
+ * utiles à l'import sont décodés. Les cellules sont rendues en lignes brutes
+ * ({@link RawRow}) comme celles du XML d'un .xlsx: la conversion des valeurs (dates,
+ * nombres, booléens) et le nettoyage des headers sont communs aux deux formats.
+ *
+ * Le lecteur événementiel de POI ({@code XSSFBSheetHandler}) n'est pas utilisé: il rend
+ * des valeurs déjà formatées ({@code DataFormatter}), différentes de celles d'un .xlsx.
+ */
+final class XlsbRecords {
+
+    // Types d'enregistrements (spécification MS-XLSB)
+    private static final int ROW_HEADER = 0;
+    private static final int CELL_BLANK = 1;
+    private static final int CELL_RK = 2;
+    private static final int CELL_ERROR = 3;
+    private static final int CELL_BOOL = 4;
+    private static final int CELL_REAL = 5;
+    private static final int CELL_STRING = 6;
+    private static final int CELL_SHARED_STRING = 7;
+    private static final int FORMULA_STRING = 8;
+    private static final int FORMULA_NUMBER = 9;
+    private static final int FORMULA_BOOL = 10;
+    private static final int FORMULA_ERROR = 11;
+    private static final int SHARED_STRING_ITEM = 19;
+    private static final int FORMAT = 44;
+    private static final int CELL_FORMAT = 47;
+    private static final int CELL_RICH_STRING = 62;
+    private static final int END_SHEET_DATA = 146;
+    private static final int SHEET_DIMENSION = 148;
+    private static final int WORKBOOK_PROPERTIES = 153;
+    private static final int BEGIN_CELL_FORMATS = 617;
+    private static final int END_CELL_FORMATS = 618;
+
+    /**
+     * Taille maximale d'un enregistrement (une cellule texte fait au plus 64 Ko).
+     */
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    private XlsbRecords() {
+    }
+
+    /**
+     * Lit les cellules d'une feuille ({@code xl/worksheets/sheetN.bin}) et passe chaque
+     * ligne à {@code consumer}.
+     */
+    static void readSheet(InputStream sheet, XlsxRowReader.RowConsumer consumer)
+            throws IOException, InterruptedException {
+        Records records = new Records(sheet);
+        RawRow row = null;
+        while (records.next()) {
+            int type = records.type;
+            if (type == ROW_HEADER) {
+                if (row != null) {
+                    consumer.accept(row);
+                }
+                row = new RawRow(LittleEndian.getInt(records.data, 0) + 1);
+            } else if (type == END_SHEET_DATA) {
+                break;
+            } else if (row != null && isCell(type)) {
+                addCell(row, type, records.data);
+            }
+        }
+        if (row != null) {
+            consumer.accept(row);
+        }
+    }
+
+    /**
+     * Pré-scan d'une feuille, mêmes règles que pour un .xlsx: la dimension ({@code BrtWsDim})
+     * si elle est sous la limite (borne haute), sinon les lignes ayant au moins une valeur,
+     * comptées jusqu'à la limite.
+     */
+    static int scanSheet(InputStream sheet, int limit) throws IOException {
+        Records records = new Records(sheet);
+        int rows = 0;
+        int rowNumber = 0;
+        boolean rowHasValue = false;
+        while (records.next()) {
+            int type = records.type;
+            if (type == SHEET_DIMENSION) {
+                int lastRow = LittleEndian.getInt(records.data, 4) + 1;
+                if (lastRow - 1 < limit) {
+                    return lastRow - 1; // Ligne 1 = headers
+                }
+            } else if (type == ROW_HEADER || type == END_SHEET_DATA) {
+                if (rowHasValue && rowNumber > 1 && ++rows >= limit) {
+                    return rows;
+                }
+                if (type == END_SHEET_DATA) {
+                    return rows;
+                }
+                rowNumber = LittleEndian.getInt(records.data, 0) + 1;
+                rowHasValue = false;
+            } else if (!rowHasValue && isCell(type)) {
+                rowHasValue = hasValue(type, records.data);
+            }
+        }
+        return rowHasValue && rowNumber > 1 ? rows + 1 : rows;
+    }
+
+    /**
+     * Styles de cellule à format de date ({@code xl/styles.bin}).
+     *
+     * @param styles Partie des styles (null = classeur sans styles)
+     */
+    static IntPredicate dateStyles(InputStream styles) throws IOException {
+        if (styles == null) {
+            return style -> false;
+        }
+        Map<Integer, String> formats = new HashMap<>();
+        List<Integer> cellFormats = new ArrayList<>();
+        boolean inCellFormats = false;
+        Records records = new Records(styles);
+        while (records.next()) {
+            switch (records.type) {
+                case FORMAT -> formats.put(LittleEndian.getUShort(records.data, 0), wideString(records.data, 2));
+                case BEGIN_CELL_FORMATS -> inCellFormats = true;
+                case END_CELL_FORMATS -> inCellFormats = false;
+                case CELL_FORMAT -> {
+                    if (inCellFormats) {
+                        cellFormats.add(LittleEndian.getUShort(records.data, 2));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return style -> {
+            if (style >= cellFormats.size()) {
+                return false;
+            }
+            int format = cellFormats.get(style);
+            String pattern = formats.getOrDefault(format, BuiltinFormats.getBuiltinFormat(format));
+            return DateUtil.isADateFormat(format, pattern);
+        };
+    }
+
+    /**
+     * Calendrier 1904 ({@code BrtWbProp} de {@code xl/workbook.bin}).
+     */
+    static boolean isDate1904(InputStream workbook) throws IOException {
+        Records records = new Records(workbook);
+        while (records.next()) {
+            if (records.type == WORKBOOK_PROPERTIES) {
+                return (LittleEndian.getInt(records.data, 0) & 0x01) != 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lit les entrées de la table des chaînes partagées ({@code xl/sharedStrings.bin})
+     * dans l'ordre et les passe à {@code consumer}.
+     */
+    static void readSharedStrings(InputStream sharedStrings, SharedStrings.EntryConsumer consumer)
+            throws IOException {
+        Records records = new Records(sharedStrings);
+        while (records.next()) {
+            if (records.type == SHARED_STRING_ITEM) {
+                consumer.accept(wideString(records.data, 1)); // 1 octet d'options (runs, phonétique)
+            }
+        }
+    }
+
+    private static boolean isCell(int type) {
+        return (type >= CELL_BLANK && type <= FORMULA_ERROR) || type == CELL_RICH_STRING;
+    }
+
+    /**
+     * Ajoute une cellule: colonne et style, puis la valeur (à partir de l'octet 8),
+     * en texte comme dans le XML.
+     */
+    private static void addCell(RawRow row, int type, byte[] data) {
+        int column = LittleEndian.getInt(data, 0);
+        int style = LittleEndian.getInt(data, 4) & 0xFFFFFF;
+        switch (type) {
+            case CELL_RK -> row.add(column, RawRow.NUMBER, false, style, String.valueOf(rk(data)));
+            case CELL_REAL -> row.add(column, RawRow.NUMBER, false, style, String.valueOf(LittleEndian.getDouble(data, 8)));
+            case CELL_BOOL -> row.add(column, RawRow.BOOLEAN, false, style, data[8] != 0 ? "1" : "0");
+            case CELL_ERROR -> row.add(column, RawRow.ERROR, false, style, null);
+            case CELL_STRING -> row.add(column, RawRow.TEXT, false, style, wideString(data, 8));
+            case CELL_RICH_STRING -> row.add(column, RawRow.TEXT, false, style, wideString(data, 9));
+            case CELL_SHARED_STRING -> row.add(column, RawRow.SHARED_STRING, false, style,
+                String.valueOf(LittleEndian.getInt(data, 8)));
+            case FORMULA_NUMBER -> row.add(column, RawRow.NUMBER, true, style, String.valueOf(LittleEndian.getDouble(data, 8)));
+            case FORMULA_BOOL -> row.add(column, RawRow.BOOLEAN, true, style, data[8] != 0 ? "1" : "0");
+            case FORMULA_STRING -> row.add(column, RawRow.TEXT, true, style, wideString(data, 8));
+            case FORMULA_ERROR -> row.add(column, RawRow.ERROR, true, style, null);
+            default -> {
+                // Cellule vide (formatée)
+            }
+        }
+    }
+
+    private static boolean hasValue(int type, byte[] data) {
+        return switch (type) {
+            case CELL_BLANK -> false;
+            case CELL_STRING, FORMULA_STRING -> !wideString(data, 8).isBlank();
+            case CELL_RICH_STRING -> !wideString(data, 9).isBlank();
+            default -> true;
+        };
+    }
+
+    /**
+     * Nombre compact (RK): entier sur 30 bits ou 30 bits de poids fort d'un double,
+     * éventuellement à diviser par 100.
+     */
+    private static double rk(byte[] data) {
+        int rk = LittleEndian.getInt(data, 8);
+        double value = (rk & 0x02) != 0
+            ? rk >> 2
+            : Double.longBitsToDouble((rk & 0xFFFFFFFCL) << 32);
+        return (rk & 0x01) != 0 ? value / 100 : value;
+    }
+
+    /**
+     * Chaîne XLWideString: nombre de caractères (4 octets), puis UTF-16LE.
+     */
+    private static String wideString(byte[] data, int offset) {
+        int length = LittleEndian.getInt(data, offset);
+        return new String(data, offset + 4, 2 * length, StandardCharsets.UTF_16LE);
+    }
+
+    /**
+     * Parcours des enregistrements d'une partie. Le tampon est réutilisé d'un
+     * enregistrement au suivant.
+     */
+    private static final class Records {
+
+        private final InputStream in;
+        private byte[] data = new byte[256];
+        private int type;
+
+        Records(InputStream in) {
+            this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 64 * 1024);
+        }
+
+        /**
+         * @return false en fin de partie
+         */
+        boolean next() throws IOException {
+            type = readVarInt(2);
+            if (type == -1) {
+                return false;
+            }
+            int length = readVarInt(4);
+            if (type < 0 || length < 0 || length > MAX_RECORD_LENGTH) {
+                throw new IOException("Fichier XLSB invalide: enregistrement " + type + " tronqué ou trop grand");
+            }
+            if (length > data.length) {
+                data = new byte[Math.max(length, data.length * 2)];
+            }
+            if (in.readNBytes(data, 0, length) != length) {
+                throw new IOException("Fichier XLSB invalide: enregistrement " + type + " tronqué");
+            }
+            return true;
+        }
+
+        /**
+         * Entier sur 1 à {@code maxBytes} octets, 7 bits par octet (bit de poids fort = suite).
+         *
+         * @return L'entier, ou -1 en fin de partie
+         */
+        private int readVarInt(int maxBytes) throws IOException {
+            int value = 0;
+            for (int i = 0; i < maxBytes; i++) {
+                int b = in.read();
+                if (b < 0) {
+                    return i == 0 ? -1 : -2;
+                }
+                value |= (b & 0x7F) << (7 * i);
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return value;
+        }
+    }
+}
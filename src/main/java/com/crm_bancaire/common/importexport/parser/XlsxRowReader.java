@@ -0,0 +1,608 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFBReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lecture en pipeline d'une feuille d'un .xlsx ou .xlsb (la première, ou chacune des
+ * feuilles lues par {@link XlsxSheetsReader}).
+ *
+ * Trois étages, reliés par des files bornées de lots de lignes:
+ * <ol>
+ *   <li>thread "parse": décompression de la feuille et lecture XML (StAX) ou des
+ *       enregistrements binaires ({@link XlsbRecords}) en lignes brutes (colonne, type,
+ *       style, texte de chaque cellule);</li>
+ *   <li>thread "convert": résolution des chaînes partagées, conversion des cellules
+ *       (dates, nombres, booléens), lignes vides ignorées;</li>
+ *   <li>thread appelant: mapping des lignes rendues par {@link #next()}.</li>
+ * </ol>
+ * Un gros classeur occupe ainsi plusieurs cœurs, avec au plus {@code 2 × QUEUE_CAPACITY}
+ * lots en mémoire. Les valeurs sont celles de {@code ExcelParser.parse} (workbook POI).
+ */
+@Slf4j
+final class XlsxRowReader implements RowReader {
+
+    /**
+     * Lignes par lot transmis d'un étage au suivant.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Lots en attente entre deux étages.
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final List<RawRow> END_OF_SHEET = new ArrayList<>(0);
+    private static final List<ParsedRow> END_OF_ROWS = new ArrayList<>(0);
+    private static final AtomicInteger READERS = new AtomicInteger();
+
+    private final String sheetName;
+    private final Closeable resources;
+    private final SharedStrings strings;
+    private final XlsxWorkbook workbook;
+    private final BlockingQueue<List<RawRow>> rawRows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<List<ParsedRow>> rows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final CompletableFuture<RowHeaders> headers = new CompletableFuture<>();
+    private final Thread parseStage;
+    private final Thread convertStage;
+    private volatile Throwable failure;
+
+    private Iterator<ParsedRow> current = Collections.emptyIterator();
+    private boolean finished;
+
+    /**
+     * @param sheetName Nom de la feuille, reporté sur chaque ligne (null = pas de localisation)
+     * @param resources Fermé avec le lecteur (null = ressources partagées, fermées par l'appelant)
+     */
+    private XlsxRowReader(InputStream sheet, String sheetName, SharedStrings strings, XlsxWorkbook workbook,
+                          Closeable resources) {
+        this.sheetName = sheetName;
+        this.resources = resources;
+        this.strings = strings;
+        this.workbook = workbook;
+
+        int id = READERS.incrementAndGet();
+        this.parseStage = new Thread(() -> parse(sheet), "xlsx-parse-" + id);
+        this.convertStage = new Thread(new Converter()::run, "xlsx-convert-" + id);
+        parseStage.setDaemon(true);
+        convertStage.setDaemon(true);
+        parseStage.start();
+        convertStage.start();
+    }
+
+    /**
+     * Ouvre la première feuille et attend la ligne de headers.
+     *
+     * @param pkg Classeur ouvert (fermé avec le lecteur)
+     * @param strings Table des chaînes partagées (fermée avec le lecteur)
+     * @param binary Classeur .xlsb
+     * @throws IllegalArgumentException Si la feuille n'a pas de ligne de headers
+     */
+    static XlsxRowReader open(OPCPackage pkg, SharedStrings strings, boolean binary) throws Exception {
+        XSSFReader reader = binary ? new XSSFBReader(pkg) : new XSSFReader(pkg);
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        if (!sheets.hasNext()) {
+            throw new IllegalArgumentException("Fichier vide - aucun header trouvé");
+        }
+        Closeable resources = () -> {
+            try {
+                strings.close();
+            } finally {
+                pkg.revert(); // Lecture seule: rien à écrire
+            }
+        };
+        return start(new XlsxRowReader(sheets.next(), null, strings, XlsxWorkbook.read(reader, binary), resources));
+    }
+
+    /**
+     * Ouvre une feuille d'un classeur dont la table des chaînes et les styles sont
+     * partagés entre plusieurs lecteurs, et attend sa ligne de headers.
+     *
+     * @param sheet XML de la feuille (fermé avec le lecteur)
+     * @param sheetName Nom de la feuille, reporté sur chaque ligne ({@link ParsedRow#sheet()})
+     * @throws IllegalArgumentException Si la feuille n'a pas de ligne de headers
+     */
+    static XlsxRowReader sheet(InputStream sheet, String sheetName, SharedStrings strings, XlsxWorkbook workbook)
+            throws Exception {
+        return start(new XlsxRowReader(sheet, sheetName, strings, workbook, null));
+    }
+
+    private static XlsxRowReader start(XlsxRowReader rowReader) throws Exception {
+        try {
+            rowReader.headers.get();
+            return rowReader;
+        } catch (ExecutionException e) {
+            rowReader.close();
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            rowReader.close();
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> headers() {
+        return headers.join().names();
+    }
+
+    RowHeaders rowHeaders() {
+        return headers.join();
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        while (!current.hasNext()) {
+            List<ParsedRow> batch = nextBatch();
+            if (batch == null) {
+                return null;
+            }
+            current = batch.iterator();
+        }
+        return current.next();
+    }
+
+    /**
+     * Lot suivant de lignes converties (jamais vide).
+     *
+     * @return Le lot, ou null en fin de feuille
+     */
+    List<ParsedRow> nextBatch() throws IOException {
+        if (finished) {
+            return null;
+        }
+        List<ParsedRow> batch;
+        try {
+            batch = rows.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lecture Excel interrompue", e);
+        }
+        if (batch == END_OF_ROWS) {
+            finished = true;
+            rethrowFailure();
+            return null;
+        }
+        return batch;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parseStage.interrupt();
+        convertStage.interrupt();
+        try {
+            parseStage.join(TimeUnit.SECONDS.toMillis(5));
+            convertStage.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (resources != null) {
+            resources.close();
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable error = failure;
+        if (error == null) {
+            return;
+        }
+        if (error instanceof IOException io) {
+            throw io;
+        }
+        if (error instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IOException("Lecture Excel impossible: " + error.getMessage(), error);
+    }
+
+    private void fail(Throwable error) {
+        if (failure == null) {
+            failure = error;
+        }
+        headers.completeExceptionally(error);
+    }
+
+    /**
+     * Étage 1: XML ou enregistrements binaires de la feuille → lignes brutes.
+     */
+    private void parse(InputStream sheet) {
+        try (InputStream in = sheet) {
+            RawBatches batches = new RawBatches();
+            if (workbook.binary()) {
+                XlsbRecords.readSheet(in, batches);
+            } else {
+                readSheet(in, batches);
+            }
+            batches.flush();
+        } catch (InterruptedException e) {
+            return; // Lecteur fermé
+        } catch (Exception e) {
+            if (!Thread.currentThread().isInterrupted()) {
+                fail(e);
+            }
+        }
+        try {
+            rawRows.put(END_OF_SHEET);
+        } catch (InterruptedException e) {
+            // Lecteur fermé
+        }
+    }
+
+    private static void readSheet(InputStream sheet, RowConsumer consumer) throws Exception {
+        XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(sheet);
+        try {
+            readSheet(xml, consumer);
+        } finally {
+            xml.close();
+        }
+    }
+
+    private static void readSheet(XMLStreamReader xml, RowConsumer consumer) throws Exception {
+        RawRow row = null;
+        int rowNumber = 0;
+        int column = -1;
+        byte type = 0;
+        boolean formula = false;
+        int style = 0;
+        String value = null;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "row" -> {
+                        String r = xml.getAttributeValue(null, "r");
+                        rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                        row = new RawRow(rowNumber);
+                        column = -1;
+                    }
+                    case "c" -> {
+                        String r = xml.getAttributeValue(null, "r");
+                        column = r != null ? columnOf(r) : column + 1;
+                        type = RawRow.typeOf(xml.getAttributeValue(null, "t"));
+                        String s = xml.getAttributeValue(null, "s");
+                        style = s != null ? Integer.parseInt(s) : 0;
+                        formula = false;
+                        value = null;
+                    }
+                    case "f" -> {
+                        formula = true;
+                        xml.getElementText();
+                    }
+                    case "v" -> value = xml.getElementText();
+                    case "is" -> value = inlineString(xml);
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "c" -> {
+                        if (row != null) {
+                            row.add(column, type, formula, style, value);
+                        }
+                    }
+                    case "row" -> {
+                        consumer.accept(row);
+                        row = null;
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Texte d'un {@code <is>} (runs concaténés, sans texte phonétique).
+     */
+    private static String inlineString(XMLStreamReader xml) throws Exception {
+        StringBuilder text = new StringBuilder();
+        int phonetic = 0;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("rPh".equals(xml.getLocalName())) {
+                    phonetic++;
+                } else if ("t".equals(xml.getLocalName())) {
+                    String value = xml.getElementText();
+                    if (phonetic == 0) {
+                        text.append(value);
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if ("rPh".equals(xml.getLocalName())) {
+                    phonetic--;
+                } else if ("is".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Colonne (base 0) d'une référence "AB12".
+     */
+    private static int columnOf(String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Regroupe les lignes brutes en lots pour l'étage "convert".
+     */
+    private final class RawBatches implements RowConsumer {
+
+        private List<RawRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        @Override
+        public void accept(RawRow row) throws InterruptedException {
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                rawRows.put(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+
+        void flush() throws InterruptedException {
+            if (!batch.isEmpty()) {
+                rawRows.put(batch);
+            }
+        }
+    }
+
+    /**
+     * Étage 2: lignes brutes → lignes converties.
+     */
+    private final class Converter {
+
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+        private RowHeaders rowHeaders;
+
+        void run() {
+            try {
+                while (true) {
+                    List<RawRow> batch = rawRows.take();
+                    if (batch == END_OF_SHEET) {
+                        if (rowHeaders == null) {
+                            fail(new IllegalArgumentException("Fichier vide - aucun header trouvé"));
+                        }
+                        break;
+                    }
+                    List<ParsedRow> converted = convert(batch);
+                    if (!converted.isEmpty()) {
+                        rows.put(converted);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return; // Lecteur fermé
+            } catch (Exception e) {
+                fail(e);
+                parseStage.interrupt();
+            }
+            try {
+                rows.put(END_OF_ROWS);
+            } catch (InterruptedException e) {
+                // Lecteur fermé
+            }
+        }
+
+        private List<ParsedRow> convert(List<RawRow> batch) {
+            List<ParsedRow> result = new ArrayList<>(batch.size());
+            for (RawRow raw : batch) {
+                if (rowHeaders == null) {
+                    // Ligne 1 = Headers
+                    if (raw.rowNumber != 1) {
+                        throw new IllegalArgumentException("Fichier vide - aucun header trouvé");
+                    }
+                    rowHeaders = new RowHeaders(extractHeaders(raw));
+                    headers.complete(rowHeaders);
+                    continue;
+                }
+                ParsedRow row = toRow(raw);
+                if (row != null) {
+                    result.add(row);
+                }
+            }
+            return result;
+        }
+
+        private List<String> extractHeaders(RawRow raw) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < raw.count; i++) {
+                String header = value(raw, i);
+                if (header != null && !header.trim().isEmpty()) {
+                    // Enlever les "*" (marqueur champ obligatoire)
+                    names.add(header.replace("*", "").trim());
+                }
+            }
+            return names;
+        }
+
+        /**
+         * Valeurs des colonnes des headers, null si la ligne est vide.
+         */
+        private ParsedRow toRow(RawRow raw) {
+            String[] values = new String[rowHeaders.size()];
+            boolean empty = true;
+            for (int i = 0; i < raw.count; i++) {
+                int column = raw.columns[i];
+                if (column < values.length) {
+                    String value = value(raw, i);
+                    values[column] = value;
+                    if (empty && value != null && !value.trim().isEmpty()) {
+                        empty = false;
+                    }
+                } else if (empty) {
+                    // Une valeur hors des colonnes suffit à rendre la ligne non vide
+                    String value = value(raw, i);
+                    empty = value == null || value.trim().isEmpty();
+                }
+            }
+            if (empty) {
+                return null;
+            }
+            ParsedRow row = new ParsedRow(rowHeaders, values);
+            if (sheetName != null) {
+                row.locate(sheetName, raw.rowNumber);
+            }
+            return row;
+        }
+
+        /**
+         * Convertit une cellule en String (mêmes règles que le parsing par workbook).
+         */
+        private String value(RawRow raw, int i) {
+            String text = raw.values[i];
+            byte type = raw.types[i];
+
+            if (raw.formulas[i]) {
+                // Valeur calculée en cache
+                return switch (type) {
+                    case RawRow.NUMBER -> String.valueOf(text == null || text.isEmpty() ? 0.0 : Double.parseDouble(text));
+                    case RawRow.BOOLEAN -> String.valueOf("1".equals(text));
+                    case RawRow.ERROR -> null;
+                    case RawRow.TEXT -> text;
+                    default -> text != null ? SharedStrings.decode(text) : null;
+                };
+            }
+            if (text == null) {
+                return null;
+            }
+
+            switch (type) {
+                case RawRow.SHARED_STRING:
+                    return strings.get(Integer.parseInt(text.trim())).trim();
+
+                case RawRow.STRING:
+                    return SharedStrings.decode(text).trim();
+
+                case RawRow.TEXT:
+                    return text.trim();
+
+                case RawRow.NUMBER:
+                    if (text.isEmpty()) {
+                        return null;
+                    }
+                    double value = Double.parseDouble(text);
+                    if (isDateFormatted(raw.styles[i], value)) {
+                        return dateFormat.format(DateUtil.getJavaDate(value, workbook.date1904()));
+                    }
+                    // Si c'est un entier, pas de décimales
+                    if (value == Math.floor(value)) {
+                        return String.valueOf((long) value);
+                    }
+                    return String.valueOf(value);
+
+                case RawRow.BOOLEAN:
+                    return String.valueOf("1".equals(text));
+
+                default:
+                    return null;
+            }
+        }
+
+        private boolean isDateFormatted(int style, double value) {
+            if (!DateUtil.isValidExcelDate(value)) {
+                return false;
+            }
+            return dateStyles.computeIfAbsent(style, workbook.dateStyles()::test);
+        }
+    }
+
+    /**
+     * Reçoit les lignes brutes de l'étage "parse".
+     */
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(RawRow row) throws InterruptedException;
+    }
+
+    /**
+     * Ligne telle que lue dans la feuille: cellules non converties.
+     */
+    static final class RawRow {
+
+        static final byte NUMBER = 0;
+        static final byte SHARED_STRING = 1;
+        static final byte STRING = 2;
+        static final byte BOOLEAN = 3;
+        static final byte ERROR = 4;
+        /** Texte déjà décodé (.xlsb): pas d'échappements {@code _xHHHH_}. */
+        static final byte TEXT = 5;
+
+        final int rowNumber;
+        int count;
+        int[] columns = new int[8];
+        byte[] types = new byte[8];
+        boolean[] formulas = new boolean[8];
+        int[] styles = new int[8];
+        String[] values = new String[8];
+
+        RawRow(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+
+        static byte typeOf(String t) {
+            if (t == null) {
+                return NUMBER;
+            }
+            return switch (t) {
+                case "s" -> SHARED_STRING;
+                case "str", "inlineStr", "d" -> STRING;
+                case "b" -> BOOLEAN;
+                case "e" -> ERROR;
+                default -> NUMBER;
+            };
+        }
+
+        void add(int column, byte type, boolean formula, int style, String value) {
+            if (count == columns.length) {
+                int size = count * 2;
+                columns = Arrays.copyOf(columns, size);
+                types = Arrays.copyOf(types, size);
+                formulas = Arrays.copyOf(formulas, size);
+                styles = Arrays.copyOf(styles, size);
+                values = Arrays.copyOf(values, size);
+            }
+            columns[count] = column;
+            types[count] = type;
+            formulas[count] = formula;
+            styles[count] = style;
+            values[count] = value;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.eventusermodel.XSSFBReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture de toutes les feuilles d'un .xlsx ou .xlsb (une feuille par région, par agence...)
+ * comme un seul fichier.
+ *
+ * Chaque feuille est lue par son propre pipeline {@link XlsxRowReader}, avec au plus
+ * {@value #ACTIVE_SHEETS} feuilles ouvertes en même temps; la table des chaînes partagées
+ * et les styles sont chargés une seule fois. Les lots de lignes sont rendus à tour de rôle
+ * (un lot par feuille ouverte): les feuilles sont décompressées et converties en parallèle,
+ * mais l'ordre des lignes ne dépend que du fichier. Une relecture (reprise, seconde passe
+ * COLLECT_ALL) rend donc les lignes dans le même ordre.
+ *
+ * Les colonnes sont celles de la première feuille: les lignes d'une feuille aux colonnes
+ * dans un autre ordre sont remises dans cet ordre, ses colonnes en plus sont ignorées.
+ * Une feuille sans headers, ou sans aucune colonne de la première (notice, listes de
+ * valeurs), est ignorée. Chaque ligne porte sa feuille et son numéro de ligne Excel
+ * ({@link ParsedRow#sheet()}, {@link ParsedRow#sheetRow()}).
+ */
+@Slf4j
+final class XlsxSheetsReader implements RowReader {
+
+    /**
+     * Feuilles lues en même temps (deux threads chacune).
+     */
+    static final int ACTIVE_SHEETS = 4;
+
+    private final OPCPackage pkg;
+    private final SharedStrings strings;
+    private final XlsxWorkbook workbook;
+    private final Deque<SheetRef> pending;
+    private final Deque<ActiveSheet> active = new ArrayDeque<>();
+    private RowHeaders headers;
+
+    private Iterator<ParsedRow> current = Collections.emptyIterator();
+
+    private XlsxSheetsReader(OPCPackage pkg, SharedStrings strings, XlsxWorkbook workbook, Deque<SheetRef> pending) {
+        this.pkg = pkg;
+        this.strings = strings;
+        this.workbook = workbook;
+        this.pending = pending;
+    }
+
+    /**
+     * Ouvre les premières feuilles; les colonnes sont celles de la première feuille.
+     *
+     * @param pkg Classeur ouvert (fermé avec le lecteur)
+     * @param strings Table des chaînes partagées (fermée avec le lecteur)
+     * @param binary Classeur .xlsb
+     * @throws IllegalArgumentException Si la première feuille n'a pas de ligne de headers
+     */
+    static XlsxSheetsReader open(OPCPackage pkg, SharedStrings strings, boolean binary) throws Exception {
+        XSSFReader reader = binary ? new XSSFBReader(pkg) : new XSSFReader(pkg);
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        Deque<SheetRef> refs = new ArrayDeque<>();
+        while (sheets.hasNext()) {
+            sheets.next().close(); // Chaque feuille est rouverte à son tour
+            refs.add(new SheetRef(sheets.getSheetName(), sheets.getSheetPart()));
+        }
+        if (refs.isEmpty()) {
+            throw new IllegalArgumentException("Fichier vide - aucun header trouvé");
+        }
+
+        XlsxSheetsReader sheetsReader = new XlsxSheetsReader(pkg, strings, XlsxWorkbook.read(reader, binary), refs);
+        try {
+            sheetsReader.openFirst();
+            sheetsReader.fill();
+            return sheetsReader;
+        } catch (Exception e) {
+            sheetsReader.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> headers() {
+        return headers.names();
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        while (!current.hasNext()) {
+            List<ParsedRow> batch = nextBatch();
+            if (batch == null) {
+                return null;
+            }
+            current = batch.iterator();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (ActiveSheet sheet : active) {
+                sheet.reader().close();
+            }
+            active.clear();
+            strings.close();
+        } finally {
+            pkg.revert(); // Lecture seule: rien à écrire
+        }
+    }
+
+    /**
+     * Lot suivant, pris à tour de rôle dans les feuilles ouvertes.
+     *
+     * @return Le lot, ou null quand toutes les feuilles ont été lues
+     */
+    private List<ParsedRow> nextBatch() throws IOException {
+        while (!active.isEmpty()) {
+            ActiveSheet sheet = active.poll();
+            List<ParsedRow> batch = sheet.reader().nextBatch();
+            if (batch == null) {
+                sheet.reader().close();
+                try {
+                    fill();
+                } catch (IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Lecture Excel impossible: " + e.getMessage(), e);
+                }
+                continue;
+            }
+            active.add(sheet);
+            return sheet.columns() == null ? batch : reorder(sheet.columns(), batch);
+        }
+        return null;
+    }
+
+    private void openFirst() throws Exception {
+        SheetRef first = pending.poll();
+        XlsxRowReader reader = XlsxRowReader.sheet(first.part().getInputStream(), first.name(), strings, workbook);
+        headers = reader.rowHeaders();
+        active.add(new ActiveSheet(reader, null));
+    }
+
+    /**
+     * Ouvre les feuilles suivantes jusqu'à {@value #ACTIVE_SHEETS} feuilles ouvertes.
+     */
+    private void fill() throws Exception {
+        while (active.size() < ACTIVE_SHEETS && !pending.isEmpty()) {
+            SheetRef ref = pending.poll();
+            XlsxRowReader reader;
+            try {
+                reader = XlsxRowReader.sheet(ref.part().getInputStream(), ref.name(), strings, workbook);
+            } catch (IllegalArgumentException e) {
+                log.info("Sheet '{}' skipped: {}", ref.name(), e.getMessage());
+                continue;
+            }
+
+            List<String> names = reader.headers();
+            if (names.equals(headers.names())) {
+                active.add(new ActiveSheet(reader, null));
+                continue;
+            }
+            int[] columns = new int[headers.size()];
+            boolean common = false;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = names.indexOf(headers.names().get(i));
+                common |= columns[i] >= 0;
+            }
+            if (!common) {
+                log.info("Sheet '{}' skipped: none of the columns of the first sheet", ref.name());
+                reader.close();
+                continue;
+            }
+            active.add(new ActiveSheet(reader, columns));
+        }
+    }
+
+    /**
+     * Remet les lignes d'une feuille dans l'ordre des colonnes de la première.
+     */
+    private List<ParsedRow> reorder(int[] columns, List<ParsedRow> batch) {
+        List<ParsedRow> result = new ArrayList<>(batch.size());
+        for (ParsedRow row : batch) {
+            String[] values = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = row.get(columns[i]);
+            }
+            ParsedRow reordered = new ParsedRow(headers, values);
+            reordered.locate(row.sheet(), row.sheetRow());
+            result.add(reordered);
+        }
+        return result;
+    }
+
+    private record SheetRef(String name, PackagePart part) {
+    }
+
+    /**
+     * Feuille en cours de lecture.
+     *
+     * @param columns Position dans la feuille de chaque colonne de la première (-1 = absente),
+     *                null si la feuille a les mêmes colonnes
+     */
+    private record ActiveSheet(XlsxRowReader reader, int[] columns) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.function.IntPredicate;
+
+/**
+ * Informations du classeur partagées par les feuilles lues ({@link XlsxRowReader}).
+ *
+ * @param binary Feuilles au format binaire (.xlsb), XML sinon
+ * @param dateStyles Index de style de cellule → format de date
+ * @param date1904 Calendrier 1904 (classeurs Mac anciens)
+ */
+record XlsxWorkbook(boolean binary, IntPredicate dateStyles, boolean date1904) {
+
+    /**
+     * Lit les styles et les propriétés du classeur.
+     */
+    static XlsxWorkbook read(XSSFReader reader, boolean binary) throws Exception {
+        if (binary) {
+            try (InputStream styles = reader.getStylesData();
+                 InputStream workbook = reader.getWorkbookData()) {
+                return new XlsxWorkbook(true, XlsbRecords.dateStyles(styles), XlsbRecords.isDate1904(workbook));
+            }
+        }
+        return new XlsxWorkbook(false, dateStyles(reader.getStylesTable()), isDate1904(reader));
+    }
+
+    private static IntPredicate dateStyles(StylesTable styles) {
+        if (styles == null) {
+            return style -> false;
+        }
+        return style -> {
+            if (style >= styles.getNumCellStyles()) {
+                return false;
+            }
+            XSSFCellStyle cellStyle = styles.getStyleAt(style);
+            return DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        };
+    }
+
+    private static boolean isDate1904(XSSFReader reader) throws Exception {
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLStreamReader xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(workbook);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                        if ("workbookPr".equals(xml.getLocalName())) {
+                            String value = xml.getAttributeValue(null, "date1904");
+                            return "1".equals(value) || "true".equals(value);
+                        }
+                        if ("sheets".equals(xml.getLocalName())) {
+                            return false; // workbookPr précède toujours sheets
+                        }
+                    }
+                }
+                return false;
+            } finally {
+                xml.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.crm_bancaire.common.importexport.service;
+
+/**
+ * Import ou export refusé par le contrôle d'admission ({@link ImportExportScheduler}):
+ * file d'attente pleine ou attente trop longue. Rendu en HTTP 429 avec {@code Retry-After}.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Délai conseillé avant de réessayer, en secondes.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
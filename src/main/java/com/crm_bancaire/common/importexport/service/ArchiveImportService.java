@@ -0,0 +1,294 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.dto.ArchiveImportResponse;
+import com.crm_bancaire.common.importexport.dto.ImportResponse;
+import com.crm_bancaire.common.importexport.mapper.ImportMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Import d'une archive zip de plusieurs fichiers CSV/Excel pour une même entité
+ * (migrations mensuelles).
+ *
+ * Chaque fichier est importé comme par {@code POST /api/{entity}/import}
+ * ({@link ImportService#importFile}): parser choisi d'après son nom, job propre (reprise,
+ * rapport d'erreurs), même configuration @Importable. Les fichiers sont importés en
+ * parallèle, au plus {@code import-export.archive.parallelism} à la fois.
+ *
+ * Les fichiers sont indépendants: les doublons ({@code uniqueColumns}) sont détectés
+ * dans chaque fichier, pas entre fichiers, et l'échec de l'un n'annule pas les autres.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveImportService {
+
+    private static final AtomicInteger POOLS = new AtomicInteger();
+
+    private final ImportService importService;
+    private final ImportExportProperties properties;
+
+    /**
+     * Importe tous les fichiers d'une archive zip.
+     *
+     * @param archive Archive uploadée
+     * @param targetService Service cible (avec @Importable)
+     * @param mapper ImportMapper pour convertir les lignes
+     * @param annotation Annotation @Importable
+     * @return Résultat de chaque fichier et totaux
+     */
+    public ArchiveImportResponse importArchive(
+            MultipartFile archive,
+            Object targetService,
+            ImportMapper<?> mapper,
+            Importable annotation
+    ) {
+        Instant start = Instant.now();
+        log.info("Starting archive import for entity '{}' from file '{}'", annotation.entity(),
+            archive.getOriginalFilename());
+
+        Path copy = null;
+        try {
+            // Copie locale: accès direct aux entrées, lues en parallèle
+            Path directory = properties.getJobs().getDirectory();
+            Files.createDirectories(directory);
+            copy = Files.createTempFile(directory, "archive-", ".zip");
+            try (InputStream in = archive.getInputStream()) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            try (ZipFile zip = new ZipFile(copy.toFile())) {
+                List<ZipEntry> entries = files(zip);
+                int maxFiles = properties.getArchive().getMaxFiles();
+                if (entries.isEmpty()) {
+                    return failure(start, "L'archive ne contient aucun fichier");
+                }
+                if (entries.size() > maxFiles) {
+                    return failure(start, "Trop de fichiers dans l'archive. Maximum autorisé: " + maxFiles);
+                }
+                Map<String, ImportResponse> results = importEntries(zip, entries, targetService, mapper, annotation);
+                return buildResponse(start, results);
+            }
+        } catch (ZipException e) {
+            return failure(start, "Archive zip invalide: " + archive.getOriginalFilename());
+        } catch (IOException e) {
+            log.error("Could not read archive for entity '{}'", annotation.entity(), e);
+            return failure(start, "Erreur lors de l'import: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure(start, "Import de l'archive interrompu");
+        } finally {
+            if (copy != null) {
+                try {
+                    Files.deleteIfExists(copy);
+                } catch (IOException e) {
+                    log.warn("Could not delete archive copy {}: {}", copy, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Importe les fichiers en parallèle; résultats dans l'ordre de l'archive.
+     */
+    private Map<String, ImportResponse> importEntries(ZipFile zip, List<ZipEntry> entries, Object targetService,
+                                                      ImportMapper<?> mapper, Importable annotation)
+            throws InterruptedException {
+        long maxSize = properties.getUpload().getMaxDecompressedSize().toBytes();
+        int parallelism = Math.max(1, Math.min(properties.getArchive().getParallelism(), entries.size()));
+        int pool = POOLS.incrementAndGet();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "import-archive-" + pool + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<ImportResponse>> futures = new ArrayList<>(entries.size());
+            for (ZipEntry entry : entries) {
+                MultipartFile file = new ArchiveEntryFile(zip, entry, maxSize);
+                futures.add(executor.submit(() -> importService.importFile(file, targetService, mapper, annotation)));
+            }
+
+            Map<String, ImportResponse> results = new LinkedHashMap<>();
+            for (int i = 0; i < entries.size(); i++) {
+                String name = entries.get(i).getName();
+                try {
+                    results.put(name, futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.error("Import of archive entry '{}' failed for entity '{}'", name, annotation.entity(), cause);
+                    results.put(name, ImportResponse.builder()
+                        .success(false)
+                        .message("Erreur lors de l'import: " + cause.getMessage())
+                        .build());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fichiers de l'archive (répertoires et métadonnées macOS ignorés).
+     */
+    private static List<ZipEntry> files(ZipFile zip) {
+        List<ZipEntry> files = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (!entry.isDirectory() && !name.startsWith("__MACOSX/") && !baseName(name).equals(".DS_Store")) {
+                files.add(entry);
+            }
+        }
+        return files;
+    }
+
+    private static String baseName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    private static ArchiveImportResponse buildResponse(Instant start, Map<String, ImportResponse> results) {
+        int failed = 0;
+        int total = 0;
+        int saved = 0;
+        int updated = 0;
+        int unchanged = 0;
+        int superseded = 0;
+        int errors = 0;
+        for (ImportResponse response : results.values()) {
+            if (!response.isSuccess()) {
+                failed++;
+            }
+            total += response.getTotalRows();
+            saved += response.getSuccessCount();
+            updated += response.getUpdatedCount();
+            unchanged += response.getUnchangedCount();
+            superseded += response.getSupersededCount();
+            errors += response.getErrorCount();
+        }
+
+        String message = failed == 0
+            ? String.format("Archive importée: %d fichier(s), %d/%d lignes importées", results.size(), saved, total)
+            : String.format("Import partiel de l'archive: %d/%d fichier(s) en échec, %d/%d lignes importées",
+                failed, results.size(), saved, total);
+        log.info("Archive import completed: {} files, {} failed, {}/{} rows saved", results.size(), failed, saved,
+            total);
+
+        return ArchiveImportResponse.builder()
+            .success(failed == 0)
+            .fileCount(results.size())
+            .failedFileCount(failed)
+            .totalRows(total)
+            .successCount(saved)
+            .updatedCount(updated)
+            .unchangedCount(unchanged)
+            .supersededCount(superseded)
+            .errorCount(errors)
+            .files(results)
+            .message(message)
+            .duration(Duration.between(start, Instant.now()).toString())
+            .build();
+    }
+
+    private static ArchiveImportResponse failure(Instant start, String message) {
+        return ArchiveImportResponse.builder()
+            .success(false)
+            .message(message)
+            .duration(Duration.between(start, Instant.now()).toString())
+            .build();
+    }
+
+    /**
+     * Entrée de l'archive vue comme un fichier uploadé: décompressée à la lecture,
+     * limitée à {@code import-export.upload.max-decompressed-size}.
+     */
+    private static final class ArchiveEntryFile implements MultipartFile {
+
+        private final ZipFile zip;
+        private final ZipEntry entry;
+        private final long maxSize;
+
+        ArchiveEntryFile(ZipFile zip, ZipEntry entry, long maxSize) {
+            this.zip = zip;
+            this.entry = entry;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return baseName(entry.getName());
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return entry.getSize() == 0;
+        }
+
+        /**
+         * Taille décompressée annoncée par l'archive (-1 si inconnue).
+         */
+        @Override
+        public long getSize() {
+            return entry.getSize();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            try (InputStream in = getInputStream()) {
+                return in.readAllBytes();
+            }
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return SpooledUpload.limit(zip.getInputStream(entry), maxSize);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            try (InputStream in = getInputStream()) {
+                Files.copy(in, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
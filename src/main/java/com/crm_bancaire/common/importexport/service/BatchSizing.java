@@ -0,0 +1,159 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.dto.ImportBatchStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taille des batchs d'un import, fixe ou ajustée après chaque écriture (AIMD):
+ * <ul>
+ *   <li>batch plus lent que la durée visée: taille multipliée par {@code decreaseFactor}</li>
+ *   <li>batch dans la durée visée et débit (lignes/s) maintenu: taille augmentée de
+ *       {@code increment}, sans dépasser la taille estimée pour la durée visée</li>
+ *   <li>batch dans la durée visée mais débit en baisse: taille réduite de {@code increment}</li>
+ * </ul>
+ * Le débit de référence est une moyenne glissante, pour ne pas réagir à un batch isolé.
+ * Un batch incomplet (fin de fichier, arrêt) n'est compté que dans les statistiques.
+ *
+ * Une instance par import (non thread-safe).
+ */
+@Slf4j
+final class BatchSizing {
+
+    /**
+     * Baisse de débit tolérée avant de réduire la taille (mesures bruitées).
+     */
+    private static final double THROUGHPUT_TOLERANCE = 0.1;
+
+    /**
+     * Poids du dernier batch dans la moyenne glissante du débit.
+     */
+    private static final double THROUGHPUT_WEIGHT = 0.3;
+
+    private final boolean adaptive;
+    private final int initialSize;
+    private final int minSize;
+    private final int maxSize;
+    private final int increment;
+    private final double decreaseFactor;
+    private final long targetNanos;
+
+    private int size;
+    private double throughput;
+
+    private int batchCount;
+    private long rowCount;
+    private long totalNanos;
+    private long maxNanos;
+    private int smallestSize;
+    private int largestSize;
+
+    private BatchSizing(boolean adaptive, int initialSize, int minSize, int maxSize, int increment,
+                        double decreaseFactor, long targetNanos) {
+        this.adaptive = adaptive;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.initialSize = Math.min(maxSize, Math.max(minSize, initialSize));
+        this.increment = increment;
+        this.decreaseFactor = decreaseFactor;
+        this.targetNanos = targetNanos;
+        this.size = this.initialSize;
+        this.smallestSize = this.size;
+        this.largestSize = this.size;
+    }
+
+    /**
+     * Taille fixe ({@code @Importable(batchSize)}).
+     */
+    static BatchSizing fixed(int batchSize) {
+        int size = Math.max(1, batchSize);
+        return new BatchSizing(false, size, size, size, 0, 1, 0);
+    }
+
+    /**
+     * Taille ajustée, à partir de {@code initialSize}, dans les bornes de {@code settings}.
+     */
+    static BatchSizing adaptive(int initialSize, ImportExportProperties.AdaptiveBatch settings) {
+        int minSize = Math.max(1, settings.getMinSize());
+        int maxSize = Math.max(minSize, settings.getMaxSize());
+        double decreaseFactor = settings.getDecreaseFactor() > 0 && settings.getDecreaseFactor() < 1
+            ? settings.getDecreaseFactor()
+            : 0.5;
+        return new BatchSizing(true, initialSize, minSize, maxSize, Math.max(1, settings.getIncrement()),
+            decreaseFactor, Math.max(1, settings.getTargetLatency().toNanos()));
+    }
+
+    /**
+     * Taille du prochain batch.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Enregistre l'écriture d'un batch et ajuste la taille du suivant.
+     *
+     * @param rows Lignes du batch
+     * @param nanos Durée de l'écriture
+     */
+    void record(int rows, long nanos) {
+        if (rows <= 0) {
+            return;
+        }
+        batchCount++;
+        rowCount += rows;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+
+        if (!adaptive || rows < size) {
+            return;
+        }
+
+        double batchThroughput = rows * 1e9 / Math.max(1, nanos);
+        int next;
+        if (nanos > targetNanos) {
+            next = (int) (size * decreaseFactor);
+        } else if (throughput == 0 || batchThroughput >= throughput * (1 - THROUGHPUT_TOLERANCE)) {
+            // Taille qui tiendrait dans la durée visée au débit observé
+            long fitting = (long) (batchThroughput * targetNanos / 1e9);
+            next = (int) Math.min(size + (long) increment, Math.max(size, fitting));
+        } else {
+            next = size - increment;
+        }
+        throughput = throughput == 0
+            ? batchThroughput
+            : throughput + THROUGHPUT_WEIGHT * (batchThroughput - throughput);
+
+        next = Math.min(maxSize, Math.max(minSize, next));
+        if (next != size) {
+            log.debug("Batch size {} -> {} (batch of {} rows written in {} ms, {} rows/s)", size, next, rows,
+                TimeUnit.NANOSECONDS.toMillis(nanos), (long) batchThroughput);
+            size = next;
+            smallestSize = Math.min(smallestSize, size);
+            largestSize = Math.max(largestSize, size);
+        }
+    }
+
+    /**
+     * Statistiques des batchs écrits, null si aucun.
+     */
+    ImportBatchStats stats() {
+        if (batchCount == 0) {
+            return null;
+        }
+        return ImportBatchStats.builder()
+            .adaptive(adaptive)
+            .batchCount(batchCount)
+            .initialSize(initialSize)
+            .finalSize(size)
+            .minSize(smallestSize)
+            .maxSize(largestSize)
+            .averageSize((int) (rowCount / batchCount))
+            .averageLatencyMillis(TimeUnit.NANOSECONDS.toMillis(totalNanos / batchCount))
+            .maxLatencyMillis(TimeUnit.NANOSECONDS.toMillis(maxNanos))
+            .rowsPerSecond(totalNanos > 0 ? (long) (rowCount * 1e9 / totalNanos) : 0)
+            .build();
+    }
+}
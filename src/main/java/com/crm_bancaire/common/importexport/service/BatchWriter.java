@@ -0,0 +1,469 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.dto.ImportBatchStats;
+import com.crm_bancaire.common.importexport.dto.ImportError;
+import com.crm_bancaire.common.importexport.enums.TransactionMode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Accumule les entités mappées et les écrit par batch dans la destination,
+ * en respectant les frontières de transaction de l'import.
+ *
+ * Une instance par import (non thread-safe).
+ */
+@Slf4j
+final class BatchWriter {
+
+    /**
+     * Ligne prête à être sauvegardée.
+     */
+    record PendingRow(int rowNumber, Map<String, String> row, Object entity) {
+    }
+
+    private final ImportSink sink;
+    private final TransactionMode mode;
+    private final ImportTransactionSupport transactions;
+    private final BatchSizing batchSizing;
+    private final boolean stopOnFirstError;
+    private final ImportErrors errors;
+    private final ConcurrentSaves concurrentSaves;
+
+    private Consumer<List<PendingRow>> savedListener = rows -> { };
+    private IntConsumer flushedListener = lastRow -> { };
+    private List<PendingRow> pending;
+    private int savedCount;
+    private int updatedCount;
+    private int supersededCount;
+    private boolean failed;
+
+    /**
+     * @param sink Destination des entités
+     * @param mode Mode effectif (NONE, PER_BATCH ou PER_FILE; PER_FILE = déjà dans la transaction du fichier)
+     * @param transactions Support transactionnel (requis pour PER_BATCH)
+     * @param batchSizing Taille des batchs, fixe ou ajustée après chaque écriture
+     * @param stopOnFirstError Arrêter à la première erreur de sauvegarde
+     * @param errors Erreurs de l'import
+     * @param saveConcurrency Sauvegardes unitaires en parallèle (1 = l'une après l'autre; hors PER_FILE)
+     */
+    BatchWriter(ImportSink sink, TransactionMode mode, ImportTransactionSupport transactions,
+                BatchSizing batchSizing, boolean stopOnFirstError, ImportErrors errors, int saveConcurrency) {
+        this.sink = sink;
+        this.mode = mode;
+        this.transactions = transactions;
+        this.batchSizing = batchSizing;
+        this.stopOnFirstError = stopOnFirstError;
+        this.errors = errors;
+        this.concurrentSaves = saveConcurrency > 1 && mode != TransactionMode.PER_FILE
+            ? new ConcurrentSaves(saveConcurrency)
+            : null;
+        this.pending = new ArrayList<>(batchSizing.size());
+    }
+
+    /**
+     * Notifié des lignes écrites avec succès (commitées, sauf en PER_FILE où
+     * le commit n'a lieu qu'en fin de fichier).
+     */
+    void onSaved(Consumer<List<PendingRow>> listener) {
+        this.savedListener = listener;
+    }
+
+    /**
+     * Notifié après chaque batch écrit, avec le numéro de sa dernière ligne:
+     * toutes les lignes jusqu'à celle-ci sont alors traitées (checkpoint).
+     */
+    void onFlushed(IntConsumer listener) {
+        this.flushedListener = listener;
+    }
+
+    /**
+     * Reprend les compteurs d'une exécution précédente (reprise d'un import).
+     */
+    void resume(int savedCount, int updatedCount) {
+        this.savedCount = savedCount;
+        this.updatedCount = updatedCount;
+    }
+
+    /**
+     * Ajoute une ligne; le batch est écrit dès qu'il est plein.
+     */
+    void add(int rowNumber, Map<String, String> row, Object entity) {
+        pending.add(new PendingRow(rowNumber, row, entity));
+        if (pending.size() >= batchSizing.size()) {
+            flush();
+        }
+    }
+
+    /**
+     * Écrit les lignes en attente.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PendingRow> rows = pending;
+        if (failed) {
+            pending = new ArrayList<>(batchSizing.size());
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<PendingRow> batch = withoutSupersededRows(rows);
+        switch (mode) {
+            case PER_BATCH -> writeInOwnTransactions(batch);
+            case PER_FILE -> writeInFileTransaction(batch);
+            default -> writeWithoutTransaction(batch);
+        }
+        batchSizing.record(rows.size(), System.nanoTime() - start);
+        pending = new ArrayList<>(batchSizing.size());
+        if (!failed) {
+            flushedListener.accept(last(rows));
+        }
+    }
+
+    /**
+     * Nombre d'entités écrites (commitées hors mode PER_FILE).
+     */
+    int getSavedCount() {
+        return savedCount;
+    }
+
+    /**
+     * Parmi les entités écrites, nombre de mises à jour (mode UPSERT).
+     */
+    int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    /**
+     * Lignes non écrites car remplacées par une ligne suivante de même clé dans leur batch (mode UPSERT).
+     */
+    int getSupersededCount() {
+        return supersededCount;
+    }
+
+    /**
+     * Tailles et durées des batchs écrits, null si aucun.
+     */
+    ImportBatchStats getBatchStats() {
+        return batchSizing.stats();
+    }
+
+    /**
+     * Indique qu'une erreur de sauvegarde a arrêté l'écriture.
+     */
+    boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * Une même clé répétée dans le batch: seule la dernière ligne est écrite (équivalent à
+     * des upserts successifs, sans doublon inséré); les précédentes sont comptées à part.
+     */
+    private List<PendingRow> withoutSupersededRows(List<PendingRow> rows) {
+        Map<Object, Integer> lastByKey = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Object key = sink.key(rows.get(i).entity());
+            if (key != null) {
+                lastByKey.put(key, i);
+            }
+        }
+        if (lastByKey.isEmpty()) {
+            return rows;
+        }
+
+        List<PendingRow> kept = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            PendingRow row = rows.get(i);
+            Integer last = lastByKey.get(sink.key(row.entity()));
+            if (last == null || last == i) {
+                kept.add(row);
+            } else {
+                log.debug("Row {} superseded by row {} (same key)", row.rowNumber(), rows.get(last).rowNumber());
+            }
+        }
+        supersededCount += rows.size() - kept.size();
+        return kept;
+    }
+
+    /**
+     * PER_BATCH: une transaction par batch (saveAll, ou save de chaque entité dans
+     * la même transaction); en cas d'échec, rollback, remise de l'identifiant et de
+     * la version des entités à leur état d'avant la tentative, puis une transaction
+     * par ligne pour isoler les lignes en erreur (en parallèle avec saveConcurrency,
+     * chaque ligne dans sa transaction sur son thread).
+     */
+    private void writeInOwnTransactions(List<PendingRow> batch) {
+        if (batch.size() > 1) {
+            List<Object> entities = entities(batch);
+            Runnable restore = sink.snapshot(entities);
+            try {
+                updatedCount += transactions.execute(rollbackOnly -> sink.supportsBatch()
+                    ? saveBatch(entities)
+                    : saveEach(entities));
+                savedCount += batch.size();
+                savedListener.accept(batch);
+                log.debug("Committed batch rows {}-{} ({} entities)", first(batch), last(batch), batch.size());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Batch rows {}-{} rolled back ({}), retrying row by row",
+                    first(batch), last(batch), unwrap(e).getMessage());
+                restore.run();
+            }
+        }
+
+        saveRowByRow(batch, entity -> transactions.execute(rollbackOnly -> saveOne(entity)));
+    }
+
+    /**
+     * PER_FILE: écriture dans la transaction du fichier; toute erreur annule l'import.
+     */
+    private void writeInFileTransaction(List<PendingRow> batch) {
+        if (sink.supportsBatch()) {
+            try {
+                updatedCount += sink.saveBatch(entities(batch));
+                savedCount += batch.size();
+                savedListener.accept(batch);
+            } catch (Exception e) {
+                recordBatchError(batch, e);
+                failed = true;
+            }
+            return;
+        }
+
+        if (!prepare(batch)) {
+            failed = true;
+            return;
+        }
+        for (PendingRow row : batch) {
+            try {
+                if (sink.saveOne(row.entity())) {
+                    updatedCount++;
+                }
+                savedCount++;
+                savedListener.accept(List.of(row));
+            } catch (Exception e) {
+                recordError(row, e);
+                failed = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * NONE: chaque appel commit séparément; écriture unitaire si possible
+     * pour attribuer précisément les erreurs (en parallèle avec saveConcurrency).
+     */
+    private void writeWithoutTransaction(List<PendingRow> batch) {
+        if (!sink.supportsSingle()) {
+            try {
+                updatedCount += sink.saveBatch(entities(batch));
+                savedCount += batch.size();
+                savedListener.accept(batch);
+            } catch (Exception e) {
+                recordBatchError(batch, e);
+                failed = stopOnFirstError;
+            }
+            return;
+        }
+
+        saveRowByRow(batch, sink::saveOne);
+    }
+
+    /**
+     * Sauvegarde ligne par ligne, chaque erreur attribuée à sa ligne.
+     */
+    private void saveRowByRow(List<PendingRow> batch, ConcurrentSaves.Save save) {
+        if (!prepare(batch)) {
+            failed = stopOnFirstError;
+            return;
+        }
+        if (concurrentSaves != null) {
+            saveConcurrently(batch, save);
+            return;
+        }
+        for (PendingRow row : batch) {
+            try {
+                if (save.save(row.entity())) {
+                    updatedCount++;
+                }
+                savedCount++;
+                savedListener.accept(List.of(row));
+            } catch (Exception e) {
+                if (stopOnFirstError) {
+                    checkpointBefore(row);
+                }
+                recordError(row, unwrap(e));
+                if (stopOnFirstError) {
+                    failed = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sauvegarde les lignes du batch en parallèle, puis enregistre les résultats dans
+     * l'ordre des lignes: erreurs, compteurs et checkpoint ne dépendent pas de l'ordre
+     * de fin des appels. À la première erreur (FAIL_FAST, COLLECT_ALL), les appels en
+     * cours sont interrompus; leurs lignes ne sont ni sauvegardées ni en erreur.
+     */
+    private void saveConcurrently(List<PendingRow> batch, ConcurrentSaves.Save save) {
+        ConcurrentSaves.Outcome[] outcomes;
+        try {
+            outcomes = concurrentSaves.saveAll(entities(batch), save, stopOnFirstError);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrompu pendant la sauvegarde des lignes", e);
+        }
+
+        List<PendingRow> saved = new ArrayList<>(batch.size());
+        boolean savedSoFar = true;
+        for (int i = 0; i < outcomes.length; i++) {
+            ConcurrentSaves.Outcome outcome = outcomes[i];
+            if (outcome == null) {
+                savedSoFar = false;
+                continue;
+            }
+            if (outcome.error() != null) {
+                if (stopOnFirstError && savedSoFar) {
+                    checkpointBefore(batch.get(i));
+                }
+                savedSoFar = false;
+                recordError(batch.get(i), unwrap(outcome.error()));
+                failed |= stopOnFirstError;
+            } else {
+                if (outcome.updated()) {
+                    updatedCount++;
+                }
+                savedCount++;
+                saved.add(batch.get(i));
+            }
+        }
+        if (!saved.isEmpty()) {
+            savedListener.accept(saved);
+        }
+    }
+
+    /**
+     * Arrêt à une ligne d'un batch écrit ligne par ligne: les lignes qui la précèdent sont
+     * commitées une à une, le checkpoint avance jusqu'à elle (exclue, avant que son erreur
+     * soit comptée) pour qu'une reprise ne les réécrive pas.
+     */
+    private void checkpointBefore(PendingRow row) {
+        flushedListener.accept(row.rowNumber() - 1);
+    }
+
+    /**
+     * Préparation du batch par la destination avant les écritures unitaires
+     * (une seule recherche des enregistrements existants en UPSERT).
+     *
+     * @return false si la préparation a échoué (batch en erreur)
+     */
+    private boolean prepare(List<PendingRow> batch) {
+        try {
+            sink.prepareBatch(entities(batch));
+            return true;
+        } catch (Exception e) {
+            recordBatchError(batch, unwrap(e));
+            return false;
+        }
+    }
+
+    private int saveBatch(List<Object> entities) {
+        try {
+            return sink.saveBatch(entities);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SaveException(e);
+        }
+    }
+
+    /**
+     * Sauvegarde unitaire de chaque entité du batch, dans la transaction en cours.
+     */
+    private int saveEach(List<Object> entities) {
+        try {
+            sink.prepareBatch(entities);
+            int updated = 0;
+            for (Object entity : entities) {
+                if (sink.saveOne(entity)) {
+                    updated++;
+                }
+            }
+            return updated;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SaveException(e);
+        }
+    }
+
+    private boolean saveOne(Object entity) {
+        try {
+            return sink.saveOne(entity);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SaveException(e);
+        }
+    }
+
+    private void recordError(PendingRow row, Throwable cause) {
+        errors.add(ImportError.builder()
+            .row(row.rowNumber())
+            .message(cause.getMessage())
+            .build(), row.row());
+    }
+
+    private void recordBatchError(List<PendingRow> batch, Throwable cause) {
+        errors.addBatch(ImportError.builder()
+            .row(first(batch))
+            .message(String.format("Erreur lors de la sauvegarde des lignes %s à %s: %s",
+                reference(batch.get(0)), reference(batch.get(batch.size() - 1)), cause.getMessage()))
+            .build(), batch);
+    }
+
+    private static List<Object> entities(List<PendingRow> batch) {
+        List<Object> entities = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            entities.add(row.entity());
+        }
+        return entities;
+    }
+
+    private static int first(List<PendingRow> batch) {
+        return batch.get(0).rowNumber();
+    }
+
+    private static String reference(PendingRow row) {
+        return RowLocation.reference(row.rowNumber(), row.row());
+    }
+
+    private static int last(List<PendingRow> batch) {
+        return batch.get(batch.size() - 1).rowNumber();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof SaveException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Transporte une exception checked hors du TransactionTemplate.
+     */
+    private static final class SaveException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        SaveException(Exception cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.util.LongLongHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index persistant des lignes déjà importées: hash de la clé métier → hash du contenu.
+ *
+ * Un fichier par entité et clé métier dans {@code import-export.change-index.directory},
+ * chargé une fois puis gardé en mémoire. Le fichier est réécrit (de façon atomique)
+ * après chaque import ayant sauvegardé des lignes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeIndexStore {
+
+    private static final int MAGIC = 0x49584348;
+    private static final int VERSION = 1;
+
+    private final ImportExportProperties properties;
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Crée le suivi des changements pour un import.
+     *
+     * @param annotation Configuration @Importable (skipUnchanged + businessKey)
+     * @param columns Colonnes du fichier
+     * @return Suivi des lignes inchangées pour cet import
+     * @throws IllegalStateException Si la clé métier n'est pas définie ou absente du fichier
+     */
+    ChangeTracker tracker(Importable annotation, Collection<String> columns) {
+        String businessKey = annotation.businessKey();
+        if (businessKey.isEmpty()) {
+            throw new IllegalStateException("skipUnchanged nécessite businessKey");
+        }
+        if (!columns.contains(businessKey)) {
+            throw new IllegalStateException("Colonne clé métier manquante: " + businessKey);
+        }
+        Index index = indexes.computeIfAbsent(annotation.entity() + "|" + businessKey,
+            k -> load(annotation.entity(), businessKey));
+        return new ChangeTracker(index, businessKey, columns);
+    }
+
+    private Index load(String entity, String businessKey) {
+        Path file = properties.getChangeIndex().getDirectory()
+            .resolve(sanitize(entity) + "__" + sanitize(businessKey) + ".idx");
+        LongLongHashMap entries = new LongLongHashMap();
+
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("format inconnu");
+                }
+                int size = in.readInt();
+                entries = new LongLongHashMap(size);
+                for (int i = 0; i < size; i++) {
+                    entries.put(in.readLong(), in.readLong());
+                }
+                log.info("Loaded change index {} ({} keys)", file, size);
+            } catch (IOException e) {
+                log.warn("Change index {} unreadable ({}), starting empty", file, e.getMessage());
+                entries = new LongLongHashMap();
+            }
+        }
+        return new Index(file, entries);
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Index d'une entité (partagé entre les imports successifs).
+     */
+    static final class Index {
+
+        private final Path file;
+        private final LongLongHashMap entries;
+
+        private Index(Path file, LongLongHashMap entries) {
+            this.file = file;
+            this.entries = entries;
+        }
+
+        synchronized boolean isUnchanged(long keyHash, long contentHash) {
+            return entries.containsKey(keyHash) && entries.get(keyHash, 0L) == contentHash;
+        }
+
+        /**
+         * Intègre les lignes sauvegardées (après commit) et réécrit le fichier.
+         * Une erreur d'écriture n'échoue pas l'import: les lignes seront simplement réécrites au prochain import.
+         */
+        synchronized void publish(LongLongHashMap changes) {
+            entries.putAll(changes);
+            try {
+                Files.createDirectories(file.getParent());
+                Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(entries.size());
+                    IOException[] failure = new IOException[1];
+                    entries.forEach((key, value) -> {
+                        if (failure[0] == null) {
+                            try {
+                                out.writeLong(key);
+                                out.writeLong(value);
+                            } catch (IOException e) {
+                                failure[0] = e;
+                            }
+                        }
+                    });
+                    if (failure[0] != null) {
+                        throw failure[0];
+                    }
+                }
+                try {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                log.debug("Change index {} written ({} keys, {} changed)", file, entries.size(), changes.size());
+            } catch (IOException e) {
+                log.warn("Could not write change index {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
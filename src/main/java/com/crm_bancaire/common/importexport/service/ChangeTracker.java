@@ -0,0 +1,89 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.util.LongLongHashMap;
+import com.crm_bancaire.common.importexport.util.RowHasher;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Détection des lignes inchangées pour un import (@Importable(skipUnchanged = true)).
+ *
+ * Les hashs des lignes sauvegardées sont accumulés puis publiés dans l'index
+ * seulement une fois les transactions commitées.
+ */
+final class ChangeTracker {
+
+    private final ChangeIndexStore.Index index;
+    private final String businessKey;
+    private final RowHasher hasher;
+    private final LongLongHashMap changes = new LongLongHashMap();
+
+    /**
+     * Hashs calculés sur la ligne brute (avant normalisation des listes déroulantes),
+     * par numéro de ligne, pour les lignes à sauvegarder.
+     */
+    private final LongLongHashMap pendingKeys = new LongLongHashMap();
+    private final LongLongHashMap pendingContents = new LongLongHashMap();
+
+    /**
+     * Clés modifiées dans ce fichier: une ligne suivante avec la même clé n'est plus ignorée,
+     * même si elle est identique à l'index (sinon l'avant-dernière version gagnerait).
+     */
+    private final LongLongHashMap changedKeys = new LongLongHashMap();
+    private int unchangedCount;
+
+    ChangeTracker(ChangeIndexStore.Index index, String businessKey, Collection<String> columns) {
+        this.index = index;
+        this.businessKey = businessKey;
+        this.hasher = new RowHasher(columns);
+    }
+
+    /**
+     * Indique si la ligne est identique à celle du dernier import (même clé, même contenu).
+     * Une ligne sans clé métier n'est jamais considérée inchangée.
+     */
+    boolean isUnchanged(int rowNumber, Map<String, String> row) {
+        String key = row.get(businessKey);
+        if (key == null || key.isBlank()) {
+            return false;
+        }
+        long keyHash = RowHasher.hash(key);
+        long contentHash = hasher.contentHash(row);
+        if (!changedKeys.containsKey(keyHash) && index.isUnchanged(keyHash, contentHash)) {
+            unchangedCount++;
+            return true;
+        }
+        changedKeys.put(keyHash, rowNumber);
+        pendingKeys.put(rowNumber, keyHash);
+        pendingContents.put(rowNumber, contentHash);
+        return false;
+    }
+
+    /**
+     * Enregistre les lignes sauvegardées avec succès.
+     */
+    void saved(List<BatchWriter.PendingRow> rows) {
+        for (BatchWriter.PendingRow pending : rows) {
+            int rowNumber = pending.rowNumber();
+            if (pendingKeys.containsKey(rowNumber)) {
+                changes.put(pendingKeys.get(rowNumber, 0L), pendingContents.get(rowNumber, 0L));
+            }
+        }
+    }
+
+    /**
+     * Publie les lignes sauvegardées dans l'index (à appeler après commit).
+     */
+    void publish() {
+        if (!changes.isEmpty()) {
+            index.publish(changes);
+            changes.clear();
+        }
+    }
+
+    int getUnchangedCount() {
+        return unchangedCount;
+    }
+}
@@ -0,0 +1,226 @@
+package com.crm_bancaire.common.importexport.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appels de sauvegarde unitaires en parallèle (@Importable(saveConcurrency)), pour les
+ * méthodes save lentes en E/S (appel HTTP à un autre microservice).
+ *
+ * Les appels tournent sur des threads virtuels quand la JVM en dispose (Java 21+), sur un
+ * pool de threads partagé sinon; un sémaphore limite les appels en cours d'un import.
+ * Les résultats sont rendus dans l'ordre des lignes, quel que soit l'ordre de fin des appels.
+ */
+@Slf4j
+final class ConcurrentSaves {
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final Semaphore inFlight;
+
+    /**
+     * @param concurrency Appels en cours au plus
+     */
+    ConcurrentSaves(int concurrency) {
+        this.inFlight = new Semaphore(Math.max(1, concurrency));
+    }
+
+    /**
+     * Sauvegarde d'une entité, exécutée sur un autre thread.
+     */
+    @FunctionalInterface
+    interface Save {
+        /**
+         * @return true si un enregistrement existant a été mis à jour
+         */
+        boolean save(Object entity) throws Exception;
+    }
+
+    /**
+     * Résultat d'un appel.
+     *
+     * @param updated Enregistrement existant mis à jour
+     * @param error Exception levée par l'appel, null s'il a réussi
+     */
+    record Outcome(int index, boolean updated, Exception error) {
+    }
+
+    /**
+     * Sauvegarde les entités, avec au plus {@code concurrency} appels en cours.
+     *
+     * @param stopOnFirstError À la première erreur, plus aucun appel n'est lancé et ceux
+     *                         en cours sont interrompus
+     * @return Résultat de chaque entité, dans l'ordre; null pour une entité non sauvegardée
+     *         (appel non lancé, ou interrompu après la première erreur)
+     * @throws InterruptedException Si l'import est interrompu (appels en cours interrompus)
+     */
+    Outcome[] saveAll(List<Object> entities, Save save, boolean stopOnFirstError) throws InterruptedException {
+        Outcome[] outcomes = new Outcome[entities.size()];
+        Batch batch = new Batch(stopOnFirstError);
+        List<Future<Outcome>> futures = new ArrayList<>(entities.size());
+
+        try {
+            for (int i = 0; i < entities.size() && !batch.isStopped(); i++) {
+                inFlight.acquire();
+                Call call = new Call(i, entities.get(i), save, batch);
+                batch.add(call);
+                futures.add(EXECUTOR.submit(call));
+            }
+            // Tous les appels lancés se terminent avant le checkpoint du batch
+            for (Future<Outcome> future : futures) {
+                Outcome outcome = future.get();
+                if (outcome != null) {
+                    outcomes[outcome.index()] = outcome;
+                }
+            }
+            return outcomes;
+        } catch (InterruptedException e) {
+            batch.stop();
+            throw e;
+        } catch (ExecutionException e) {
+            batch.stop();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Appels lancés pour un batch; arrêtés ensemble à la première erreur.
+     */
+    private static final class Batch {
+
+        private final boolean stopOnFirstError;
+        private final List<Call> calls = new ArrayList<>();
+        private boolean stopped;
+
+        Batch(boolean stopOnFirstError) {
+            this.stopOnFirstError = stopOnFirstError;
+        }
+
+        synchronized void add(Call call) {
+            calls.add(call);
+        }
+
+        synchronized boolean isStopped() {
+            return stopped;
+        }
+
+        /**
+         * Échec d'un appel.
+         *
+         * @return false si l'erreur suit la première erreur du batch (appel interrompu):
+         *         la ligne n'est alors pas comptée en erreur
+         */
+        synchronized boolean fail() {
+            if (!stopOnFirstError) {
+                return true;
+            }
+            if (stopped) {
+                return false;
+            }
+            stop();
+            return true;
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            for (Call call : calls) {
+                call.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sauvegarde d'une entité; son thread n'est interrompu que pendant l'appel.
+     */
+    private final class Call implements Callable<Outcome> {
+
+        private final int index;
+        private final Object entity;
+        private final Save save;
+        private final Batch batch;
+        private Thread thread;
+
+        Call(int index, Object entity, Save save, Batch batch) {
+            this.index = index;
+            this.entity = entity;
+            this.save = save;
+            this.batch = batch;
+        }
+
+        @Override
+        public Outcome call() {
+            try {
+                if (!begin()) {
+                    return null;
+                }
+                try {
+                    return new Outcome(index, save.save(entity), null);
+                } catch (Exception e) {
+                    return batch.fail() ? new Outcome(index, false, e) : null;
+                } finally {
+                    end();
+                }
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        private boolean begin() {
+            synchronized (batch) {
+                if (batch.isStopped()) {
+                    return false;
+                }
+                thread = Thread.currentThread();
+                return true;
+            }
+        }
+
+        private void end() {
+            synchronized (batch) {
+                thread = null;
+                // Interruption arrivée après la fin de l'appel: le thread du pool est réutilisé
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Appelé sous le verrou du batch.
+         */
+        void interrupt() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            // Java 21+: un thread virtuel par appel (le sémaphore borne les appels en cours)
+            Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            log.debug("Concurrent saves run on virtual threads");
+            return (ExecutorService) virtualThreads.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threads = new AtomicInteger();
+            log.debug("Virtual threads unavailable, concurrent saves run on a shared thread pool");
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "import-save-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rapport des lignes en erreur d'un import, écrit au fil de l'eau dans le répertoire du job.
+ *
+ * Chaque ligne du rapport reprend les valeurs d'origine de la ligne en erreur, suivies
+ * des colonnes {@value #ERROR_COLUMN} et {@value #ROW_COLUMN}: le fichier peut être
+ * corrigé puis ré-importé tel quel (les colonnes en plus sont ignorées).
+ *
+ * En import multi-feuilles, une colonne {@value #SHEET_COLUMN} précède le numéro de ligne
+ * (dans la feuille); les numéros de traitement, qui servent à la reprise, sont alors
+ * gardés à part ({@value #POSITIONS_FILE}, un int par ligne du rapport).
+ */
+final class ErrorReport implements Closeable {
+
+    static final String FILE = "errors.csv";
+    static final String XLSX_FILE = "errors.xlsx";
+    static final String ERROR_COLUMN = "Erreur";
+    static final String ROW_COLUMN = "Ligne d'origine";
+    static final String SHEET_COLUMN = "Feuille";
+    static final String POSITIONS_FILE = "errors.pos";
+
+    private final List<String> headers;
+    private final CSVWriter writer;
+    private final DataOutputStream positions;
+    private int written;
+
+    private ErrorReport(List<String> headers, CSVWriter writer, DataOutputStream positions, int written) {
+        this.headers = headers;
+        this.writer = writer;
+        this.positions = positions;
+        this.written = written;
+    }
+
+    /**
+     * Ouvre le rapport du job.
+     *
+     * @param directory Répertoire du job
+     * @param headers Colonnes du fichier importé
+     * @param sheets Import multi-feuilles: colonne {@value #SHEET_COLUMN} en plus
+     * @param keepUpToRow Reprise: les lignes déjà rapportées jusqu'à celle-ci sont conservées
+     *                    (les suivantes seront retraitées); 1 = nouveau rapport
+     */
+    static ErrorReport open(Path directory, List<String> headers, boolean sheets, int keepUpToRow)
+            throws IOException {
+        Path file = directory.resolve(FILE);
+        Path positionsFile = directory.resolve(POSITIONS_FILE);
+        Files.deleteIfExists(directory.resolve(XLSX_FILE));
+
+        int kept = 0;
+        if (keepUpToRow > 1 && Files.exists(file)) {
+            kept = sheets
+                ? truncateAfter(file, positionsFile, keepUpToRow)
+                : truncateAfter(file, headers.size() + 1, keepUpToRow);
+        } else {
+            try (CSVWriter header = newWriter(file, false)) {
+                header.writeNext(headerLine(headers, sheets), false);
+            }
+            Files.deleteIfExists(positionsFile);
+        }
+        DataOutputStream positions = sheets
+            ? new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(positionsFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)))
+            : null;
+        return new ErrorReport(headers, newWriter(file, true), positions, kept);
+    }
+
+    /**
+     * Ajoute une ligne en erreur (valeurs vides si la ligne d'origine n'est pas connue).
+     *
+     * @param rowNumber Numéro de traitement de la ligne
+     * @param sheet Feuille de la ligne (import multi-feuilles), null sinon
+     * @param sourceRow Numéro affiché (ligne dans la feuille, ou rowNumber)
+     */
+    void write(int rowNumber, String sheet, int sourceRow, Map<String, String> row, String message) {
+        String[] line = new String[headers.size() + (positions != null ? 3 : 2)];
+        for (int i = 0; i < headers.size(); i++) {
+            String value = row != null ? row.get(headers.get(i)) : null;
+            line[i] = value != null ? value : "";
+        }
+        line[headers.size()] = message != null ? message : "";
+        if (positions != null) {
+            line[headers.size() + 1] = sheet != null ? sheet : "";
+            try {
+                positions.writeInt(rowNumber);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        line[line.length - 1] = String.valueOf(sourceRow);
+        writer.writeNext(line, false);
+        written++;
+    }
+
+    /**
+     * Nombre de lignes du rapport (y compris celles conservées d'une exécution précédente).
+     */
+    int getWritten() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            if (positions != null) {
+                positions.close();
+            }
+        }
+    }
+
+    /**
+     * Indique que le job a un rapport contenant au moins une ligne en erreur.
+     */
+    static boolean exists(Path directory) throws IOException {
+        Path file = directory.resolve(FILE);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (CSVReader reader = new CSVReader(newReader(file))) {
+            return reader.readNext() != null && reader.readNext() != null;
+        } catch (CsvValidationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Convertit le rapport CSV en XLSX (écriture streaming, quelques lignes en mémoire).
+     * Le fichier est conservé dans le répertoire du job pour les téléchargements suivants.
+     */
+    static Path toXlsx(Path directory) throws IOException {
+        Path xlsx = directory.resolve(XLSX_FILE);
+        Path csv = directory.resolve(FILE);
+        if (Files.exists(xlsx) && Files.getLastModifiedTime(xlsx).compareTo(Files.getLastModifiedTime(csv)) >= 0) {
+            return xlsx;
+        }
+
+        Path tmp = directory.resolve(XLSX_FILE + ".tmp");
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (CSVReader reader = new CSVReader(newReader(csv));
+             OutputStream out = Files.newOutputStream(tmp)) {
+            Sheet sheet = workbook.createSheet("Erreurs");
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+
+            String[] line;
+            int rowIndex = 0;
+            while ((line = reader.readNext()) != null) {
+                Row row = sheet.createRow(rowIndex);
+                for (int i = 0; i < line.length; i++) {
+                    row.createCell(i).setCellValue(line[i]);
+                    if (rowIndex == 0) {
+                        row.getCell(i).setCellStyle(headerStyle);
+                    }
+                }
+                rowIndex++;
+            }
+            workbook.write(out);
+        } catch (CsvValidationException e) {
+            throw new IOException("Rapport d'erreurs illisible: " + e.getMessage(), e);
+        } finally {
+            // close() supprime aussi les fichiers temporaires du streaming (POI 5)
+            workbook.close();
+        }
+        move(tmp, xlsx);
+        return xlsx;
+    }
+
+    /**
+     * Réécrit le rapport en ne gardant que les lignes d'origine jusqu'à {@code keepUpToRow}.
+     *
+     * @return Nombre de lignes conservées
+     */
+    private static int truncateAfter(Path file, int rowColumn, int keepUpToRow) throws IOException {
+        Path tmp = file.resolveSibling(FILE + ".tmp");
+        int kept = 0;
+        try (CSVReader reader = new CSVReader(newReader(file));
+             CSVWriter writer = newWriter(tmp, false)) {
+            String[] line = reader.readNext();
+            if (line != null) {
+                writer.writeNext(line, false);
+            }
+            while ((line = reader.readNext()) != null) {
+                if (line.length > rowColumn && rowNumber(line[rowColumn]) <= keepUpToRow) {
+                    writer.writeNext(line, false);
+                    kept++;
+                }
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException("Rapport d'erreurs illisible: " + e.getMessage(), e);
+        }
+        move(tmp, file);
+        return kept;
+    }
+
+    /**
+     * Multi-feuilles: garde les lignes dont le numéro de traitement ({@value #POSITIONS_FILE})
+     * est au plus {@code keepUpToRow}.
+     *
+     * @return Nombre de lignes conservées
+     */
+    private static int truncateAfter(Path file, Path positionsFile, int keepUpToRow) throws IOException {
+        Path tmp = file.resolveSibling(FILE + ".tmp");
+        Path positionsTmp = positionsFile.resolveSibling(POSITIONS_FILE + ".tmp");
+        int kept = 0;
+        try (CSVReader reader = new CSVReader(newReader(file));
+             DataInputStream positions = new DataInputStream(new BufferedInputStream(
+                 Files.exists(positionsFile) ? Files.newInputStream(positionsFile) : InputStream.nullInputStream()));
+             CSVWriter writer = newWriter(tmp, false);
+             DataOutputStream keptPositions = new DataOutputStream(
+                 new BufferedOutputStream(Files.newOutputStream(positionsTmp)))) {
+            String[] line = reader.readNext();
+            if (line != null) {
+                writer.writeNext(line, false);
+            }
+            while ((line = reader.readNext()) != null) {
+                int rowNumber;
+                try {
+                    rowNumber = positions.readInt();
+                } catch (EOFException e) {
+                    break; // Rapport interrompu: lignes sans position, retraitées
+                }
+                if (rowNumber <= keepUpToRow) {
+                    writer.writeNext(line, false);
+                    keptPositions.writeInt(rowNumber);
+                    kept++;
+                }
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException("Rapport d'erreurs illisible: " + e.getMessage(), e);
+        }
+        move(tmp, file);
+        move(positionsTmp, positionsFile);
+        return kept;
+    }
+
+    private static int rowNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static String[] headerLine(List<String> headers, boolean sheets) {
+        List<String> line = new ArrayList<>(headers);
+        line.add(ERROR_COLUMN);
+        if (sheets) {
+            line.add(SHEET_COLUMN);
+        }
+        line.add(ROW_COLUMN);
+        return line.toArray(String[]::new);
+    }
+
+    private static BufferedReader newReader(Path file) throws IOException {
+        return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    private static CSVWriter newWriter(Path file, boolean append) throws IOException {
+        BufferedWriter out = append
+            ? Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+            : Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        return new CSVWriter(out);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
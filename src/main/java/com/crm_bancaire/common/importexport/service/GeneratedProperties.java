@@ -0,0 +1,96 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.util.PropertyAccessor;
+import org.springframework.util.StringUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Propriétés d'une entité renseignées par sa sauvegarde: identifiant généré et
+ * version ({@code @Version} JPA ou Spring Data, sur le champ ou le getter).
+ */
+final class GeneratedProperties {
+
+    /**
+     * Propriété {@code @Version} par classe d'entité (vide si l'entité n'est pas versionnée).
+     */
+    private static final Map<Class<?>, Optional<PropertyAccessor>> VERSIONS = new ConcurrentHashMap<>();
+
+    private GeneratedProperties() {
+    }
+
+    /**
+     * Propriété {@code @Version} de l'entité, vide si elle n'est pas versionnée.
+     */
+    static Optional<PropertyAccessor> version(Class<?> type) {
+        return VERSIONS.computeIfAbsent(type, GeneratedProperties::findVersion);
+    }
+
+    /**
+     * Capture l'identifiant et la version des entités avant une écriture.
+     *
+     * @param idProperty Propriété identifiant (ignorée si l'entité ne la déclare pas)
+     * @return Action qui remet les valeurs capturées (après rollback de l'écriture)
+     */
+    static Runnable snapshot(List<Object> entities, String idProperty) {
+        List<Runnable> restores = new ArrayList<>();
+        for (Object entity : entities) {
+            Class<?> type = entity.getClass();
+            id(type, idProperty).ifPresent(id -> restores.add(restore(id, entity)));
+            version(type).ifPresent(version -> restores.add(restore(version, entity)));
+        }
+        return () -> restores.forEach(Runnable::run);
+    }
+
+    private static Runnable restore(PropertyAccessor property, Object entity) {
+        Object value = property.get(entity);
+        return () -> property.set(entity, value);
+    }
+
+    private static Optional<PropertyAccessor> id(Class<?> type, String idProperty) {
+        try {
+            return Optional.of(PropertyAccessor.of(type, idProperty));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Champ ou getter annoté {@code @Version} (jakarta.persistence ou Spring Data,
+     * reconnus par leur nom: aucune des deux n'est une dépendance de la librairie).
+     */
+    private static Optional<PropertyAccessor> findVersion(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (isVersion(field)) {
+                    return Optional.of(PropertyAccessor.of(type, field.getName()));
+                }
+            }
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getParameterCount() == 0 && isVersion(method)) {
+                    String name = method.getName();
+                    int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+                    return Optional.of(PropertyAccessor.of(type, StringUtils.uncapitalize(name.substring(prefix))));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isVersion(AnnotatedElement element) {
+        for (Annotation annotation : element.getDeclaredAnnotations()) {
+            if (annotation.annotationType().getSimpleName().equals("Version")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,334 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.dto.ImportError;
+import com.crm_bancaire.common.importexport.dto.ImportErrorSummary;
+import com.crm_bancaire.common.importexport.mapper.ImportFieldException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Erreurs d'une exécution d'import.
+ *
+ * Seules les {@code maxInline} premières erreurs sont gardées pour la réponse JSON;
+ * toutes les lignes en erreur sont écrites dans le {@link ErrorReport} du job.
+ * Les erreurs sont aussi regroupées par (champ, type d'erreur), avec les lignes en plages
+ * compressées: une colonne invalide sur tout le fichier donne un seul groupe, quelles que
+ * soient ses valeurs (type = message sans la valeur, voir {@link ImportFieldException#getKind()}).
+ * Les logs par ligne sont échantillonnés (les premières de chaque groupe), puis un
+ * résumé par groupe est loggé à la fin.
+ */
+@Slf4j
+final class ImportErrors implements Closeable {
+
+    /**
+     * Lignes loggées en WARN par groupe; les suivantes passent en DEBUG.
+     */
+    private static final int LOGGED_PER_GROUP = 5;
+
+    /**
+     * Nombre maximal de groupes: au-delà (messages de mappers contenant des valeurs), les erreurs
+     * sont comptées dans un groupe "Autres erreurs".
+     */
+    private static final int MAX_GROUPS = 100;
+
+    /**
+     * Plages de lignes gardées par groupe (la liste est ensuite tronquée).
+     */
+    private static final int MAX_RANGES = 20;
+
+    private static final int SAMPLE_ROWS = 5;
+
+    private final int maxInline;
+    private final List<ImportError> inline = new ArrayList<>();
+    private final Map<GroupKey, Group> groups = new LinkedHashMap<>();
+    private Group others;
+    private ErrorReport report;
+    private ImportError last;
+    private int count;
+
+    /**
+     * @param maxInline Nombre maximal d'erreurs détaillées dans la réponse
+     * @param report Rapport des lignes en erreur (null = pas de rapport)
+     */
+    ImportErrors(int maxInline, ErrorReport report) {
+        this.maxInline = Math.max(0, maxInline);
+        this.report = report;
+    }
+
+    /**
+     * Enregistre l'erreur d'une ligne.
+     *
+     * @param row Valeurs d'origine de la ligne (pour le rapport), null si inconnues
+     */
+    void add(ImportError error, Map<String, String> row) {
+        add(error, null, row);
+    }
+
+    /**
+     * Enregistre l'erreur d'une ligne.
+     *
+     * @param kind Type d'erreur sans la valeur, pour le regroupement (null = message de l'erreur)
+     * @param row Valeurs d'origine de la ligne (pour le rapport), null si inconnues
+     */
+    void add(ImportError error, String kind, Map<String, String> row) {
+        int rowNumber = error.getRow();
+        RowLocation.locate(error, row);
+        record(error);
+        group(error, kind).add(error);
+        report(rowNumber, error.getSheet(), error.getRow(), row, error.getMessage());
+    }
+
+    /**
+     * Enregistre une erreur portant sur tout un batch: une erreur comptée,
+     * mais chaque ligne du batch est reportée dans le rapport.
+     */
+    void addBatch(ImportError error, List<BatchWriter.PendingRow> rows) {
+        if (!rows.isEmpty()) {
+            RowLocation.locate(error, rows.get(0).row());
+        }
+        record(error);
+        Group group = group(error, null);
+        for (BatchWriter.PendingRow row : rows) {
+            String sheet = RowLocation.sheet(row.row());
+            int sourceRow = RowLocation.row(row.rowNumber(), row.row());
+            group.addRow(sheet, sourceRow);
+            report(row.rowNumber(), sheet, sourceRow, row.row(), error.getMessage());
+        }
+        group.log(error);
+    }
+
+    /**
+     * Nombre d'erreurs de cette exécution.
+     */
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Dernière erreur enregistrée (celle qui arrête un import FAIL_FAST).
+     */
+    ImportError last() {
+        return last;
+    }
+
+    /**
+     * Erreurs détaillées renvoyées dans la réponse.
+     */
+    List<ImportError> getInline() {
+        return inline;
+    }
+
+    /**
+     * Indique que des erreurs n'ont pas été gardées pour la réponse.
+     */
+    boolean isTruncated() {
+        return count > inline.size();
+    }
+
+    /**
+     * Erreurs regroupées par (champ, type d'erreur), les plus fréquentes d'abord.
+     */
+    List<ImportErrorSummary> getSummary() {
+        List<ImportErrorSummary> summary = new ArrayList<>(groups.size() + 1);
+        for (Group group : groups.values()) {
+            summary.add(group.toSummary());
+        }
+        if (others != null) {
+            summary.add(others.toSummary());
+        }
+        summary.sort((a, b) -> Integer.compare(b.getCount(), a.getCount()));
+        return summary;
+    }
+
+    /**
+     * Indique qu'un rapport téléchargeable contient des lignes en erreur.
+     */
+    boolean hasReport() {
+        return report != null && report.getWritten() > 0;
+    }
+
+    /**
+     * Ferme le rapport et logge le résumé des groupes dont des lignes n'ont pas été loggées.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Group group : groups.values()) {
+            group.logSuppressed();
+        }
+        if (others != null) {
+            others.logSuppressed();
+        }
+        if (report != null) {
+            report.close();
+        }
+    }
+
+    private void record(ImportError error) {
+        count++;
+        last = error;
+        if (inline.size() < maxInline) {
+            inline.add(error);
+        }
+    }
+
+    private Group group(ImportError error, String kind) {
+        GroupKey key = new GroupKey(error.getField(), kind != null ? kind : error.getMessage());
+        Group group = groups.get(key);
+        if (group == null) {
+            if (groups.size() >= MAX_GROUPS) {
+                if (others == null) {
+                    others = new Group(null, "Autres erreurs");
+                }
+                return others;
+            }
+            group = new Group(key.field(), key.message());
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    private void report(int rowNumber, String sheet, int sourceRow, Map<String, String> row, String message) {
+        if (report == null) {
+            return;
+        }
+        try {
+            report.write(rowNumber, sheet, sourceRow, row, message);
+        } catch (RuntimeException e) {
+            // Le rapport est un complément: son échec ne doit pas faire échouer l'import
+            log.warn("Could not write error report, disabled for this import: {}", e.getMessage());
+            closeReport();
+        }
+    }
+
+    private void closeReport() {
+        try {
+            report.close();
+        } catch (IOException e) {
+            log.debug("Could not close error report: {}", e.getMessage());
+        }
+        report = null;
+    }
+
+    private record GroupKey(String field, String message) {
+    }
+
+    /**
+     * Groupe d'erreurs: compteur et plages de lignes [début, fin] (tableau à plat),
+     * avec la feuille de chaque plage en import multi-feuilles.
+     */
+    private static final class Group {
+
+        private final String field;
+        private final String message;
+        private int[] ranges = new int[8];
+        private String[] rangeSheets = new String[4];
+        private int rangeCount;
+        private boolean rangesTruncated;
+        private int count;
+        private int logged;
+
+        Group(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        void add(ImportError error) {
+            addRow(error.getSheet(), error.getRow());
+            log(error);
+        }
+
+        void addRow(String sheet, int rowNumber) {
+            count++;
+            if (rangesTruncated) {
+                return;
+            }
+            if (rangeCount > 0 && ranges[2 * rangeCount - 1] + 1 == rowNumber
+                    && Objects.equals(rangeSheets[rangeCount - 1], sheet)) {
+                ranges[2 * rangeCount - 1] = rowNumber;
+                return;
+            }
+            if (rangeCount == MAX_RANGES) {
+                rangesTruncated = true;
+                return;
+            }
+            if (2 * rangeCount + 2 > ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                rangeSheets = Arrays.copyOf(rangeSheets, ranges.length / 2);
+            }
+            rangeSheets[rangeCount] = sheet;
+            ranges[2 * rangeCount] = rowNumber;
+            ranges[2 * rangeCount + 1] = rowNumber;
+            rangeCount++;
+        }
+
+        /**
+         * WARN pour les premières erreurs du groupe, DEBUG ensuite.
+         */
+        void log(ImportError error) {
+            if (logged < LOGGED_PER_GROUP) {
+                logged++;
+                log.warn("Error at row {}: {}", RowLocation.reference(error.getSheet(), error.getRow()),
+                    error.getMessage());
+            } else if (log.isDebugEnabled()) {
+                log.debug("Error at row {}: {}", RowLocation.reference(error.getSheet(), error.getRow()),
+                    error.getMessage());
+            }
+        }
+
+        void logSuppressed() {
+            if (count > logged) {
+                log.warn("{} rows failed with '{}'{} ({} not logged individually): rows {}",
+                    count, message, field != null ? " on field '" + field + "'" : "",
+                    count - logged, formatRanges());
+            }
+        }
+
+        ImportErrorSummary toSummary() {
+            List<Integer> samples = new ArrayList<>(SAMPLE_ROWS);
+            for (int i = 0; i < rangeCount && samples.size() < SAMPLE_ROWS; i++) {
+                for (int row = ranges[2 * i]; row <= ranges[2 * i + 1] && samples.size() < SAMPLE_ROWS; row++) {
+                    samples.add(row);
+                }
+            }
+            return ImportErrorSummary.builder()
+                .field(field)
+                .message(message)
+                .count(count)
+                .sampleRows(samples)
+                .rows(formatRanges())
+                .build();
+        }
+
+        private String formatRanges() {
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < rangeCount; i++) {
+                if (i > 0) {
+                    result.append(", ");
+                }
+                int start = ranges[2 * i];
+                int end = ranges[2 * i + 1];
+                result.append(RowLocation.reference(rangeSheets[i], start));
+                if (end != start) {
+                    result.append('-').append(end);
+                }
+            }
+            if (rangesTruncated) {
+                result.append(", ...");
+            }
+            return result.toString();
+        }
+
+    }
+}
@@ -0,0 +1,343 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contrôle d'admission des imports et exports, devant {@link ImportService} et
+ * {@link ExportService}: une opération ne démarre que si le nombre d'opérations en cours
+ * (global et par entité) et la mémoire réservée restent dans les limites de
+ * {@code import-export.admission.*}. Sinon elle attend dans une file, puis est refusée
+ * ({@link AdmissionRejectedException}) si la file est pleine ou l'attente trop longue.
+ *
+ * La mémoire d'une opération est estimée avant son démarrage (taille du fichier importé,
+ * taille de page exportée); une estimation supérieure au budget est ramenée au budget:
+ * l'opération démarre alors seule.
+ *
+ * Un import d'archive compte pour {@code import-export.archive.parallelism} opérations
+ * dans la limite globale (ses fichiers sont importés en parallèle), pour une seule dans la
+ * limite par entité. S'il dépasse à lui seul la limite globale, il démarre seul.
+ *
+ * Désactivé par défaut ({@code import-export.admission.enabled}): chaque opération est alors
+ * admise immédiatement.
+ *
+ * La file est servie dans l'ordre d'arrivée. Une requête ne passe devant une requête plus
+ * ancienne que si celle-ci attend la limite de sa propre entité: un gros import qui attend
+ * de la mémoire n'est pas doublé indéfiniment par de petits.
+ *
+ * Usage (appel direct des services, hors controller):
+ * <pre>
+ * ImportExportScheduler.Permit permit = scheduler.admitImport(entity, file.getOriginalFilename(), file.getSize());
+ * try {
+ *     return importService.importFile(file, service, mapper, annotation);
+ * } finally {
+ *     permit.close();
+ * }
+ * </pre>
+ */
+@Service
+@Slf4j
+public class ImportExportScheduler {
+
+    private static final String[] EXCEL_EXTENSIONS = {".xlsx", ".xlsb"};
+    private static final String[] COMPRESSED_EXTENSIONS = {".gz", ".gzip", ".zip"};
+
+    /**
+     * Poids de la dernière opération dans la durée moyenne (délai Retry-After).
+     */
+    private static final double DURATION_WEIGHT = 0.2;
+
+    private final ImportExportProperties.Admission settings;
+    private final boolean sharedStringsOnDisk;
+    private final int archiveParallelism;
+    private final long maxDecompressedSize;
+    private final long memoryBudget;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Ticket> queue = new ArrayDeque<>();
+    private final Map<String, Integer> runningByEntity = new HashMap<>();
+    private int running;
+    private long reservedMemory;
+    private double averageSeconds;
+
+    public ImportExportScheduler(ImportExportProperties properties) {
+        this.settings = properties.getAdmission();
+        this.sharedStringsOnDisk = properties.getXlsx().isSharedStringsOnDisk();
+        this.archiveParallelism = Math.max(1, properties.getArchive().getParallelism());
+        this.maxDecompressedSize = properties.getUpload().getMaxDecompressedSize().toBytes();
+        this.memoryBudget = settings.getMemoryBudget() != null
+            ? settings.getMemoryBudget().toBytes()
+            : Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     * Opération admise: libère sa place et sa mémoire réservée à la fermeture.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final Ticket ticket;
+        private boolean closed;
+
+        private Permit(Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (ticket != null) {
+                release(ticket);
+            }
+        }
+    }
+
+    /**
+     * Admission d'un import de fichier.
+     *
+     * @param filename Nom du fichier uploadé (.xlsx/.xlsb: estimation selon la taille;
+     *                 .xlsx.gz, .xlsx.zip: selon {@code import-export.upload.max-decompressed-size})
+     * @param size Taille du fichier uploadé, en octets
+     * @throws AdmissionRejectedException File pleine ou attente trop longue
+     */
+    public Permit admitImport(String entity, String filename, long size) {
+        return admit("import", entity, importMemory(filename, size));
+    }
+
+    /**
+     * Admission d'un import d'archive: ses fichiers sont importés par
+     * {@code import-export.archive.parallelism}, l'archive compte pour autant d'opérations
+     * dans la limite globale.
+     *
+     * @param size Taille de l'archive, en octets
+     * @throws AdmissionRejectedException File pleine ou attente trop longue
+     */
+    public Permit admitArchive(String entity, long size) {
+        long memory = settings.getImportMemory().toBytes() * archiveParallelism;
+        if (!sharedStringsOnDisk) {
+            // Les entrées Excel de l'archive ne sont pas connues avant sa lecture
+            memory += size * settings.getExcelMemoryFactor();
+        }
+        return admit("archive import", entity, archiveParallelism, memory);
+    }
+
+    /**
+     * Admission d'un export.
+     *
+     * @param queryParams Paramètres de l'export ({@code page}/{@code size}: export paginé)
+     * @throws AdmissionRejectedException File pleine ou attente trop longue
+     */
+    public Permit admitExport(String entity, Map<String, String> queryParams) {
+        long memory = settings.getUnpagedExportMemory().toBytes();
+        try {
+            if (queryParams.get("page") != null && queryParams.get("size") != null) {
+                long size = Math.max(1, Long.parseLong(queryParams.get("size")));
+                memory = Math.multiplyExact(size, settings.getExportRowMemory().toBytes());
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            // Pagination invalide ou démesurée: estimation d'un export non paginé
+        }
+        return admit("export", entity, memory);
+    }
+
+    /**
+     * Admission d'une opération dont la mémoire est déjà estimée.
+     *
+     * @param operation Libellé pour les logs ("import", "export"...)
+     * @param memory Estimation de la mémoire utilisée, en octets
+     * @throws AdmissionRejectedException File pleine ou attente trop longue
+     */
+    public Permit admit(String operation, String entity, long memory) {
+        return admit(operation, entity, 1, memory);
+    }
+
+    /**
+     * @param slots Opérations comptées dans la limite globale (imports parallèles d'une archive)
+     */
+    private Permit admit(String operation, String entity, int slots, long memory) {
+        if (!settings.isEnabled()) {
+            return new Permit(null);
+        }
+        Ticket ticket = new Ticket(operation, entity, slots, Math.min(Math.max(0, memory), memoryBudget));
+
+        lock.lock();
+        try {
+            if (queue.size() >= settings.getMaxQueued()) {
+                throw reject(ticket, "Trop d'imports/exports en attente (" + queue.size() + ")");
+            }
+            queue.addLast(ticket);
+            long remaining = settings.getQueueTimeout().toNanos();
+            boolean admitted = false;
+            try {
+                while (!isNext(ticket) || !fits(ticket)) {
+                    if (remaining <= 0) {
+                        throw reject(ticket, "Trop d'imports/exports en cours, attente de plus de "
+                            + settings.getQueueTimeout().toSeconds() + " s");
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+                admitted = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(ticket, "Attente d'admission interrompue");
+            } finally {
+                queue.remove(ticket);
+                if (!admitted) {
+                    // La requête suivante est peut-être devenue la première admissible
+                    changed.signalAll();
+                }
+            }
+
+            running += ticket.slots;
+            runningByEntity.merge(entity, 1, Integer::sum);
+            reservedMemory += ticket.memory;
+            ticket.started = System.nanoTime();
+            // Une autre requête de la file peut démarrer en même temps (autre entité)
+            changed.signalAll();
+            log.debug("Admitted {} for entity '{}' ({} running, {} MB reserved, {} queued)", operation, entity,
+                running, reservedMemory / (1024 * 1024), queue.size());
+            return new Permit(ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opérations en cours (un import d'archive compte pour {@code archive.parallelism}).
+     */
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requêtes en attente d'admission.
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Ticket ticket) {
+        lock.lock();
+        try {
+            running -= ticket.slots;
+            runningByEntity.computeIfPresent(ticket.entity, (entity, count) -> count > 1 ? count - 1 : null);
+            reservedMemory -= ticket.memory;
+            double seconds = (System.nanoTime() - ticket.started) / 1e9;
+            averageSeconds = averageSeconds == 0 ? seconds : averageSeconds + DURATION_WEIGHT * (seconds - averageSeconds);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Première requête de la file dont l'entité a une place libre.
+     */
+    private boolean isNext(Ticket ticket) {
+        for (Ticket waiting : queue) {
+            if (runningByEntity.getOrDefault(waiting.entity, 0) < settings.getMaxConcurrentPerEntity()) {
+                return waiting == ticket;
+            }
+        }
+        return false;
+    }
+
+    private boolean fits(Ticket ticket) {
+        return (running == 0 || running + ticket.slots <= settings.getMaxConcurrent())
+            && runningByEntity.getOrDefault(ticket.entity, 0) < settings.getMaxConcurrentPerEntity()
+            && (running == 0 || reservedMemory + ticket.memory <= memoryBudget);
+    }
+
+    private AdmissionRejectedException reject(Ticket ticket, String reason) {
+        long retryAfter = retryAfterSeconds();
+        log.warn("Rejected {} for entity '{}': {} running, {} queued, {} MB reserved", ticket.operation,
+            ticket.entity, running, queue.size(), reservedMemory / (1024 * 1024));
+        return new AdmissionRejectedException(reason + ": réessayer dans " + retryAfter + " s", retryAfter);
+    }
+
+    /**
+     * Délai avant qu'une place se libère probablement: durée moyenne des opérations,
+     * rapportée aux requêtes en attente (durée d'attente maximale tant qu'aucune n'est terminée).
+     */
+    private long retryAfterSeconds() {
+        if (averageSeconds == 0) {
+            return Math.max(1, settings.getQueueTimeout().toSeconds());
+        }
+        double waves = (queue.size() + 1.0) / Math.max(1, settings.getMaxConcurrent());
+        return Math.max(1, (long) Math.ceil(averageSeconds * waves));
+    }
+
+    private long importMemory(String filename, long size) {
+        long memory = settings.getImportMemory().toBytes();
+        if (filename == null || sharedStringsOnDisk) {
+            return memory;
+        }
+        String name = filename.toLowerCase();
+        String workbook = withoutCompressedExtension(name);
+        if (isExcel(workbook)) {
+            // Classeur compressé: taille décompressée inconnue avant lecture, bornée par max-decompressed-size
+            long workbookSize = workbook.equals(name) ? Math.max(0, size) : maxDecompressedSize;
+            memory += workbookSize * settings.getExcelMemoryFactor();
+        }
+        return memory;
+    }
+
+    private static String withoutCompressedExtension(String name) {
+        for (String extension : COMPRESSED_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return name.substring(0, name.length() - extension.length());
+            }
+        }
+        return name;
+    }
+
+    private static boolean isExcel(String name) {
+        for (String extension : EXCEL_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Requête d'admission (en attente puis en cours).
+     */
+    private static final class Ticket {
+
+        private final String operation;
+        private final String entity;
+        private final int slots;
+        private final long memory;
+        private long started;
+
+        Ticket(String operation, String entity, int slots, long memory) {
+            this.operation = operation;
+            this.entity = entity;
+            this.slots = slots;
+            this.memory = memory;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.enums.ImportJobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Import conservé sur disque: copie du fichier uploadé, métadonnées et journal des checkpoints.
+ *
+ * Répertoire du job:
+ * <pre>
+ * {jobId}/job.properties   entité, nom du fichier, état, nombre de lignes
+ * {jobId}/upload.{ext}     copie du fichier uploadé
+ * {jobId}/journal.log      une ligne par batch commité: "ligne sauvegardées misesÀJour erreurs"
+ * {jobId}/errors.csv       lignes en erreur (rapport téléchargeable)
+ * </pre>
+ */
+@Slf4j
+final class ImportJob {
+
+    private static final String METADATA_FILE = "job.properties";
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String UPLOAD_FILE = "upload";
+
+    /**
+     * Dernière ligne traitée et commitée, avec les compteurs à cet instant.
+     * Les lignes jusqu'à {@code row} incluse ne sont pas retraitées lors d'une reprise.
+     */
+    record Checkpoint(int row, int saved, int updated, int errors) {
+
+        /**
+         * Aucun checkpoint: reprise depuis la première ligne de données (ligne 1 = headers).
+         */
+        static final Checkpoint START = new Checkpoint(1, 0, 0, 0);
+
+        boolean isStart() {
+            return row <= START.row();
+        }
+    }
+
+    private final String id;
+    private final Path directory;
+    private final Properties metadata;
+
+    private ImportJob(String id, Path directory, Properties metadata) {
+        this.id = id;
+        this.directory = directory;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Crée le job et copie le fichier uploadé dans son répertoire.
+     */
+    static ImportJob create(String id, Path directory, String entity, MultipartFile file) throws IOException {
+        Files.createDirectories(directory);
+        Properties metadata = new Properties();
+        metadata.setProperty("entity", entity);
+        metadata.setProperty("filename", file.getOriginalFilename() != null ? file.getOriginalFilename() : "");
+        metadata.setProperty("createdAt", Instant.now().toString());
+        metadata.setProperty("status", ImportJobStatus.RUNNING.name());
+
+        ImportJob job = new ImportJob(id, directory, metadata);
+        try {
+            SpooledUpload.copy(file, job.uploadPath());
+            job.saveMetadata();
+        } catch (IOException e) {
+            // Copie incomplète (upload interrompu, archive trop volumineuse): pas de job
+            FileSystemUtils.deleteRecursively(directory);
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Recharge un job existant.
+     */
+    static ImportJob load(String id, Path directory) throws IOException {
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve(METADATA_FILE))) {
+            metadata.load(in);
+        }
+        return new ImportJob(id, directory, metadata);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    String getEntity() {
+        return metadata.getProperty("entity");
+    }
+
+    String getFilename() {
+        return metadata.getProperty("filename");
+    }
+
+    Instant getCreatedAt() {
+        return Instant.parse(metadata.getProperty("createdAt"));
+    }
+
+    synchronized ImportJobStatus getStatus() {
+        return ImportJobStatus.valueOf(metadata.getProperty("status"));
+    }
+
+    synchronized void setStatus(ImportJobStatus status) {
+        metadata.setProperty("status", status.name());
+        try {
+            saveMetadata();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Nombre de lignes de données du fichier (0 tant qu'il n'est pas compté).
+     */
+    synchronized int getTotalRows() {
+        return Integer.parseInt(metadata.getProperty("totalRows", "0"));
+    }
+
+    synchronized void setTotalRows(int totalRows) {
+        metadata.setProperty("totalRows", String.valueOf(totalRows));
+        try {
+            saveMetadata();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copie locale du fichier uploadé.
+     */
+    SpooledUpload upload() {
+        return SpooledUpload.existing(uploadPath(), getFilename());
+    }
+
+    /**
+     * Ajoute un checkpoint au journal.
+     *
+     * Écriture en append sans fsync: le journal survit à un redémarrage du process
+     * (cache du système de fichiers), un checkpoint perdu fait seulement retraiter un batch.
+     */
+    void checkpoint(Checkpoint checkpoint) {
+        String line = checkpoint.row() + " " + checkpoint.saved() + " " + checkpoint.updated() + " "
+            + checkpoint.errors() + "\n";
+        try {
+            Files.writeString(directory.resolve(JOURNAL_FILE), line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // Un checkpoint manquant ne fait pas échouer l'import
+            log.warn("Could not write checkpoint for import job {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Dernier checkpoint complet du journal ({@link Checkpoint#START} si aucun).
+     */
+    Checkpoint lastCheckpoint() throws IOException {
+        Path journal = directory.resolve(JOURNAL_FILE);
+        if (!Files.exists(journal)) {
+            return Checkpoint.START;
+        }
+        List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            String[] parts = lines.get(i).trim().split(" ");
+            if (parts.length == 4) {
+                try {
+                    return new Checkpoint(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                } catch (NumberFormatException e) {
+                    // Ligne tronquée (arrêt pendant l'écriture): on prend la précédente
+                }
+            }
+        }
+        return Checkpoint.START;
+    }
+
+    private Path uploadPath() {
+        String filename = getFilename();
+        int dot = filename.lastIndexOf('.');
+        return directory.resolve(UPLOAD_FILE + (dot >= 0 ? filename.substring(dot) : ""));
+    }
+
+    private void saveMetadata() throws IOException {
+        Path tmp = directory.resolve(METADATA_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            metadata.store(out, "Import job " + id);
+        }
+        try {
+            Files.move(tmp, directory.resolve(METADATA_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, directory.resolve(METADATA_FILE), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage local des imports (jobs) dans {@code import-export.jobs.directory}.
+ *
+ * Aucun service externe: un job est un répertoire, repris tant qu'il n'a pas expiré
+ * ({@code import-export.jobs.retention}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobStore {
+
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+
+    private final ImportExportProperties properties;
+
+    /**
+     * Jobs en cours d'exécution dans cette instance (une seule exécution par job).
+     */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Crée un job et copie le fichier uploadé sur disque.
+     */
+    ImportJob create(String entity, MultipartFile file) throws IOException {
+        purgeExpired();
+        String id = UUID.randomUUID().toString();
+        return ImportJob.create(id, directory().resolve(id), entity, file);
+    }
+
+    /**
+     * Recherche un job existant.
+     *
+     * @param id Identifiant du job (UUID)
+     * @return Le job, vide si inconnu ou expiré
+     */
+    Optional<ImportJob> find(String id) throws IOException {
+        if (id == null || !JOB_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Path jobDirectory = directory().resolve(id);
+        if (!Files.isDirectory(jobDirectory)) {
+            return Optional.empty();
+        }
+        return Optional.of(ImportJob.load(id, jobDirectory));
+    }
+
+    /**
+     * Supprime un job refusé avant traitement (format non supporté).
+     */
+    void delete(ImportJob job) {
+        try {
+            FileSystemUtils.deleteRecursively(job.getDirectory());
+        } catch (IOException e) {
+            log.warn("Could not delete import job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Réserve l'exécution d'un job.
+     *
+     * @return false si le job est déjà en cours dans cette instance
+     */
+    boolean acquire(ImportJob job) {
+        return running.add(job.getId());
+    }
+
+    void release(ImportJob job) {
+        running.remove(job.getId());
+    }
+
+    boolean isRunning(ImportJob job) {
+        return running.contains(job.getId());
+    }
+
+    /**
+     * Supprime les jobs expirés (hors jobs en cours).
+     */
+    void purgeExpired() {
+        Path root = directory();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant limit = Instant.now().minus(properties.getJobs().getRetention());
+        try (DirectoryStream<Path> jobs = Files.newDirectoryStream(root)) {
+            for (Path jobDirectory : jobs) {
+                String id = jobDirectory.getFileName().toString();
+                if (!JOB_ID.matcher(id).matches() || running.contains(id)) {
+                    continue;
+                }
+                try {
+                    if (ImportJob.load(id, jobDirectory).getCreatedAt().isBefore(limit)) {
+                        FileSystemUtils.deleteRecursively(jobDirectory);
+                        log.debug("Purged expired import job {}", id);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not purge import job {}: {}", id, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list import jobs in {}: {}", root, e.getMessage());
+        }
+    }
+
+    private Path directory() {
+        return properties.getJobs().getDirectory();
+    }
+}
@@ -1,19 +1,36 @@
 package com.crm_bancaire.common.importexport.service;
 
 import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.dto.ImportBatchStats;
 import com.crm_bancaire.common.importexport.dto.ImportError;
+import com.crm_bancaire.common.importexport.dto.ImportJobResponse;
 import com.crm_bancaire.common.importexport.dto.ImportResponse;
+import com.crm_bancaire.common.importexport.enums.ExportFormat;
 import com.crm_bancaire.common.importexport.enums.FailureStrategy;
+import com.crm_bancaire.common.importexport.enums.ImportJobStatus;
+import com.crm_bancaire.common.importexport.enums.ImportMode;
+import com.crm_bancaire.common.importexport.enums.TransactionMode;
+import com.crm_bancaire.common.importexport.mapper.ImportContext;
+import com.crm_bancaire.common.importexport.mapper.ImportFieldException;
 import com.crm_bancaire.common.importexport.mapper.ImportMapper;
 import com.crm_bancaire.common.importexport.parser.FileParser;
+import com.crm_bancaire.common.importexport.parser.RowReader;
+import com.crm_bancaire.common.importexport.service.ImportJob.Checkpoint;
+import com.crm_bancaire.common.importexport.service.SpooledUpload.DecompressedSizeExceededException;
+import com.crm_bancaire.common.importexport.validation.DropdownDomain;
+import com.crm_bancaire.common.importexport.validation.DuplicateDetector;
+import com.crm_bancaire.common.importexport.validation.EntityValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
@@ -27,11 +44,19 @@ import java.util.*;
 public class ImportService {
 
     private final List<FileParser> parsers;
-    private final Validator validator;
+    private final EntityValidator entityValidator;
+    private final ObjectProvider<ImportTransactionSupport> transactionSupport;
+    private final ObjectProvider<JdbcImportSupport> jdbcSupport;
+    private final ChangeIndexStore changeIndexStore;
+    private final ImportJobStore jobStore;
+    private final ImportExportProperties properties;
 
     /**
      * Importe un fichier Excel/CSV vers une liste d'entités.
      *
+     * Le fichier est copié localement puis lu ligne par ligne (parsers streaming):
+     * seules les entités du batch en cours sont gardées en mémoire.
+     *
      * @param file Fichier uploadé
      * @param targetService Service cible (avec @Importable)
      * @param mapper ImportMapper pour convertir les lignes
@@ -47,31 +72,201 @@ public class ImportService {
         Instant start = Instant.now();
         log.info("Starting import for entity '{}' from file '{}'", annotation.entity(), file.getOriginalFilename());
 
+        // 1. Copie locale du fichier (job), relue par chaque passe et lors d'une reprise
+        ImportJob job;
         try {
-            // 1. Trouver le bon parser
-            FileParser parser = findParser(file.getOriginalFilename());
-            if (parser == null) {
-                return ImportResponse.builder()
-                    .success(false)
-                    .message("Format de fichier non supporté: " + file.getOriginalFilename())
-                    .build();
-            }
+            job = jobStore.create(annotation.entity(), file);
+        } catch (IOException e) {
+            log.error("Could not spool upload for entity '{}'", annotation.entity(), e);
+            return failure(start, "Erreur lors de l'import: " + e.getMessage());
+        }
 
-            // 2. Parser le fichier
-            List<Map<String, String>> rows = parser.parse(file);
-            log.info("Parsed {} rows from file", rows.size());
+        // 2. Trouver le bon parser (d'après le fichier contenu pour un upload .gz/.zip)
+        FileParser parser;
+        try {
+            parser = findParser(job.upload());
+        } catch (IOException | IllegalArgumentException e) {
+            jobStore.delete(job);
+            return failure(start, e.getMessage());
+        }
+        if (parser == null) {
+            jobStore.delete(job);
+            return ImportResponse.builder()
+                .success(false)
+                .message("Format de fichier non supporté: " + file.getOriginalFilename())
+                .build();
+        }
+        return runJob(job, parser, targetService, mapper, annotation, start);
+    }
 
-            // 3. Valider le nombre de lignes
-            if (rows.size() > annotation.maxRows()) {
-                return ImportResponse.builder()
-                    .success(false)
-                    .totalRows(rows.size())
-                    .message("Trop de lignes dans le fichier. Maximum autorisé: " + annotation.maxRows())
-                    .build();
+    /**
+     * Reprend un import interrompu (redémarrage, erreur) depuis son dernier checkpoint,
+     * sans nouvel upload: les lignes déjà commitées ne sont pas retraitées.
+     *
+     * @param jobId Identifiant retourné dans ImportResponse.jobId
+     * @param targetService Service cible (avec @Importable)
+     * @param mapper ImportMapper pour convertir les lignes
+     * @param annotation Annotation @Importable
+     * @return ImportResponse (compteurs cumulés depuis le début de l'import)
+     */
+    public ImportResponse resumeImport(
+            String jobId,
+            Object targetService,
+            ImportMapper<?> mapper,
+            Importable annotation
+    ) {
+        Instant start = Instant.now();
+        ImportJob job;
+        try {
+            job = jobStore.find(jobId)
+                .filter(found -> found.getEntity().equals(annotation.entity()))
+                .orElse(null);
+        } catch (IOException e) {
+            log.error("Could not load import job {}", jobId, e);
+            return failure(start, "Erreur lors de la reprise: " + e.getMessage());
+        }
+
+        if (job == null) {
+            return failure(start, "Import introuvable: " + jobId);
+        }
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            return failure(start, "Import déjà terminé: " + jobId);
+        }
+        FileParser parser;
+        try {
+            parser = job.upload().exists() ? findParser(job.upload()) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            parser = null;
+        }
+        if (parser == null) {
+            return failure(start, "Fichier de l'import introuvable: " + jobId);
+        }
+
+        log.info("Resuming import job {} for entity '{}'", jobId, annotation.entity());
+        return runJob(job, parser, targetService, mapper, annotation, start);
+    }
+
+    /**
+     * État et progression d'un import, lisible pendant son exécution.
+     *
+     * La progression suit les checkpoints (un par batch commité); en PER_FILE,
+     * elle reste à 0 jusqu'à la fin de l'import.
+     *
+     * @param jobId Identifiant retourné dans ImportResponse.jobId
+     * @param annotation Annotation @Importable (l'entité doit correspondre au job)
+     * @return État du job, vide si inconnu
+     */
+    public Optional<ImportJobResponse> getJob(String jobId, Importable annotation) throws IOException {
+        Optional<ImportJob> found = jobStore.find(jobId)
+            .filter(job -> job.getEntity().equals(annotation.entity()));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ImportJob job = found.get();
+        ImportJobStatus status = job.getStatus();
+        Checkpoint checkpoint = job.lastCheckpoint();
+        SpooledUpload upload = job.upload();
+        int totalRows = job.getTotalRows();
+        int processedRows = status == ImportJobStatus.COMPLETED ? totalRows : checkpoint.row() - 1;
+        return Optional.of(ImportJobResponse.builder()
+            .jobId(job.getId())
+            .entity(job.getEntity())
+            .filename(job.getFilename())
+            .uploadSize(upload.exists() ? Files.size(upload.getFile()) : 0)
+            .status(status)
+            .totalRows(totalRows)
+            .processedRows(processedRows)
+            .successCount(checkpoint.saved())
+            .errorCount(checkpoint.errors())
+            .progress(totalRows > 0 ? (int) Math.min(100, processedRows * 100L / totalRows) : 0)
+            .build());
+    }
+
+    /**
+     * Rapport des lignes en erreur d'un import terminé ou interrompu.
+     *
+     * @param jobId Identifiant retourné dans ImportResponse.jobId
+     * @param annotation Annotation @Importable (l'entité doit correspondre au job)
+     * @param format CSV (fichier écrit pendant l'import) ou XLSX (converti au premier téléchargement)
+     * @return Fichier du rapport, vide si le job est inconnu, en cours ou sans erreur
+     */
+    public Optional<Path> getErrorReport(String jobId, Importable annotation, ExportFormat format)
+            throws IOException {
+        Optional<ImportJob> job = jobStore.find(jobId)
+            .filter(found -> found.getEntity().equals(annotation.entity()))
+            .filter(found -> !jobStore.isRunning(found));
+        if (job.isEmpty() || !ErrorReport.exists(job.get().getDirectory())) {
+            return Optional.empty();
+        }
+        Path directory = job.get().getDirectory();
+        return Optional.of(format == ExportFormat.XLSX
+            ? ErrorReport.toXlsx(directory)
+            : directory.resolve(ErrorReport.FILE));
+    }
+
+    /**
+     * Exécute un job (nouvel import ou reprise) et met à jour son état.
+     */
+    private ImportResponse runJob(ImportJob job, FileParser parser, Object targetService, ImportMapper<?> mapper,
+                                  Importable annotation, Instant start) {
+        if (!jobStore.acquire(job)) {
+            ImportResponse response = failure(start, "Import déjà en cours: " + job.getId());
+            response.setJobId(job.getId());
+            return response;
+        }
+
+        ImportResponse response;
+        try {
+            updateStatus(job, ImportJobStatus.RUNNING);
+            response = executeJob(job, parser, targetService, mapper, annotation, start);
+
+            // SKIP_ERRORS traite toujours le fichier jusqu'au bout; sinon un échec reste reprenable
+            // (un fichier rejeté avant traitement - colonnes manquantes, trop de lignes - est en échec)
+            boolean completed = response.isSuccess()
+                || (annotation.failureStrategy() == FailureStrategy.SKIP_ERRORS && response.getTotalRows() > 0);
+            updateStatus(job, completed ? ImportJobStatus.COMPLETED : ImportJobStatus.FAILED);
+            if (completed) {
+                job.upload().delete();
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof RowsFailedException && e.getCause() != null ? e.getCause() : e;
+            DecompressedSizeExceededException tooLarge = DecompressedSizeExceededException.in(e);
+            updateStatus(job, ImportJobStatus.FAILED);
+            if (tooLarge != null) {
+                log.info("Import job {} rejected: {}", job.getId(), tooLarge.getMessage());
+                response = failure(start, tooLarge.getMessage());
+            } else {
+                log.error("Import job {} failed for entity '{}'", job.getId(), annotation.entity(), cause);
+                response = failure(start, "Erreur lors de l'import: " + cause.getMessage());
+            }
+        } finally {
+            jobStore.release(job);
+        }
+        response.setJobId(job.getId());
+        return response;
+    }
+
+    private ImportResponse executeJob(ImportJob job, FileParser parser, Object targetService, ImportMapper<?> mapper,
+                                      Importable annotation, Instant start) throws Exception {
+        ImportContext context = null;
+        DuplicateDetector duplicates = null;
+        try {
+            SpooledRows rows = new SpooledRows(parser, job.upload(), annotation.allSheets(),
+                properties.getUpload().getMaxDecompressedSize().toBytes());
+            Checkpoint resumed = job.lastCheckpoint();
+
+            // 3. Pré-scan (sans parsing): un fichier trop gros est rejeté avant toute lecture des valeurs
+            int maxRows = annotation.maxRows();
+            int limit = maxRows == Integer.MAX_VALUE ? maxRows : maxRows + 1;
+            int scannedRows = rows.scan(limit);
+            if (scannedRows > maxRows) {
+                log.info("Pre-scan rejected file with more than {} rows", maxRows);
+                return tooManyRows(maxRows);
             }
 
             // 4. Valider les headers
-            Set<String> fileHeaders = rows.isEmpty() ? Set.of() : rows.get(0).keySet();
+            List<String> fileHeaders = rows.headers();
             List<String> requiredColumns = mapper.getRequiredColumns();
             List<String> missingColumns = requiredColumns.stream()
                 .filter(col -> !fileHeaders.contains(col))
@@ -84,217 +279,440 @@ public class ImportService {
                     .build();
             }
 
-            // 5. Mapper, valider et sauvegarder
-            List<Object> entities = new ArrayList<>();
-            List<ImportError> errors = new ArrayList<>();
-            FailureStrategy strategy = annotation.failureStrategy();
-            int savedCount = 0;
+            // Nombre exact de lignes (pré-scan réutilisé s'il est exact, comptage arrêté à maxRows sinon)
+            int totalRows = rows.count(limit);
+            log.info("Parsed {} rows from file", totalRows);
+            if (totalRows > maxRows) {
+                return tooManyRows(maxRows);
+            }
+            job.setTotalRows(totalRows);
+
+            // 5. Contexte d'import (lookups mémoïsés) et préchargement
+            context = new ImportContext(annotation.entity(), rows);
+            mapper.prepare(context);
+
+            // Domaines des listes déroulantes (construits une fois pour tout le fichier)
+            DropdownDomain dropdowns = annotation.validateDropdowns()
+                ? DropdownDomain.of(mapper.getAcceptedValues(), fileHeaders)
+                : null;
+
+            // Doublons de clé dans le fichier (index de hashs, clé exacte relue sur collision)
+            duplicates = DuplicateDetector.of(annotation.uniqueColumns(), fileHeaders, totalRows);
+
+            // Détection des lignes inchangées depuis le dernier import
+            ChangeTracker changes = annotation.skipUnchanged()
+                ? changeIndexStore.tracker(annotation, fileHeaders)
+                : null;
+
+            // 6. Mapper, valider et sauvegarder (dans la transaction du fichier si PER_FILE)
+            ImportSink sink = createSink(targetService, annotation);
+            TransactionMode transactionMode = resolveTransactionMode(annotation);
+            ImportPlan plan = new ImportPlan(job, resumed, rows, totalRows, mapper, context, dropdowns, duplicates,
+                changes, annotation, sink, transactionMode, start);
+
+            ImportResponse response = annotation.failureStrategy() == FailureStrategy.COLLECT_ALL
+                ? validateThenSave(plan)
+                : inFileTransaction(plan, rollbackOnly -> processRows(plan, rollbackOnly));
+
+            if (changes != null) {
+                // En PER_FILE, un import en échec a été rollback: l'index ne doit pas bouger
+                if (transactionMode != TransactionMode.PER_FILE || response.isSuccess()) {
+                    changes.publish();
+                }
+                if (changes.getUnchangedCount() > 0) {
+                    response.setUnchangedCount(changes.getUnchangedCount());
+                    response.setMessage(response.getMessage()
+                        + String.format(" (%d ligne(s) inchangée(s) ignorée(s))", changes.getUnchangedCount()));
+                }
+            }
+            if (!resumed.isStart()) {
+                response.setMessage(response.getMessage() + " (reprise après la ligne " + resumed.row() + ")");
+            }
+            return response;
 
-            // Trouver la méthode de sauvegarde
-            Method saveMethod = findSaveMethod(targetService, annotation);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            closeQuietly(duplicates);
+        }
+    }
 
-            for (int i = 0; i < rows.size(); i++) {
-                int rowNumber = i + 2; // Ligne 1 = headers, donc data commence à 2
-                Map<String, String> row = rows.get(i);
+    /**
+     * Mappe, valide et sauvegarde les lignes en une passe (SKIP_ERRORS, FAIL_FAST).
+     *
+     * @param rollbackOnly Demande de rollback de la transaction du fichier (null hors PER_FILE)
+     */
+    private ImportResponse processRows(ImportPlan plan, Runnable rollbackOnly) throws Exception {
+        FailureStrategy strategy = plan.annotation().failureStrategy();
+        int total = plan.totalRows();
+
+        try (ImportErrors errors = createErrors(plan, plan.resumed().row());
+             RowReader reader = plan.rows().open()) {
+            BatchWriter writer = createWriter(plan, errors);
+
+            int rowNumber = 1; // Ligne 1 = headers, donc data commence à 2
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                rowNumber++;
+                if (rowNumber <= plan.resumed().row()) {
+                    skipCommittedRow(plan, rowNumber, row);
+                    continue;
+                }
 
                 try {
-                    // Mapper la ligne
-                    Object entity = mapper.mapRow(row, rowNumber);
-
-                    // Validation custom du mapper
-                    validateEntity(mapper, entity, rowNumber);
-
-                    // Bean Validation
-                    Set<ConstraintViolation<Object>> violations = validator.validate(entity);
-                    if (!violations.isEmpty()) {
-                        ConstraintViolation<Object> first = violations.iterator().next();
-                        throw new IllegalArgumentException(first.getMessage());
+                    // Pour SKIP_ERRORS et FAIL_FAST, sauvegarde par batch
+                    Object entity = checkAndMap(plan, rowNumber, row);
+                    if (entity != null) {
+                        writer.add(rowNumber, row, entity);
                     }
 
-                    // Pour COLLECT_ALL, on collecte sans sauvegarder
-                    if (strategy == FailureStrategy.COLLECT_ALL) {
-                        entities.add(entity);
-                    } else {
-                        // Pour SKIP_ERRORS et FAIL_FAST, on sauvegarde immédiatement
-                        try {
-                            saveMethod.invoke(targetService, entity);
-                            savedCount++;
-                        } catch (Exception saveEx) {
-                            Throwable cause = saveEx.getCause() != null ? saveEx.getCause() : saveEx;
-                            throw new RuntimeException(cause.getMessage(), cause);
+                } catch (Exception e) {
+                    ImportError error = toError(rowNumber, e);
+
+                    // Stratégie de gestion d'erreur
+                    if (strategy == FailureStrategy.FAIL_FAST) {
+                        // Sauvegarder d'abord les lignes précédentes (sauf si tout sera rollback)
+                        if (rollbackOnly == null) {
+                            writer.flush();
                         }
+                        if (writer.hasFailed()) {
+                            break; // Une ligne précédente a échoué à la sauvegarde: c'est elle qui arrête l'import
+                        }
+                        errors.add(error, kind(e), row);
+                        return failFast(plan, writer, errors, rollbackOnly,
+                            "Import arrêté à la " + RowLocation.describe(error) + ": " + e.getMessage());
                     }
+                    errors.add(error, kind(e), row);
+                }
 
-                } catch (Exception e) {
-                    ImportError error = ImportError.builder()
-                        .row(rowNumber)
-                        .message(e.getMessage())
-                        .build();
-                    errors.add(error);
+                if (writer.hasFailed()) {
+                    ImportError saveError = errors.last();
+                    return failFast(plan, writer, errors, rollbackOnly,
+                        "Import arrêté à la " + RowLocation.describe(saveError) + ": " + saveError.getMessage());
+                }
+            }
 
-                    log.warn("Error at row {}: {}", rowNumber, e.getMessage());
+            writer.flush();
+            if (writer.hasFailed()) {
+                return failFast(plan, writer, errors, rollbackOnly,
+                    "Erreur lors de la sauvegarde: " + errors.last().getMessage());
+            }
 
-                    // Stratégie de gestion d'erreur
-                    if (strategy == FailureStrategy.FAIL_FAST) {
-                        return buildResponse(start, rows.size(), savedCount, errors, false,
-                            "Import arrêté à la ligne " + rowNumber + ": " + e.getMessage());
+            // 7. Construire la réponse
+            int savedCount = writer.getSavedCount();
+            int errorCount = errorCount(plan, errors);
+            boolean success = errorCount == 0 || (strategy == FailureStrategy.SKIP_ERRORS && savedCount > 0);
+            String message = buildSuccessMessage(total, savedCount, errorCount, strategy);
+
+            return withSuperseded(buildResponse(plan, savedCount, writer.getUpdatedCount(), errors, success,
+                message, writer.getBatchStats()), writer);
+        }
+    }
+
+    /**
+     * COLLECT_ALL en deux passes: la première valide toutes les lignes sans garder les entités;
+     * si aucune erreur, la seconde relit le fichier et sauvegarde par batch.
+     * La mémoire dépend de batchSize, pas de la taille du fichier.
+     */
+    private ImportResponse validateThenSave(ImportPlan plan) throws Exception {
+        // Passe 1: mapping et validation, entités abandonnées aussitôt (toutes les lignes sont
+        // revalidées, y compris lors d'une reprise: nouveau rapport d'erreurs)
+        BitSet unchangedRows = new BitSet();
+
+        try (ImportErrors errors = createErrors(plan, Checkpoint.START.row());
+             RowReader reader = plan.rows().open()) {
+            int rowNumber = 1;
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                rowNumber++;
+                try {
+                    if (checkAndMap(plan, rowNumber, row) == null) {
+                        unchangedRows.set(rowNumber);
                     }
+                } catch (Exception e) {
+                    errors.add(toError(rowNumber, e), kind(e), row);
                 }
             }
 
-            // 6. COLLECT_ALL: Sauvegarder SEULEMENT si aucune erreur
-            if (strategy == FailureStrategy.COLLECT_ALL) {
-                if (!errors.isEmpty()) {
-                    // Il y a des erreurs, ne rien sauvegarder
-                    String message = errors.size() + " erreur(s) trouvée(s). Aucune donnée n'a été sauvegardée.";
-                    return buildResponse(start, rows.size(), 0, errors, false, message);
+            if (!errors.isEmpty()) {
+                // Il y a des erreurs, ne rien sauvegarder
+                String message = errors.size() + " erreur(s) trouvée(s). Aucune donnée n'a été sauvegardée.";
+                return buildResponse(plan, 0, 0, errors, false, message, null);
+            }
+        }
+
+        // Passe 2: aucune erreur, relecture et sauvegarde par batch
+        log.info("COLLECT_ALL: No errors found, saving {} rows in batches of {}",
+            plan.totalRows() - unchangedRows.cardinality(), plan.annotation().batchSize());
+        return inFileTransaction(plan, rollbackOnly -> saveValidatedRows(plan, unchangedRows, rollbackOnly));
+    }
+
+    /**
+     * Seconde passe COLLECT_ALL: les lignes ont déjà été validées, elles sont seulement
+     * normalisées, mappées et sauvegardées.
+     */
+    private ImportResponse saveValidatedRows(ImportPlan plan, BitSet unchangedRows, Runnable rollbackOnly)
+            throws Exception {
+        int total = plan.totalRows();
+
+        try (ImportErrors errors = createErrors(plan, plan.resumed().row());
+             RowReader reader = plan.rows().open()) {
+            BatchWriter writer = createWriter(plan, errors);
+
+            int rowNumber = 1;
+            Map<String, String> row;
+            while ((row = reader.next()) != null && !writer.hasFailed()) {
+                rowNumber++;
+                if (unchangedRows.get(rowNumber) || rowNumber <= plan.resumed().row()) {
+                    continue;
                 }
-                // Aucune erreur, sauvegarder tout
-                log.info("COLLECT_ALL: No errors found, proceeding to save all {} entities", entities.size());
-                for (Object entity : entities) {
-                    try {
-                        saveMethod.invoke(targetService, entity);
-                        savedCount++;
-                    } catch (Exception e) {
-                        Throwable cause = e.getCause() != null ? e.getCause() : e;
-                        log.error("Error saving entity: {}", cause.getMessage());
-                        // En COLLECT_ALL, si erreur à la sauvegarde, on arrête tout
-                        ImportError error = ImportError.builder()
-                            .row(0)
-                            .message("Erreur lors de la sauvegarde: " + cause.getMessage())
-                            .build();
-                        errors.add(error);
-                        return buildResponse(start, rows.size(), 0, errors, false, cause.getMessage());
+                try {
+                    if (plan.dropdowns() != null && !plan.dropdowns().isEmpty()) {
+                        plan.dropdowns().check(row);
                     }
+                    writer.add(rowNumber, row,
+                        plan.mapper().mapRow(row, RowLocation.row(rowNumber, row), plan.context()));
+                } catch (Exception e) {
+                    // Ligne valide en passe 1 mais plus maintenant (référence supprimée entre-temps...)
+                    ImportError error = toError(rowNumber, e);
+                    errors.add(error, kind(e), row);
+                    return failFast(plan, writer, errors, rollbackOnly,
+                        "Import arrêté à la " + RowLocation.describe(error) + ": " + e.getMessage());
                 }
             }
 
-            // 8. Construire la réponse
-            boolean success = errors.isEmpty() || (strategy == FailureStrategy.SKIP_ERRORS && savedCount > 0);
-            String message = buildSuccessMessage(rows.size(), savedCount, errors.size(), strategy);
-
-            return buildResponse(start, rows.size(), savedCount, errors, success, message);
+            writer.flush();
+            if (writer.hasFailed()) {
+                return failFast(plan, writer, errors, rollbackOnly,
+                    "Erreur lors de la sauvegarde: " + errors.last().getMessage());
+            }
 
-        } catch (Exception e) {
-            log.error("Import failed for entity '{}'", annotation.entity(), e);
-            return ImportResponse.builder()
-                .success(false)
-                .message("Erreur lors de l'import: " + e.getMessage())
-                .duration(Duration.between(start, Instant.now()).toString())
-                .build();
+            int savedCount = writer.getSavedCount();
+            String message = buildSuccessMessage(total, savedCount, 0, FailureStrategy.COLLECT_ALL);
+            return withSuperseded(buildResponse(plan, savedCount, writer.getUpdatedCount(), errors, true,
+                message, writer.getBatchStats()), writer);
         }
     }
 
     /**
-     * Trouve le parser approprié pour le fichier.
+     * Contrôles d'une ligne puis mapping et validation de l'entité.
+     *
+     * @return L'entité, ou null si la ligne est inchangée depuis le dernier import
+     * @throws Exception Si la ligne est invalide
      */
-    private FileParser findParser(String filename) {
-        return parsers.stream()
-            .filter(p -> p.supports(filename))
-            .findFirst()
-            .orElse(null);
+    private Object checkAndMap(ImportPlan plan, int rowNumber, Map<String, String> row) throws Exception {
+        // Doublon d'une ligne précédente du fichier
+        if (plan.duplicates() != null) {
+            plan.duplicates().check(rowNumber, row);
+        }
+
+        // Ligne identique au dernier import: ni mapping, ni validation, ni sauvegarde
+        if (plan.changes() != null && plan.changes().isUnchanged(rowNumber, row)) {
+            return null;
+        }
+
+        // Pré-validation des valeurs de listes déroulantes (avant tout mapping)
+        if (plan.dropdowns() != null && !plan.dropdowns().isEmpty()) {
+            plan.dropdowns().check(row);
+        }
+
+        // Mapper la ligne (multi-feuilles: numéro de la ligne dans sa feuille)
+        int sourceRow = RowLocation.row(rowNumber, row);
+        Object entity = plan.mapper().mapRow(row, sourceRow, plan.context());
+
+        // Validation custom du mapper
+        validateEntity(plan.mapper(), entity, sourceRow);
+
+        // Bean Validation (métadonnées en cache, arrêt à la première violation)
+        ConstraintViolation<Object> violation = entityValidator.validate(entity, plan.annotation().fastValidation());
+        if (violation != null) {
+            Object invalidValue = violation.getInvalidValue();
+            throw new ImportFieldException(
+                violation.getPropertyPath().toString(),
+                invalidValue != null ? invalidValue.toString() : null,
+                violation.getMessage());
+        }
+        return entity;
     }
 
     /**
-     * Trouve la méthode de sauvegarde.
+     * Erreurs d'une passe, avec le rapport des lignes en erreur dans le répertoire du job.
+     *
+     * @param keepUpToRow Lignes du rapport précédent à conserver (reprise), 1 = nouveau rapport
      */
-    private Method findSaveMethod(Object targetService, Importable annotation) throws Exception {
-        String methodName = annotation.saveMethod();
-        
-        // Essayer de trouver la méthode avec n'importe quel type de paramètre
-        for (Method method : targetService.getClass().getMethods()) {
-            if (method.getName().equals(methodName) && method.getParameterCount() == 1) {
-                return method;
-            }
+    private ImportErrors createErrors(ImportPlan plan, int keepUpToRow) throws Exception {
+        ErrorReport report = null;
+        try {
+            report = ErrorReport.open(plan.job().getDirectory(), plan.rows().headers(), plan.rows().hasSheets(),
+                keepUpToRow);
+        } catch (IOException e) {
+            log.warn("Could not create error report for import job {}: {}", plan.job().getId(), e.getMessage());
         }
-        
-        throw new RuntimeException("No save method found: " + methodName);
+        return new ImportErrors(properties.getErrors().getMaxInline(), report);
+    }
+
+    private BatchWriter createWriter(ImportPlan plan, ImportErrors errors) {
+        Importable annotation = plan.annotation();
+        int saveConcurrency = annotation.saveConcurrency();
+        if (saveConcurrency > 1 && plan.transactionMode() == TransactionMode.PER_FILE) {
+            log.warn("saveConcurrency ignored for '{}': PER_FILE saves run in the file transaction",
+                annotation.entity());
+        }
+        BatchSizing batchSizing = annotation.adaptiveBatchSize()
+            ? BatchSizing.adaptive(annotation.batchSize(), properties.getAdaptiveBatch())
+            : BatchSizing.fixed(annotation.batchSize());
+        BatchWriter writer = new BatchWriter(plan.sink(), plan.transactionMode(), transactionSupport.getIfAvailable(),
+            batchSizing, annotation.failureStrategy() != FailureStrategy.SKIP_ERRORS, errors, saveConcurrency);
+        writer.resume(plan.resumed().saved(), plan.resumed().updated());
+        if (plan.changes() != null) {
+            writer.onSaved(plan.changes()::saved);
+        }
+        // Checkpoint après chaque batch commité (en PER_FILE, rien n'est commité avant la fin)
+        if (plan.transactionMode() != TransactionMode.PER_FILE) {
+            writer.onFlushed(lastRow -> plan.job().checkpoint(new Checkpoint(
+                lastRow, writer.getSavedCount(), writer.getUpdatedCount(), errorCount(plan, errors))));
+        }
+        return writer;
     }
 
     /**
-     * Sauvegarde les entités via la méthode save du service cible.
+     * Type d'erreur d'une ligne, sans la valeur en cause (regroupement des erreurs).
      */
-    private int saveEntities(List<Object> entities, Object targetService, Importable annotation) throws Exception {
-        String methodName = annotation.saveMethod();
-        int batchSize = annotation.batchSize();
-
-        // Chercher saveAll d'abord (plus performant)
-        Method saveAllMethod = findMethod(targetService.getClass(), methodName + "All", List.class);
-        if (saveAllMethod != null) {
-            return saveInBatches(entities, targetService, saveAllMethod, batchSize);
-        }
-
-        // Fallback: méthode save unitaire - chercher avec le type réel de l'entité
-        Method saveMethod = null;
-        if (!entities.isEmpty()) {
-            Class<?> entityType = entities.get(0).getClass();
-            log.debug("Searching for method {}({}) in {}", methodName, entityType.getSimpleName(), targetService.getClass().getSimpleName());
-            saveMethod = findMethod(targetService.getClass(), methodName, entityType);
-        }
-        
-        // Si pas trouvé avec le type exact, essayer avec Object.class
-        if (saveMethod == null) {
-            log.debug("Method not found with exact type, trying with Object.class");
-            saveMethod = findMethod(targetService.getClass(), methodName, Object.class);
-        }
-        
-        if (saveMethod == null) {
-            log.error("No save method found: {} or {}All in class {}", methodName, methodName, targetService.getClass().getName());
-            log.error("Available public methods:");
-            for (Method m : targetService.getClass().getMethods()) {
-                if (m.getName().equals(methodName)) {
-                    log.error("  - {}({})", m.getName(), m.getParameterTypes()[0].getSimpleName());
-                }
-            }
-            throw new RuntimeException("No save method found: " + methodName);
+    private static String kind(Exception e) {
+        return e instanceof ImportFieldException fieldError ? fieldError.getKind() : e.getMessage();
+    }
+
+    private static ImportError toError(int rowNumber, Exception e) {
+        ImportError error = ImportError.builder()
+            .row(rowNumber)
+            .message(e.getMessage())
+            .build();
+        if (e instanceof ImportFieldException fieldError) {
+            error.setField(fieldError.getField());
+            error.setValue(fieldError.getValue());
         }
+        return error;
+    }
 
-        return saveOneByOne(entities, targetService, saveMethod);
+    /**
+     * Exécute le traitement dans la transaction du fichier en PER_FILE, directement sinon.
+     */
+    private ImportResponse inFileTransaction(ImportPlan plan, RowsWork work) throws Exception {
+        if (plan.transactionMode() != TransactionMode.PER_FILE) {
+            return work.run(null);
+        }
+        return transactionSupport.getIfAvailable().execute(rollbackOnly -> {
+            try {
+                return work.run(rollbackOnly);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RowsFailedException(e);
+            }
+        });
     }
 
     /**
-     * Sauvegarde par batches (saveAll).
+     * Termine l'import en échec (FAIL_FAST ou erreur de sauvegarde bloquante).
+     * En PER_FILE, la transaction du fichier est rollback: rien n'est sauvegardé.
      */
-    private int saveInBatches(List<Object> entities, Object service, Method saveAllMethod, int batchSize) throws Exception {
-        int saved = 0;
-        for (int i = 0; i < entities.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, entities.size());
-            List<Object> batch = entities.subList(i, end);
-            saveAllMethod.invoke(service, batch);
-            saved += batch.size();
-            log.debug("Saved batch {}/{}: {} entities", (i / batchSize) + 1, (entities.size() / batchSize) + 1, batch.size());
+    private ImportResponse failFast(ImportPlan plan, BatchWriter writer, ImportErrors errors,
+                                    Runnable rollbackOnly, String message) {
+        if (rollbackOnly != null) {
+            rollbackOnly.run();
+            return buildResponse(plan, 0, 0, errors, false,
+                message + " - aucune donnée sauvegardée (rollback)", writer.getBatchStats());
         }
-        return saved;
+        return withSuperseded(buildResponse(plan, writer.getSavedCount(), writer.getUpdatedCount(), errors, false,
+            message, writer.getBatchStats()), writer);
     }
 
     /**
-     * Sauvegarde un par un (save).
+     * Reprise: ligne déjà traitée lors d'une exécution précédente. Sa clé est seulement
+     * enregistrée pour que les doublons des lignes suivantes restent détectés.
      */
-    private int saveOneByOne(List<Object> entities, Object service, Method saveMethod) throws Exception {
-        int saved = 0;
-        for (Object entity : entities) {
+    private static void skipCommittedRow(ImportPlan plan, int rowNumber, Map<String, String> row) {
+        if (plan.duplicates() != null) {
             try {
-                saveMethod.invoke(service, entity);
-                saved++;
-            } catch (Exception e) {
-                // Extraire la vraie exception si c'est une InvocationTargetException
-                Throwable cause = e.getCause() != null ? e.getCause() : e;
-                log.error("Error saving entity: {}", cause.getMessage());
-                throw new RuntimeException(cause.getMessage(), cause);
+                plan.duplicates().check(rowNumber, row);
+            } catch (ImportFieldException alreadyReported) {
+                // Doublon déjà signalé lors de l'exécution précédente
             }
         }
-        return saved;
     }
 
     /**
-     * Cherche une méthode par nom et type de paramètre.
+     * Erreurs de l'exécution en cours, plus celles des exécutions précédentes (reprise).
      */
-    private Method findMethod(Class<?> clazz, String name, Class<?> paramType) {
+    private static int errorCount(ImportPlan plan, ImportErrors errors) {
+        return plan.resumed().errors() + errors.size();
+    }
+
+    private void updateStatus(ImportJob job, ImportJobStatus status) {
         try {
-            return clazz.getMethod(name, paramType);
-        } catch (NoSuchMethodException e) {
-            return null;
+            job.setStatus(status);
+        } catch (RuntimeException e) {
+            log.warn("Could not update status of import job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Crée la destination des entités: table JDBC si @ImportTable, sinon save du service.
+     * En mode UPSERT, l'existence des clés métier est vérifiée par batch.
+     */
+    private ImportSink createSink(Object targetService, Importable annotation) {
+        boolean upsert = annotation.mode() == ImportMode.UPSERT;
+        if (upsert && annotation.businessKey().isEmpty()) {
+            throw new IllegalStateException("@Importable(entity = \"" + annotation.entity()
+                + "\"): mode = UPSERT nécessite businessKey");
+        }
+
+        if (annotation.table().name().isEmpty()) {
+            ImportSink sink = new ServiceImportSink(targetService, annotation.saveMethod(), annotation.idProperty());
+            return upsert ? new UpsertImportSink(sink, targetService, annotation) : sink;
+        }
+        JdbcImportSupport jdbc = jdbcSupport.getIfAvailable();
+        if (jdbc == null) {
+            throw new IllegalStateException("@ImportTable nécessite spring-jdbc");
+        }
+        return jdbc.createSink(annotation.table(), upsert ? annotation.businessKey() : null);
+    }
+
+    /**
+     * Détermine le mode de transaction effectif.
+     */
+    private TransactionMode resolveTransactionMode(Importable annotation) {
+        TransactionMode mode = annotation.transactionMode();
+        if (mode == TransactionMode.AUTO) {
+            mode = annotation.failureStrategy() == FailureStrategy.SKIP_ERRORS
+                ? TransactionMode.PER_BATCH
+                : TransactionMode.PER_FILE;
+        }
+
+        if (mode != TransactionMode.NONE) {
+            ImportTransactionSupport support = transactionSupport.getIfAvailable();
+            if (support == null || !support.isAvailable()) {
+                log.warn("No transaction manager available, import of '{}' runs without transaction ({} ignored)",
+                    annotation.entity(), mode);
+                return TransactionMode.NONE;
+            }
         }
+        return mode;
+    }
+
+    /**
+     * Trouve le parser approprié pour le fichier (le fichier contenu pour un upload compressé).
+     */
+    private FileParser findParser(SpooledUpload upload) throws IOException {
+        return findParser(upload.getContentName());
+    }
+
+    private FileParser findParser(String filename) {
+        return parsers.stream()
+            .filter(p -> p.supports(filename))
+            .findFirst()
+            .orElse(null);
     }
 
     /**
@@ -323,15 +741,101 @@ public class ImportService {
     /**
      * Construit la réponse finale.
      */
-    private ImportResponse buildResponse(Instant start, int total, int saved, List<ImportError> errors, boolean success, String message) {
+    private ImportResponse buildResponse(ImportPlan plan, int saved, int updated, ImportErrors errors,
+                                         boolean success, String message, ImportBatchStats batchStats) {
         return ImportResponse.builder()
             .success(success)
-            .totalRows(total)
+            .totalRows(plan.totalRows())
             .successCount(saved)
-            .errorCount(errors.size())
-            .errors(errors)
+            .updatedCount(updated)
+            .errorCount(errorCount(plan, errors))
+            .errors(errors.getInline())
+            .errorSummary(errors.getSummary())
+            .errorsTruncated(errors.isTruncated() || plan.resumed().errors() > 0)
+            .errorReportAvailable(errors.hasReport())
+            .message(message)
+            .batchStats(batchStats)
+            .duration(Duration.between(plan.start(), Instant.now()).toString())
+            .build();
+    }
+
+    /**
+     * Lignes remplacées par une ligne suivante de même clé (mode UPSERT): ni importées, ni en erreur.
+     */
+    private static ImportResponse withSuperseded(ImportResponse response, BatchWriter writer) {
+        if (writer.getSupersededCount() > 0) {
+            response.setSupersededCount(writer.getSupersededCount());
+            response.setMessage(response.getMessage() + String.format(
+                " (%d ligne(s) remplacée(s) par une ligne suivante de même clé)", writer.getSupersededCount()));
+        }
+        return response;
+    }
+
+    private static ImportResponse tooManyRows(int maxRows) {
+        return ImportResponse.builder()
+            .success(false)
+            .message("Trop de lignes dans le fichier. Maximum autorisé: " + maxRows)
+            .build();
+    }
+
+    /**
+     * Réponse d'échec sans traitement des lignes.
+     */
+    private static ImportResponse failure(Instant start, String message) {
+        return ImportResponse.builder()
+            .success(false)
             .message(message)
             .duration(Duration.between(start, Instant.now()).toString())
             .build();
     }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Could not release import resource: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Éléments d'un import, construits une fois par fichier.
+     */
+    private record ImportPlan(
+            ImportJob job,
+            Checkpoint resumed,
+            SpooledRows rows,
+            int totalRows,
+            ImportMapper<?> mapper,
+            ImportContext context,
+            DropdownDomain dropdowns,
+            DuplicateDetector duplicates,
+            ChangeTracker changes,
+            Importable annotation,
+            ImportSink sink,
+            TransactionMode transactionMode,
+            Instant start
+    ) {
+    }
+
+    /**
+     * Traitement des lignes (argument = demande de rollback en PER_FILE, null sinon).
+     */
+    @FunctionalInterface
+    private interface RowsWork {
+        ImportResponse run(Runnable rollbackOnly) throws Exception;
+    }
+
+    /**
+     * Transporte une exception checked hors de la transaction du fichier.
+     */
+    private static final class RowsFailedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        RowsFailedException(Exception cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package com.crm_bancaire.common.importexport.service;
+
+import java.util.List;
+
+/**
+ * Destination des entités importées (service @Importable, table JDBC...).
+ */
+interface ImportSink {
+
+    /**
+     * Indique si la destination sait écrire un lot en un seul appel.
+     */
+    boolean supportsBatch();
+
+    /**
+     * Indique si la destination sait écrire une entité seule.
+     */
+    boolean supportsSingle();
+
+    /**
+     * Clé métier de l'entité (mode UPSERT), null sans clé: dans un batch, seule la dernière
+     * entité d'une même clé est écrite. Par défaut: aucune clé.
+     */
+    default Object key(Object entity) {
+        return null;
+    }
+
+    /**
+     * Capture l'état des entités modifié par leur écriture (identifiant, version générés),
+     * avant une transaction qui peut être annulée: les lignes d'un batch annulé sont
+     * réécrites une à une à partir de l'état capturé. Par défaut: rien à capturer.
+     *
+     * @return Action qui rétablit l'état capturé
+     */
+    default Runnable snapshot(List<Object> entities) {
+        return () -> { };
+    }
+
+    /**
+     * Écrit un lot d'entités.
+     *
+     * @return Nombre d'entités ayant mis à jour un enregistrement existant
+     */
+    int saveBatch(List<Object> entities) throws Exception;
+
+    /**
+     * Prépare un lot avant son écriture entité par entité ({@link #saveOne}),
+     * par exemple pour une recherche groupée des enregistrements existants.
+     * Par défaut: rien à préparer.
+     */
+    default void prepareBatch(List<Object> entities) throws Exception {
+    }
+
+    /**
+     * Écrit une seule entité.
+     *
+     * @return true si un enregistrement existant a été mis à jour
+     */
+    boolean saveOne(Object entity) throws Exception;
+}
@@ -0,0 +1,62 @@
+package com.crm_bancaire.common.importexport.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Function;
+
+/**
+ * Exécute les sauvegardes d'import dans des transactions Spring ({@link TransactionTemplate}).
+ *
+ * Enregistré par l'auto-configuration uniquement si spring-tx est présent: ImportService
+ * ne manipule aucun type spring-tx et reste utilisable sans base de données.
+ */
+public class ImportTransactionSupport {
+
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private volatile TransactionTemplate template;
+
+    public ImportTransactionSupport(ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Indique si un PlatformTransactionManager unique est disponible.
+     */
+    public boolean isAvailable() {
+        return template() != null;
+    }
+
+    /**
+     * Exécute un traitement dans une nouvelle transaction (PROPAGATION_REQUIRES_NEW).
+     *
+     * Une exception runtime provoque le rollback et est propagée. Le traitement
+     * reçoit une action permettant de demander un rollback sans exception.
+     *
+     * @param work Traitement (argument = demande de rollback)
+     * @return Résultat du traitement
+     */
+    public <T> T execute(Function<Runnable, T> work) {
+        TransactionTemplate current = template();
+        if (current == null) {
+            throw new IllegalStateException("Aucun PlatformTransactionManager disponible");
+        }
+        return current.execute(status -> work.apply(status::setRollbackOnly));
+    }
+
+    private TransactionTemplate template() {
+        TransactionTemplate current = template;
+        if (current == null) {
+            PlatformTransactionManager manager = transactionManager.getIfUnique();
+            if (manager == null) {
+                return null;
+            }
+            current = new TransactionTemplate(manager);
+            current.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template = current;
+        }
+        return current;
+    }
+}
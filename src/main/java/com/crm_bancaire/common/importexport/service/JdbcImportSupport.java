@@ -0,0 +1,279 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.ImportTable;
+import com.crm_bancaire.common.importexport.util.PropertyAccessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.ClassUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sink JDBC batch pour {@link ImportTable}.
+ *
+ * Enregistré par l'auto-configuration uniquement si spring-jdbc est présent.
+ * Les écritures passent par {@link JdbcTemplate} et participent donc aux
+ * transactions de l'import (PER_BATCH / PER_FILE).
+ */
+@Slf4j
+public class JdbcImportSupport {
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    public JdbcImportSupport(ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Crée le sink pour une table.
+     *
+     * @param table Configuration @ImportTable
+     * @param businessKey Propriété clé métier pour le mode UPSERT (null = INSERT)
+     * @return Sink JDBC
+     * @throws IllegalStateException Si aucun JdbcTemplate n'est disponible
+     */
+    ImportSink createSink(ImportTable table, String businessKey) {
+        JdbcTemplate template = jdbcTemplate.getIfUnique();
+        if (template == null) {
+            throw new IllegalStateException("@ImportTable(" + table.name() + ") nécessite un JdbcTemplate");
+        }
+        if (table.columns().length == 0) {
+            throw new IllegalStateException("@ImportTable(" + table.name() + "): aucune colonne déclarée");
+        }
+        return new JdbcImportSink(template, table, businessKey);
+    }
+
+    /**
+     * Insère les entités par batch avec un PreparedStatement réutilisé.
+     *
+     * En UPSERT: un SELECT ... IN par batch pour les clés déjà présentes, puis un
+     * batch INSERT pour les nouvelles lignes et un batch UPDATE pour les existantes.
+     *
+     * Aucune transaction propre: les écritures rejoignent celles de l'import. En mode NONE,
+     * les lignes sont écrites une à une (un batch JDBC en autocommit échouerait à moitié écrit).
+     */
+    static final class JdbcImportSink implements ImportSink {
+
+        /**
+         * Nombre maximal de paramètres par requête IN (limite Oracle: 1000).
+         */
+        private static final int MAX_IN_PARAMETERS = 1000;
+
+        private final JdbcTemplate jdbcTemplate;
+        private final String sql;
+        private final String[] properties;
+        private final int jdbcBatchSize;
+
+        /**
+         * Index de la colonne clé métier (-1 = mode INSERT).
+         */
+        private final int keyIndex;
+        private final String selectKeysSql;
+        private final String updateSql;
+
+        /**
+         * Accesseurs résolus pour la classe d'entité rencontrée (une fois par import).
+         */
+        private volatile ResolvedAccessors resolved;
+
+        JdbcImportSink(JdbcTemplate jdbcTemplate, ImportTable table, String businessKey) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.jdbcBatchSize = Math.max(1, table.jdbcBatchSize());
+
+            List<String> columns = new ArrayList<>();
+            this.properties = new String[table.columns().length];
+            for (int i = 0; i < table.columns().length; i++) {
+                String[] parts = table.columns()[i].split("=", 2);
+                columns.add(parts[0].trim());
+                properties[i] = parts.length > 1 ? parts[1].trim() : parts[0].trim();
+            }
+
+            this.sql = "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+            log.info("JDBC import sink: {}", sql);
+
+            if (businessKey == null) {
+                this.keyIndex = -1;
+                this.selectKeysSql = null;
+                this.updateSql = null;
+                return;
+            }
+
+            this.keyIndex = keyIndex(columns, businessKey);
+            if (keyIndex < 0 || columns.size() < 2) {
+                throw new IllegalStateException("@ImportTable(" + table.name() + "): la clé métier '"
+                    + businessKey + "' doit être mappée sur une colonne (avec au moins une autre colonne)");
+            }
+            String keyColumn = columns.get(keyIndex);
+            List<String> assignments = new ArrayList<>();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i != keyIndex) {
+                    assignments.add(columns.get(i) + " = ?");
+                }
+            }
+            this.selectKeysSql = "SELECT " + keyColumn + " FROM " + table.name() + " WHERE " + keyColumn + " IN ";
+            this.updateSql = "UPDATE " + table.name() + " SET " + String.join(", ", assignments)
+                + " WHERE " + keyColumn + " = ?";
+            log.info("JDBC import sink (upsert): {}", updateSql);
+        }
+
+        private int keyIndex(List<String> columns, String businessKey) {
+            for (int i = 0; i < properties.length; i++) {
+                if (properties[i].equals(businessKey)) {
+                    return i;
+                }
+            }
+            return columns.indexOf(businessKey);
+        }
+
+        @Override
+        public boolean supportsBatch() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsSingle() {
+            return true;
+        }
+
+        @Override
+        public int saveBatch(List<Object> entities) {
+            if (keyIndex < 0) {
+                jdbcTemplate.batchUpdate(sql, entities, jdbcBatchSize, this::bind);
+                return 0;
+            }
+
+            // Une clé par entité (BatchWriter ne garde que la dernière ligne d'une même clé);
+            // sans clé: toujours insérée
+            Map<Object, Object> byKey = new LinkedHashMap<>();
+            List<Object> inserts = new ArrayList<>();
+            List<Object> updates = new ArrayList<>();
+            for (Object entity : entities) {
+                Object key = key(entity);
+                if (key == null) {
+                    inserts.add(entity);
+                } else {
+                    byKey.put(key, entity);
+                }
+            }
+
+            Set<Object> existing = byKey.isEmpty()
+                ? Set.of()
+                : findExistingKeys(byKey.keySet(), entities.get(0).getClass());
+            for (Map.Entry<Object, Object> entry : byKey.entrySet()) {
+                (existing.contains(entry.getKey()) ? updates : inserts).add(entry.getValue());
+            }
+
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, inserts, jdbcBatchSize, this::bind);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(updateSql, updates, jdbcBatchSize, this::bindUpdate);
+            }
+            return updates.size();
+        }
+
+        @Override
+        public boolean saveOne(Object entity) {
+            if (keyIndex < 0) {
+                jdbcTemplate.update(sql, ps -> bind(ps, entity));
+                return false;
+            }
+            if (jdbcTemplate.update(updateSql, ps -> bindUpdate(ps, entity)) > 0) {
+                return true;
+            }
+            jdbcTemplate.update(sql, ps -> bind(ps, entity));
+            return false;
+        }
+
+        /**
+         * Clés déjà présentes en base (requêtes IN découpées par {@link #MAX_IN_PARAMETERS}).
+         */
+        private Set<Object> findExistingKeys(Collection<Object> keys, Class<?> entityType) {
+            Class<?> keyType = ClassUtils.resolvePrimitiveIfNecessary(accessors(entityType)[keyIndex].getType());
+            Class<?> queryType = keyType.isEnum() ? String.class : keyType;
+
+            Set<Object> existing = new HashSet<>();
+            List<Object> chunk = new ArrayList<>(Math.min(keys.size(), MAX_IN_PARAMETERS));
+            for (Iterator<Object> it = keys.iterator(); it.hasNext(); ) {
+                chunk.add(jdbcValue(it.next()));
+                if (chunk.size() == MAX_IN_PARAMETERS || !it.hasNext()) {
+                    String query = selectKeysSql + "(" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                    for (Object key : jdbcTemplate.queryForList(query, queryType, chunk.toArray())) {
+                        existing.add(keyType.isEnum() ? enumConstant(keyType, (String) key) : key);
+                    }
+                    chunk.clear();
+                }
+            }
+            return existing;
+        }
+
+        @Override
+        public Object key(Object entity) {
+            return keyIndex < 0 ? null : accessors(entity.getClass())[keyIndex].get(entity);
+        }
+
+        private void bind(PreparedStatement ps, Object entity) throws SQLException {
+            PropertyAccessor[] resolved = accessors(entity.getClass());
+            for (int i = 0; i < resolved.length; i++) {
+                setParameter(ps, i + 1, resolved[i].get(entity));
+            }
+        }
+
+        /**
+         * UPDATE: colonnes hors clé dans l'ordre déclaré, puis la clé (WHERE).
+         */
+        private void bindUpdate(PreparedStatement ps, Object entity) throws SQLException {
+            PropertyAccessor[] resolved = accessors(entity.getClass());
+            int index = 1;
+            for (int i = 0; i < resolved.length; i++) {
+                if (i != keyIndex) {
+                    setParameter(ps, index++, resolved[i].get(entity));
+                }
+            }
+            setParameter(ps, index, resolved[keyIndex].get(entity));
+        }
+
+        private static void setParameter(PreparedStatement ps, int index, Object value) throws SQLException {
+            StatementCreatorUtils.setParameterValue(ps, index, SqlTypeValue.TYPE_UNKNOWN, jdbcValue(value));
+        }
+
+        private static Object jdbcValue(Object value) {
+            return value instanceof Enum<?> constant ? constant.name() : value;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object enumConstant(Class<?> type, String name) {
+            return Enum.valueOf((Class<? extends Enum>) type, name);
+        }
+
+        private PropertyAccessor[] accessors(Class<?> type) {
+            ResolvedAccessors current = resolved;
+            if (current == null || current.type() != type) {
+                PropertyAccessor[] accessors = new PropertyAccessor[properties.length];
+                for (int i = 0; i < properties.length; i++) {
+                    accessors[i] = PropertyAccessor.of(type, properties[i]);
+                }
+                current = new ResolvedAccessors(type, accessors);
+                resolved = current;
+            }
+            return current.accessors();
+        }
+
+        private record ResolvedAccessors(Class<?> type, PropertyAccessor[] accessors) {
+        }
+    }
+}
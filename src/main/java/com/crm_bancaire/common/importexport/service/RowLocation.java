@@ -0,0 +1,64 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.dto.ImportError;
+import com.crm_bancaire.common.importexport.parser.ParsedRow;
+
+import java.util.Map;
+
+/**
+ * Position d'une ligne telle qu'affichée à l'utilisateur.
+ *
+ * Le traitement numérote les lignes dans l'ordre de lecture (checkpoints, reprise);
+ * en import multi-feuilles (@Importable(allSheets = true)), les erreurs et messages
+ * indiquent plutôt la feuille et la ligne Excel, portées par la ligne lue.
+ */
+final class RowLocation {
+
+    private RowLocation() {
+    }
+
+    /**
+     * Feuille de la ligne, null hors import multi-feuilles.
+     */
+    static String sheet(Map<String, String> row) {
+        return row instanceof ParsedRow parsed ? parsed.sheet() : null;
+    }
+
+    /**
+     * Numéro affiché: ligne dans la feuille si elle est connue, numéro de traitement sinon.
+     */
+    static int row(int rowNumber, Map<String, String> row) {
+        return sheet(row) != null ? ((ParsedRow) row).sheetRow() : rowNumber;
+    }
+
+    /**
+     * Référence courte: "12", ou "Nord!12" avec la feuille.
+     */
+    static String reference(int rowNumber, Map<String, String> row) {
+        return reference(sheet(row), row(rowNumber, row));
+    }
+
+    static String reference(String sheet, int row) {
+        return sheet != null ? sheet + "!" + row : String.valueOf(row);
+    }
+
+    /**
+     * Pour les messages: "ligne 12", ou "ligne 12 de la feuille 'Nord'".
+     */
+    static String describe(ImportError error) {
+        return error.getSheet() != null
+            ? "ligne " + error.getRow() + " de la feuille '" + error.getSheet() + "'"
+            : "ligne " + error.getRow();
+    }
+
+    /**
+     * Remplace le numéro de traitement de l'erreur par la feuille et la ligne dans la feuille.
+     */
+    static void locate(ImportError error, Map<String, String> row) {
+        String sheet = sheet(row);
+        if (sheet != null) {
+            error.setSheet(sheet);
+            error.setRow(((ParsedRow) row).sheetRow());
+        }
+    }
+}
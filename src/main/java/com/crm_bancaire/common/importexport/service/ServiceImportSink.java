@@ -0,0 +1,113 @@
+package com.crm_bancaire.common.importexport.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sauvegarde via les méthodes du service @Importable.
+ *
+ * Méthodes recherchées:
+ * - {@code saveMethod(T)} pour une entité
+ * - {@code saveMethodAll(List<T>)} ou {@code saveMethod(List<T>)} pour un lot
+ */
+@Slf4j
+class ServiceImportSink implements ImportSink {
+
+    private final Object service;
+    private final Method singleMethod;
+    private final Method batchMethod;
+    private final String idProperty;
+
+    /**
+     * @param idProperty Identifiant renseigné par la sauvegarde (rétabli après rollback, voir {@link #snapshot})
+     */
+    ServiceImportSink(Object service, String methodName, String idProperty) {
+        this.service = service;
+        this.idProperty = idProperty;
+
+        Method single = null;
+        Method batch = null;
+        for (Method method : service.getClass().getMethods()) {
+            if (method.getParameterCount() != 1 || method.isBridge()) {
+                continue;
+            }
+            boolean collectionParam = Collection.class.isAssignableFrom(method.getParameterTypes()[0]);
+            if (method.getName().equals(methodName)) {
+                if (collectionParam) {
+                    batch = batch != null ? batch : method;
+                } else if (single == null) {
+                    single = method;
+                }
+            } else if (method.getName().equals(methodName + "All") && collectionParam) {
+                batch = method;
+            }
+        }
+
+        if (single == null && batch == null) {
+            throw new RuntimeException("No save method found: " + methodName);
+        }
+
+        this.singleMethod = single;
+        this.batchMethod = batch;
+        log.debug("Save methods for {}: single={}, batch={}", service.getClass().getSimpleName(),
+            single != null ? single.getName() : null, batch != null ? batch.getName() : null);
+    }
+
+    @Override
+    public boolean supportsBatch() {
+        return batchMethod != null;
+    }
+
+    @Override
+    public boolean supportsSingle() {
+        return singleMethod != null;
+    }
+
+    /**
+     * Le save du service peut renseigner l'identifiant et la version des entités
+     * (persist JPA); après rollback, ils désignent des enregistrements inexistants.
+     */
+    @Override
+    public Runnable snapshot(List<Object> entities) {
+        return GeneratedProperties.snapshot(entities, idProperty);
+    }
+
+    @Override
+    public int saveBatch(List<Object> entities) throws Exception {
+        invoke(batchMethod, entities);
+        return 0;
+    }
+
+    @Override
+    public boolean saveOne(Object entity) throws Exception {
+        if (singleMethod != null) {
+            invoke(singleMethod, entity);
+        } else {
+            invoke(batchMethod, List.of(entity));
+        }
+        return false;
+    }
+
+    private void invoke(Method method, Object argument) throws Exception {
+        invoke(service, method, argument);
+    }
+
+    /**
+     * Invoque une méthode du service en extrayant la vraie exception.
+     */
+    static Object invoke(Object service, Method method, Object argument) throws Exception {
+        try {
+            return method.invoke(service, argument);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+}
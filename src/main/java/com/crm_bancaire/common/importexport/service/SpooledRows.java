@@ -0,0 +1,163 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.parser.FileParser;
+import com.crm_bancaire.common.importexport.parser.RowReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lignes d'un fichier spoolé, relisibles plusieurs fois.
+ *
+ * Avec un parser streaming, chaque lecture reparse la copie locale (une ligne en mémoire);
+ * sinon le fichier est parsé une seule fois et les lignes sont gardées en mémoire.
+ * En import multi-feuilles, chaque lecture rend les lignes de toutes les feuilles.
+ *
+ * Un upload compressé est décompressé à la volée à chaque lecture, le contenu limité à
+ * {@code maxDecompressedSize} octets; il n'a pas de pré-scan, le comptage des lignes
+ * ({@link #count}) s'arrête à la limite du nombre de lignes. Un classeur .xlsx/.xlsb
+ * compressé est décompressé une fois dans un fichier (même limite), puis lu comme un
+ * upload non compressé.
+ */
+final class SpooledRows implements Iterable<Map<String, String>> {
+
+    private final FileParser parser;
+    private final SpooledUpload upload;
+    private final boolean allSheets;
+    private final long maxDecompressedSize;
+    private List<Map<String, String>> parsed;
+    private int scanned = -1;
+    private int scanLimit;
+
+    /**
+     * @param allSheets Lire toutes les feuilles du fichier (@Importable(allSheets))
+     * @param maxDecompressedSize Taille maximale du contenu d'un upload compressé
+     */
+    SpooledRows(FileParser parser, SpooledUpload upload, boolean allSheets, long maxDecompressedSize) {
+        this.parser = parser;
+        this.upload = upload;
+        this.allSheets = allSheets;
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
+
+    /**
+     * Indique que les lignes viennent de plusieurs feuilles et portent leur feuille.
+     */
+    boolean hasSheets() {
+        return allSheets && parser.supportsStreaming() && parser.supportsSheets();
+    }
+
+    /**
+     * Ouvre une nouvelle lecture du fichier (à fermer).
+     */
+    RowReader open() throws Exception {
+        if (parser.supportsStreaming()) {
+            if (upload.isStreamed()) {
+                InputStream in = upload.open(maxDecompressedSize);
+                return allSheets ? parser.openAllSheets(in) : parser.open(in);
+            }
+            Path file = upload.contentFile(maxDecompressedSize);
+            return allSheets ? parser.openAllSheets(file) : parser.open(file);
+        }
+        if (parsed == null) {
+            try (InputStream in = upload.open(maxDecompressedSize)) {
+                parsed = parser.parse(in);
+            }
+        }
+        return RowReader.of(parsed);
+    }
+
+    /**
+     * Colonnes du fichier.
+     */
+    List<String> headers() throws Exception {
+        try (RowReader reader = open()) {
+            return reader.headers();
+        }
+    }
+
+    /**
+     * Pré-scan du fichier sans parsing (voir {@link FileParser#scanRows}).
+     *
+     * @return Nombre de lignes de données (au plus {@code limit}), -1 si le parser n'a pas de pré-scan
+     */
+    int scan(int limit) throws Exception {
+        scanned = upload.isStreamed() ? -1 : parser.scanRows(upload.contentFile(maxDecompressedSize), limit);
+        scanLimit = limit;
+        return scanned;
+    }
+
+    /**
+     * Compte les lignes de données, en s'arrêtant à {@code limit}.
+     *
+     * Avec un parser streaming dont le pré-scan est exact, son résultat est réutilisé:
+     * le fichier n'est pas parsé pour être compté.
+     */
+    int count(int limit) throws Exception {
+        if (!parser.supportsStreaming()) {
+            open().close();
+            return Math.min(parsed.size(), limit);
+        }
+        if (scanned >= 0 && scanLimit == limit && parser.isScanExact()) {
+            return scanned;
+        }
+        int count = 0;
+        try (RowReader reader = open()) {
+            while (count < limit && reader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parcours complet (utilisé par {@code ImportContext.distinctValues}).
+     */
+    @Override
+    public Iterator<Map<String, String>> iterator() {
+        RowReader reader;
+        try {
+            reader = open();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Relecture du fichier impossible: " + e.getMessage(), e);
+        }
+        return new Iterator<>() {
+            private Map<String, String> next = read();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map<String, String> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Map<String, String> current = next;
+                next = read();
+                return current;
+            }
+
+            private Map<String, String> read() {
+                try {
+                    Map<String, String> row = reader.next();
+                    if (row == null) {
+                        reader.close();
+                    }
+                    return row;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
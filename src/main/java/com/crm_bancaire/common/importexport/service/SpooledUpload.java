@@ -0,0 +1,351 @@
+package com.crm_bancaire.common.importexport.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Copie locale d'un fichier uploadé, relue autant de fois que nécessaire
+ * (comptage, passes de validation et de sauvegarde, reprise après interruption).
+ *
+ * Un upload compressé (gzip, ou archive zip d'un seul fichier) est gardé tel quel:
+ * chaque lecture le décompresse à la volée ({@link #open()}). Seul un classeur .xlsx/.xlsb
+ * compressé est décompressé une fois dans un fichier du job ({@link #contentFile}): POI lit
+ * un classeur ouvert depuis un fichier partie par partie, mais charge en mémoire un classeur
+ * ouvert depuis un flux. La compression est reconnue à ses premiers octets, quelle que soit
+ * l'extension; un .xlsx/.xlsb (lui-même une archive zip) n'est pas pris pour une archive.
+ */
+final class SpooledUpload {
+
+    private static final String[] COMPRESSED_EXTENSIONS = {".gz", ".gzip", ".zip"};
+    private static final String[] WORKBOOK_EXTENSIONS = {".xlsx", ".xlsb"};
+    private static final String CONTENT_FILE = "content";
+
+    private final Path file;
+    private final String filename;
+    private Content content;
+
+    private SpooledUpload(Path file, String filename) {
+        this.file = file;
+        this.filename = filename;
+    }
+
+    /**
+     * Copie le fichier uploadé vers {@code target}.
+     */
+    static SpooledUpload copy(MultipartFile upload, Path target) throws IOException {
+        try (InputStream in = upload.getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new SpooledUpload(target, upload.getOriginalFilename());
+    }
+
+    /**
+     * Copie déjà présente sur disque (reprise d'un import).
+     */
+    static SpooledUpload existing(Path file, String filename) {
+        return new SpooledUpload(file, filename);
+    }
+
+    /**
+     * Nouveau flux de lecture sur le contenu du fichier, décompressé s'il y a lieu.
+     */
+    InputStream open() throws IOException {
+        Content detected = content();
+        if (detected.compression() == Compression.NONE) {
+            return new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+        }
+        if (detected.compression() == Compression.GZIP) {
+            return new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file), 64 * 1024), 64 * 1024);
+        }
+        ZipFile zip = new ZipFile(file.toFile());
+        try {
+            InputStream entry = zip.getInputStream(zip.getEntry(detected.entry()));
+            return new BufferedInputStream(new FilterInputStream(entry) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zip.close();
+                    }
+                }
+            }, 64 * 1024);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Nouveau flux sur le contenu décompressé, limité à {@code maxSize} octets.
+     *
+     * @throws DecompressedSizeExceededException À la lecture, au-delà de {@code maxSize}
+     */
+    InputStream open(long maxSize) throws IOException {
+        InputStream in = open();
+        return isCompressed() ? new LimitedInputStream(in, maxSize) : in;
+    }
+
+    /**
+     * Limite un flux décompressé (entrée d'archive) à {@code maxSize} octets.
+     *
+     * @throws DecompressedSizeExceededException À la lecture, au-delà de {@code maxSize}
+     */
+    static InputStream limit(InputStream in, long maxSize) {
+        return new LimitedInputStream(in, maxSize);
+    }
+
+    /**
+     * Indique si le fichier est compressé: les parsers le lisent alors en flux
+     * ({@link #open()}), sans la copie locale.
+     */
+    boolean isCompressed() throws IOException {
+        return content().compression() != Compression.NONE;
+    }
+
+    /**
+     * Indique si le contenu est lu en flux décompressé à la volée ({@link #open()}):
+     * upload compressé, sauf classeur .xlsx/.xlsb (lu depuis {@link #contentFile}).
+     */
+    boolean isStreamed() throws IOException {
+        return isCompressed() && !endsWith(content().name(), WORKBOOK_EXTENSIONS);
+    }
+
+    /**
+     * Fichier à parser: la copie locale, ou pour un upload compressé son contenu décompressé
+     * dans un fichier voisin (écrit à la première demande, réutilisé ensuite et par une reprise).
+     *
+     * @param maxSize Taille maximale du contenu décompressé
+     * @throws DecompressedSizeExceededException Au-delà de {@code maxSize} (rien n'est gardé)
+     */
+    Path contentFile(long maxSize) throws IOException {
+        if (!isCompressed()) {
+            return file;
+        }
+        Path inflated = inflatedFile();
+        if (!Files.exists(inflated)) {
+            Path tmp = Files.createTempFile(inflated.getParent(), CONTENT_FILE, ".tmp");
+            try {
+                try (InputStream in = open(maxSize)) {
+                    Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(tmp, inflated, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return inflated;
+    }
+
+    /**
+     * Nom du fichier à parser: nom uploadé sans l'extension de compression
+     * (clients.csv.gz → clients.csv), ou nom du fichier contenu dans l'archive zip.
+     *
+     * @throws IllegalArgumentException Si l'archive zip est vide ou contient plusieurs fichiers
+     */
+    String getContentName() throws IOException {
+        return content().name();
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    String getFilename() {
+        return filename;
+    }
+
+    boolean exists() {
+        return Files.exists(file);
+    }
+
+    void delete() throws IOException {
+        if (exists() && isCompressed()) {
+            Files.deleteIfExists(inflatedFile());
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Contenu décompressé: {@code content.{extension du fichier contenu}}, à côté de la copie locale.
+     */
+    private Path inflatedFile() throws IOException {
+        String name = content().name();
+        int dot = name.lastIndexOf('.');
+        return file.toAbsolutePath().resolveSibling(CONTENT_FILE + (dot >= 0 ? name.substring(dot) : ""));
+    }
+
+    private Content content() throws IOException {
+        if (content == null) {
+            content = detect();
+        }
+        return content;
+    }
+
+    private Content detect() throws IOException {
+        byte[] magic = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(magic, 0, magic.length);
+        }
+        String name = filename != null ? filename : "";
+
+        if (read >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return new Content(Compression.GZIP, withoutCompressedExtension(name), null);
+        }
+        if (read == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                if (zip.getEntry("[Content_Types].xml") == null) {
+                    String entry = singleEntry(zip);
+                    return new Content(Compression.ZIP, entry.substring(entry.lastIndexOf('/') + 1), entry);
+                }
+            }
+        }
+        // Extension de compression sur un fichier non compressé: lu tel quel
+        return new Content(Compression.NONE, withoutCompressedExtension(name), null);
+    }
+
+    /**
+     * Seul fichier de l'archive (répertoires et métadonnées macOS ignorés).
+     */
+    private String singleEntry(ZipFile zip) {
+        String found = null;
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (entry.isDirectory() || name.startsWith("__MACOSX/") || name.endsWith("/.DS_Store")
+                    || name.equals(".DS_Store")) {
+                continue;
+            }
+            if (found != null) {
+                throw new IllegalArgumentException("L'archive " + filename + " contient plusieurs fichiers: "
+                    + "un seul fichier attendu");
+            }
+            found = name;
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("L'archive " + filename + " ne contient aucun fichier");
+        }
+        return found;
+    }
+
+    private static String withoutCompressedExtension(String name) {
+        String lower = name.toLowerCase();
+        for (String extension : COMPRESSED_EXTENSIONS) {
+            if (lower.endsWith(extension)) {
+                return name.substring(0, name.length() - extension.length());
+            }
+        }
+        return name;
+    }
+
+    private static boolean endsWith(String name, String[] extensions) {
+        String lower = name.toLowerCase();
+        for (String extension : extensions) {
+            if (lower.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Compression {
+        NONE, GZIP, ZIP
+    }
+
+    /**
+     * @param name Nom du fichier à parser
+     * @param entry Entrée de l'archive zip (null hors zip)
+     */
+    private record Content(Compression compression, String name, String entry) {
+    }
+
+    /**
+     * Flux décompressé limité en taille.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long read) throws DecompressedSizeExceededException {
+            count += read;
+            if (count > maxSize) {
+                throw new DecompressedSizeExceededException(maxSize);
+            }
+        }
+    }
+
+    /**
+     * Contenu décompressé au-delà de {@code import-export.upload.max-decompressed-size}.
+     */
+    static final class DecompressedSizeExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        DecompressedSizeExceededException(long maxSize) {
+            super("Fichier décompressé trop volumineux. Maximum autorisé: " + (maxSize % (1024 * 1024) == 0
+                ? maxSize / (1024 * 1024) + " MB"
+                : maxSize + " octets"));
+        }
+
+        /**
+         * Recherche l'exception dans les causes de {@code error} (les parsers l'enveloppent).
+         */
+        static DecompressedSizeExceededException in(Throwable error) {
+            for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+                if (cause instanceof DecompressedSizeExceededException exceeded) {
+                    return exceeded;
+                }
+            }
+            return null;
+        }
+    }
+}
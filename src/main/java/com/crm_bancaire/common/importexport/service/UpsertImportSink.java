@@ -0,0 +1,170 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.util.PropertyAccessor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mode UPSERT sur le service @Importable.
+ *
+ * Pour chaque batch (une seule ligne par clé, voir {@link #key}): collecte des clés métier,
+ * un seul appel à findByKeysMethod, copie de l'identifiant des entités existantes vers les
+ * entités importées, puis sauvegarde du batch (le save/saveAll du service fait insert ou update).
+ * Sans saveAll, ou quand les lignes sont écrites une à une (mode NONE, saveConcurrency,
+ * reprise ligne par ligne d'un batch en échec), la recherche reste groupée: elle est faite
+ * une fois pour le batch ({@link #prepareBatch}), puis chaque entité est sauvegardée seule.
+ *
+ * Entité versionnée ({@code @Version} JPA ou Spring Data, sur le champ ou le getter): la
+ * version de l'entité existante est copiée avec l'identifiant, sinon l'entité importée
+ * (identifiant renseigné, version null) serait traitée comme nouvelle par le save.
+ */
+@Slf4j
+class UpsertImportSink implements ImportSink {
+
+    private final ImportSink delegate;
+    private final Object service;
+    private final Method finder;
+    private final String businessKey;
+    private final String idProperty;
+
+    /**
+     * Entités du dernier batch préparé: mise à jour ou non d'un enregistrement existant.
+     * Remplacé à chaque batch, lu ensuite par les sauvegardes unitaires (éventuellement parallèles).
+     */
+    private volatile Map<Object, Boolean> prepared = Map.of();
+
+    UpsertImportSink(ImportSink delegate, Object service, Importable annotation) {
+        this.delegate = delegate;
+        this.service = service;
+        this.businessKey = annotation.businessKey();
+        this.idProperty = annotation.idProperty();
+
+        String finderName = annotation.findByKeysMethod().isEmpty()
+            ? "findAllBy" + Character.toUpperCase(businessKey.charAt(0)) + businessKey.substring(1) + "In"
+            : annotation.findByKeysMethod();
+        this.finder = findFinder(service, finderName);
+    }
+
+    @Override
+    public boolean supportsBatch() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsSingle() {
+        return delegate.supportsSingle();
+    }
+
+    @Override
+    public Object key(Object entity) {
+        return PropertyAccessor.of(entity.getClass(), businessKey).get(entity);
+    }
+
+    @Override
+    public Runnable snapshot(List<Object> entities) {
+        return delegate.snapshot(entities);
+    }
+
+    @Override
+    public int saveBatch(List<Object> entities) throws Exception {
+        int updated = attachExisting(entities, null);
+        if (delegate.supportsBatch()) {
+            delegate.saveBatch(entities);
+        } else {
+            for (Object entity : entities) {
+                delegate.saveOne(entity);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public void prepareBatch(List<Object> entities) throws Exception {
+        Map<Object, Boolean> updates = new IdentityHashMap<>(entities.size());
+        attachExisting(entities, updates);
+        this.prepared = updates;
+    }
+
+    @Override
+    public boolean saveOne(Object entity) throws Exception {
+        Boolean updated = prepared.get(entity);
+        if (updated == null) {
+            // Entité hors du batch préparé: recherche pour elle seule
+            updated = attachExisting(List.of(entity), null) > 0;
+        }
+        delegate.saveOne(entity);
+        return updated;
+    }
+
+    /**
+     * Recherche groupée des entités existantes et copie de leur identifiant.
+     *
+     * @param updates Si non null, reçoit pour chaque entité si elle mettra à jour un enregistrement existant
+     * @return Nombre d'entités qui mettront à jour un enregistrement existant
+     */
+    private int attachExisting(List<Object> entities, Map<Object, Boolean> updates) throws Exception {
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Object entity : entities) {
+            Object key = key(entity);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        Map<Object, Object> existing = keys.isEmpty() ? Map.of() : findExisting(keys);
+        int updated = 0;
+        for (Object entity : entities) {
+            Object key = key(entity);
+            Object current = key != null ? existing.get(key) : null;
+            if (current != null) {
+                copy(idProperty, current, entity);
+                GeneratedProperties.version(entity.getClass())
+                    .ifPresent(version -> copy(version.getPath(), current, entity));
+                updated++;
+            }
+            if (updates != null) {
+                updates.put(entity, current != null);
+            }
+        }
+        log.debug("Upsert batch: {} keys, {} existing", keys.size(), updated);
+        return updated;
+    }
+
+    private Map<Object, Object> findExisting(Set<Object> keys) throws Exception {
+        Object result = ServiceImportSink.invoke(service, finder, new ArrayList<>(keys));
+        Map<Object, Object> existing = new HashMap<>();
+        if (result instanceof Map<?, ?> map) {
+            existing.putAll(map);
+        } else if (result instanceof Collection<?> collection) {
+            for (Object entity : collection) {
+                existing.put(key(entity), entity);
+            }
+        } else if (result != null) {
+            throw new IllegalStateException(finder.getName() + " doit retourner une Collection ou une Map");
+        }
+        return existing;
+    }
+
+    private static void copy(String property, Object from, Object to) {
+        PropertyAccessor.of(to.getClass(), property).set(to, PropertyAccessor.of(from.getClass(), property).get(from));
+    }
+
+    private static Method findFinder(Object service, String name) {
+        for (Method method : service.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0].isAssignableFrom(List.class)) {
+                return method;
+            }
+        }
+        throw new IllegalStateException("Méthode de recherche par clés introuvable: " + name + "(Collection)");
+    }
+}
@@ -0,0 +1,110 @@
+package com.crm_bancaire.common.importexport.util;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accès précompilé à une propriété d'entité (support nested: "address.city").
+ *
+ * Les champs sont résolus une seule fois par (classe, chemin) puis mis en cache.
+ */
+public final class PropertyAccessor {
+
+    private static final Map<Class<?>, Map<String, PropertyAccessor>> CACHE = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final Field[] fields;
+
+    private PropertyAccessor(String path, Field[] fields) {
+        this.path = path;
+        this.fields = fields;
+    }
+
+    /**
+     * Récupère l'accesseur d'une propriété.
+     *
+     * @param type Classe de l'entité
+     * @param path Nom de la propriété (notation point pour les champs imbriqués)
+     * @return L'accesseur (mis en cache)
+     * @throws IllegalArgumentException Si la propriété n'existe pas
+     */
+    public static PropertyAccessor of(Class<?> type, String path) {
+        return CACHE.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(path, p -> compile(type, p));
+    }
+
+    /**
+     * Lit la valeur (null si un niveau intermédiaire est null).
+     */
+    public Object get(Object target) {
+        Object current = target;
+        try {
+            for (Field field : fields) {
+                if (current == null) {
+                    return null;
+                }
+                current = field.get(current);
+            }
+            return current;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Lecture impossible de '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Écrit la valeur (les niveaux intermédiaires doivent exister).
+     */
+    public void set(Object target, Object value) {
+        try {
+            Object current = target;
+            for (int i = 0; i < fields.length - 1; i++) {
+                current = fields[i].get(current);
+                if (current == null) {
+                    throw new IllegalStateException("'" + path + "': " + fields[i].getName() + " est null");
+                }
+            }
+            fields[fields.length - 1].set(current, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Écriture impossible de '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Type de la propriété.
+     */
+    public Class<?> getType() {
+        return fields[fields.length - 1].getType();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    private static PropertyAccessor compile(Class<?> type, String path) {
+        String[] parts = path.split("\\.");
+        Field[] fields = new Field[parts.length];
+        Class<?> current = type;
+        for (int i = 0; i < parts.length; i++) {
+            Field field = findField(current, parts[i]);
+            if (field == null) {
+                throw new IllegalArgumentException("Propriété '" + path + "' introuvable dans " + type.getSimpleName());
+            }
+            field.setAccessible(true);
+            fields[i] = field;
+            current = field.getType();
+        }
+        return new PropertyAccessor(path, fields);
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException ignored) {
+                // Chercher dans la classe parente
+            }
+        }
+        return null;
+    }
+}
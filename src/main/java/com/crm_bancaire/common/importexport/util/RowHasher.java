@@ -0,0 +1,89 @@
+package com.crm_bancaire.common.importexport.util;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Hash 64 bits des valeurs d'une ligne (FNV-1a puis finalisation murmur3 fmix64).
+ *
+ * Les valeurs sont normalisées (trim, null = vide) et les colonnes triées par nom:
+ * l'ordre des colonnes du fichier n'influence pas le hash, l'ajout ou le retrait
+ * d'une colonne le modifie.
+ */
+public final class RowHasher {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final char VALUE_SEPARATOR = '\u001F';
+    private static final char COLUMN_SEPARATOR = '\u001E';
+
+    private final String[] columns;
+
+    /**
+     * @param columns Colonnes prises en compte dans le hash de contenu
+     */
+    public RowHasher(Collection<String> columns) {
+        this.columns = columns.stream().sorted().toArray(String[]::new);
+    }
+
+    /**
+     * Hash du contenu de la ligne (colonnes du hasher).
+     */
+    public long contentHash(Map<String, String> row) {
+        long h = FNV_OFFSET;
+        for (String column : columns) {
+            h = append(h, column);
+            h = append(h, VALUE_SEPARATOR);
+            h = appendNormalized(h, row.get(column));
+            h = append(h, COLUMN_SEPARATOR);
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * Hash d'une valeur seule (ex: clé métier).
+     */
+    public static long hash(String value) {
+        return fmix64(appendNormalized(FNV_OFFSET, value));
+    }
+
+    private static long appendNormalized(long h, String value) {
+        if (value == null) {
+            return h;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            h = append(h, value.charAt(i));
+        }
+        return h;
+    }
+
+    private static long append(long h, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            h = append(h, value.charAt(i));
+        }
+        return h;
+    }
+
+    private static long append(long h, char c) {
+        h = (h ^ (c & 0xFF)) * FNV_PRIME;
+        return (h ^ (c >>> 8)) * FNV_PRIME;
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,113 @@
+package com.crm_bancaire.common.importexport.validation;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Contrôles directs pour les contraintes Bean Validation les plus courantes.
+ *
+ * Un contrôle répond uniquement "certainement valide": en cas de doute
+ * (valeur invalide ou cas limite), le Validator est consulté.
+ */
+final class CompiledConstraints {
+
+    /**
+     * Sous-ensemble strict des adresses acceptées par Hibernate Validator.
+     */
+    private static final java.util.regex.Pattern SIMPLE_EMAIL = java.util.regex.Pattern.compile(
+        "[A-Za-z0-9_%+-]+(?:\\.[A-Za-z0-9_%+-]+)*@[A-Za-z0-9](?:[A-Za-z0-9-]{0,61}[A-Za-z0-9])?"
+            + "(?:\\.[A-Za-z0-9](?:[A-Za-z0-9-]{0,61}[A-Za-z0-9])?)+");
+
+    private CompiledConstraints() {
+    }
+
+    @FunctionalInterface
+    interface Check {
+        boolean isCertainlyValid(Object value);
+    }
+
+    /**
+     * Compile une contrainte.
+     *
+     * @param annotation Annotation de contrainte
+     * @return Le contrôle, ou null si la contrainte n'est pas supportée
+     */
+    static Check compile(Annotation annotation) {
+        if (annotation instanceof NotNull) {
+            return value -> value != null;
+        }
+        if (annotation instanceof NotBlank) {
+            return value -> value instanceof CharSequence chars && !chars.toString().trim().isEmpty();
+        }
+        if (annotation instanceof Size size) {
+            int min = size.min();
+            int max = size.max();
+            return value -> {
+                if (value == null) {
+                    return true;
+                }
+                int length = length(value);
+                return length >= 0 && length >= min && length <= max;
+            };
+        }
+        if (annotation instanceof Pattern pattern) {
+            java.util.regex.Pattern regex = java.util.regex.Pattern.compile(pattern.regexp(), flags(pattern.flags()));
+            return value -> value == null
+                || value instanceof CharSequence chars && regex.matcher(chars).matches();
+        }
+        if (annotation instanceof Email email) {
+            java.util.regex.Pattern custom = ".*".equals(email.regexp())
+                ? null
+                : java.util.regex.Pattern.compile(email.regexp(), flags(email.flags()));
+            return value -> {
+                if (value == null) {
+                    return true;
+                }
+                if (!(value instanceof CharSequence chars)) {
+                    return false;
+                }
+                String text = chars.toString();
+                int at = text.indexOf('@');
+                return (text.isEmpty() || at > 0 && at <= 64 && text.length() <= 254
+                        && SIMPLE_EMAIL.matcher(text).matches())
+                    && (custom == null || custom.matcher(text).matches());
+            };
+        }
+        return null;
+    }
+
+    /**
+     * Taille d'une valeur pour @Size, -1 si le type n'est pas géré ici.
+     */
+    private static int length(Object value) {
+        if (value instanceof CharSequence chars) {
+            return chars.length();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value);
+        }
+        return -1;
+    }
+
+    private static int flags(Pattern.Flag[] flags) {
+        int result = 0;
+        for (Pattern.Flag flag : flags) {
+            result |= flag.getValue();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.crm_bancaire.common.importexport.validation;
+
+import com.crm_bancaire.common.importexport.mapper.ImportFieldException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Domaines de valeurs autorisées par colonne, construits une fois par import
+ * à partir de {@code ImportMapper.getAcceptedValues()} (par défaut les options des listes déroulantes).
+ *
+ * Les cellules hors domaine sont rejetées juste après le parsing, avant le mapping.
+ * Les valeurs acceptées sont remplacées par l'instance déclarée: les milliers de
+ * copies d'une même chaîne (statut, type...) partagent ainsi une seule String.
+ */
+public final class DropdownDomain {
+
+    private static final int MAX_OPTIONS_IN_MESSAGE = 10;
+
+    private final String[] columns;
+    private final List<Map<String, String>> exact;
+    private final List<Map<String, String>> caseInsensitive;
+    private final List<String> descriptions;
+
+    private DropdownDomain(String[] columns, List<Map<String, String>> exact,
+                           List<Map<String, String>> caseInsensitive, List<String> descriptions) {
+        this.columns = columns;
+        this.exact = exact;
+        this.caseInsensitive = caseInsensitive;
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Construit les domaines pour les colonnes présentes dans le fichier.
+     *
+     * @param dropdownOptions Valeurs acceptées déclarées par le mapper (colonne → valeurs)
+     * @param fileHeaders Colonnes du fichier
+     * @return Les domaines (éventuellement vides)
+     */
+    public static DropdownDomain of(Map<String, List<String>> dropdownOptions, Collection<String> fileHeaders) {
+        List<String> columns = new ArrayList<>();
+        List<Map<String, String>> exact = new ArrayList<>();
+        List<Map<String, String>> caseInsensitive = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+
+        if (dropdownOptions != null) {
+            for (Map.Entry<String, List<String>> entry : dropdownOptions.entrySet()) {
+                List<String> options = entry.getValue();
+                if (options == null || options.isEmpty() || !fileHeaders.contains(entry.getKey())) {
+                    continue;
+                }
+
+                Map<String, String> byValue = new HashMap<>();
+                Map<String, String> byUpperValue = new HashMap<>();
+                for (String option : options) {
+                    byValue.put(option, option);
+                    byUpperValue.putIfAbsent(option.toUpperCase(Locale.ROOT), option);
+                }
+
+                columns.add(entry.getKey());
+                exact.add(byValue);
+                caseInsensitive.add(byUpperValue);
+                descriptions.add(describe(options));
+            }
+        }
+
+        return new DropdownDomain(columns.toArray(new String[0]), exact, caseInsensitive, descriptions);
+    }
+
+    /**
+     * Indique si au moins une colonne du fichier a un domaine.
+     */
+    public boolean isEmpty() {
+        return columns.length == 0;
+    }
+
+    /**
+     * Vérifie une ligne et remplace les valeurs acceptées par leur instance canonique.
+     *
+     * @param row Ligne parsée
+     * @throws ImportFieldException Si une valeur est hors domaine
+     */
+    public void check(Map<String, String> row) {
+        for (int i = 0; i < columns.length; i++) {
+            String value = row.get(columns[i]);
+            if (value == null || value.isEmpty()) {
+                continue; // Cellule vide autorisée (comme dans le template Excel)
+            }
+
+            String canonical = exact.get(i).get(value);
+            if (canonical == null) {
+                canonical = caseInsensitive.get(i).get(value.toUpperCase(Locale.ROOT));
+            }
+            if (canonical == null) {
+                throw new ImportFieldException(columns[i], value,
+                    "Valeur non autorisée pour '" + columns[i] + "'. Valeurs possibles: " + descriptions.get(i));
+            }
+            if (canonical != value) {
+                row.put(columns[i], canonical);
+            }
+        }
+    }
+
+    private static String describe(List<String> options) {
+        if (options.size() <= MAX_OPTIONS_IN_MESSAGE) {
+            return String.join(", ", options);
+        }
+        return String.join(", ", options.subList(0, MAX_OPTIONS_IN_MESSAGE))
+            + String.format("... (%d autres)", options.size() - MAX_OPTIONS_IN_MESSAGE);
+    }
+}
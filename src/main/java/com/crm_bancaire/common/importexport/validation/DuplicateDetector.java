@@ -0,0 +1,232 @@
+package com.crm_bancaire.common.importexport.validation;
+
+import com.crm_bancaire.common.importexport.mapper.ImportFieldException;
+import com.crm_bancaire.common.importexport.parser.ParsedRow;
+import com.crm_bancaire.common.importexport.util.LongLongHashMap;
+import com.crm_bancaire.common.importexport.util.RowHasher;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Détection des doublons de clé à l'intérieur d'un fichier (@Importable(uniqueColumns)).
+ *
+ * En mémoire, seul le hash 64 bits de chaque clé est conservé (map primitive,
+ * ~20-30 octets par clé). La clé exacte et le numéro de sa première ligne sont
+ * écrits dans un fichier temporaire, relu uniquement quand deux hashs sont égaux
+ * pour confirmer le doublon. Le fichier est supprimé à la fermeture.
+ * En import multi-feuilles, la première occurrence est indiquée par sa feuille et sa
+ * ligne dans la feuille.
+ */
+public final class DuplicateDetector implements AutoCloseable {
+
+    private static final long ABSENT = -1L;
+
+    private final String[] columns;
+    private final String field;
+    private final ToLongFunction<Map<String, String>> hasher;
+
+    /**
+     * Hash de la clé → position de la première occurrence dans le fichier de clés.
+     */
+    private final LongLongHashMap firstKeys;
+    private final Path keyFile;
+    private final DataOutputStream keyOut;
+    private long keyFileSize;
+    private RandomAccessFile keyIn;
+
+    /**
+     * Clés exactes des vraies collisions de hash (hash égal, valeurs différentes): quasi toujours vide.
+     */
+    private Map<String, Occurrence> collisions;
+
+    /**
+     * Feuilles des lignes vues (import multi-feuilles), référencées par index dans le fichier de clés.
+     */
+    private final List<String> sheets = new ArrayList<>();
+    private final Map<String, Integer> sheetIndexes = new HashMap<>();
+
+    /**
+     * @param hasher Hash de la clé d'une ligne (remplaçable en test pour provoquer des collisions)
+     */
+    DuplicateDetector(String[] columns, int expectedRows, ToLongFunction<Map<String, String>> hasher)
+            throws IOException {
+        this.columns = columns;
+        this.field = String.join(", ", columns);
+        this.hasher = hasher;
+        this.firstKeys = new LongLongHashMap(expectedRows);
+        this.keyFile = Files.createTempFile("import-keys-", ".bin");
+        this.keyOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(keyFile)));
+    }
+
+    /**
+     * Crée le détecteur pour un import.
+     *
+     * @param uniqueColumns Colonnes formant la clé (ensemble = clé composite)
+     * @param fileHeaders Colonnes du fichier
+     * @param expectedRows Nombre de lignes attendu (dimensionnement de l'index, 0 si inconnu)
+     * @return Le détecteur (à fermer), ou null si aucune colonne n'est configurée
+     * @throws IllegalArgumentException Si une colonne de la clé est absente du fichier
+     * @throws IOException Si le fichier de clés ne peut pas être créé
+     */
+    public static DuplicateDetector of(String[] uniqueColumns, Collection<String> fileHeaders, int expectedRows)
+            throws IOException {
+        if (uniqueColumns.length == 0) {
+            return null;
+        }
+        List<String> missing = Arrays.stream(uniqueColumns)
+            .filter(column -> !fileHeaders.contains(column))
+            .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Colonne(s) d'unicité absente(s) du fichier: " + String.join(", ", missing));
+        }
+        return new DuplicateDetector(uniqueColumns.clone(), expectedRows,
+            new RowHasher(List.of(uniqueColumns))::contentHash);
+    }
+
+    /**
+     * Vérifie que la clé de la ligne n'a pas déjà été vue dans le fichier.
+     * Une clé entièrement vide n'est pas contrôlée.
+     *
+     * @throws ImportFieldException Si la clé est un doublon (le message indique la première occurrence)
+     */
+    public void check(int rowNumber, Map<String, String> row) {
+        if (isBlankKey(row)) {
+            return;
+        }
+
+        Occurrence occurrence = occurrence(rowNumber, row);
+        long hash = hasher.applyAsLong(row);
+        long position = firstKeys.putIfAbsent(hash, keyFileSize, ABSENT);
+        String key = exactKey(row);
+        if (position == ABSENT) {
+            appendKey(occurrence, key);
+            return;
+        }
+
+        Occurrence first;
+        try {
+            keyOut.flush();
+            if (keyIn == null) {
+                keyIn = new RandomAccessFile(keyFile.toFile(), "r");
+            }
+            keyIn.seek(position);
+            first = new Occurrence(keyIn.readInt(), keyIn.readInt());
+            byte[] firstKey = new byte[keyIn.readInt()];
+            keyIn.readFully(firstKey);
+            if (!key.equals(new String(firstKey, StandardCharsets.UTF_8))) {
+                // Collision de hash: comparaison exacte sur les clés concernées
+                if (collisions == null) {
+                    collisions = new HashMap<>();
+                }
+                Occurrence previous = collisions.putIfAbsent(key, occurrence);
+                if (previous == null) {
+                    return;
+                }
+                first = previous;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String firstRow = first.sheet() < 0
+            ? "ligne " + first.row()
+            : "ligne " + first.row() + " de la feuille '" + sheets.get(first.sheet()) + "'";
+        throw new ImportFieldException(field, describe(row), String.format(
+            "Valeur en double pour '%s' (première occurrence: %s)", field, firstRow),
+            "Valeur en double pour '" + field + "'", null);
+    }
+
+    /**
+     * Ligne dans sa feuille si elle est connue (import multi-feuilles), numéro de ligne sinon.
+     */
+    private Occurrence occurrence(int rowNumber, Map<String, String> row) {
+        if (row instanceof ParsedRow parsed && parsed.sheet() != null) {
+            int sheet = sheetIndexes.computeIfAbsent(parsed.sheet(), name -> {
+                sheets.add(name);
+                return sheets.size() - 1;
+            });
+            return new Occurrence(parsed.sheetRow(), sheet);
+        }
+        return new Occurrence(rowNumber, -1);
+    }
+
+    private boolean isBlankKey(Map<String, String> row) {
+        for (String column : columns) {
+            String value = row.get(column);
+            if (value != null && !value.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendKey(Occurrence occurrence, String key) {
+        try {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            keyOut.writeInt(occurrence.row());
+            keyOut.writeInt(occurrence.sheet());
+            keyOut.writeInt(bytes.length);
+            keyOut.write(bytes);
+            keyFileSize += 12 + bytes.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (keyOut) {
+            if (keyIn != null) {
+                keyIn.close();
+            }
+        } finally {
+            Files.deleteIfExists(keyFile);
+        }
+    }
+
+    private String exactKey(Map<String, String> row) {
+        StringBuilder key = new StringBuilder();
+        for (String column : columns) {
+            key.append(normalize(row.get(column))).append('\u001F');
+        }
+        return key.toString();
+    }
+
+    private String describe(Map<String, String> row) {
+        if (columns.length == 1) {
+            return normalize(row.get(columns[0]));
+        }
+        StringBuilder description = new StringBuilder();
+        for (String column : columns) {
+            if (description.length() > 0) {
+                description.append(", ");
+            }
+            description.append(column).append('=').append(normalize(row.get(column)));
+        }
+        return description.toString();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    /**
+     * Ligne d'une clé (sheet = index dans {@link #sheets}, -1 hors import multi-feuilles).
+     */
+    private record Occurrence(int row, int sheet) {
+    }
+}
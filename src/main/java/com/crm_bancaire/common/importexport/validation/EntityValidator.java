@@ -0,0 +1,167 @@
+package com.crm_bancaire.common.importexport.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bean Validation optimisée pour l'import ligne par ligne.
+ *
+ * - Les métadonnées ({@link BeanDescriptor}) sont mises en cache par classe d'entité
+ * - Les classes sans contrainte ne sont jamais validées
+ * - Les contraintes courantes (@NotNull, @NotBlank, @Size, @Pattern, @Email) sont
+ *   compilées en contrôles directs; le Validator n'est appelé que sur la propriété
+ *   en défaut, ce qui garantit des messages identiques à Hibernate Validator
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EntityValidator {
+
+    private final Validator validator;
+    private final Map<Class<?>, ClassConstraints> constraints = new ConcurrentHashMap<>();
+
+    /**
+     * Valide une entité et retourne la première violation.
+     *
+     * @param entity Entité à valider
+     * @param compiled Utiliser les contrôles compilés quand la classe le permet
+     * @return La première violation, ou null si l'entité est valide
+     */
+    public ConstraintViolation<Object> validate(Object entity, boolean compiled) {
+        ClassConstraints metadata = constraints.computeIfAbsent(entity.getClass(), this::inspect);
+        if (!metadata.constrained()) {
+            return null;
+        }
+
+        if (compiled && metadata.checks() != null) {
+            for (PropertyCheck check : metadata.checks()) {
+                if (!check.isCertainlyValid(entity)) {
+                    // Contrôle rapide en échec: le Validator tranche et fournit le message exact
+                    ConstraintViolation<Object> violation = first(validator.validateProperty(entity, check.property()));
+                    if (violation != null) {
+                        return violation;
+                    }
+                }
+            }
+            return null;
+        }
+
+        return first(validator.validate(entity));
+    }
+
+    private ConstraintViolation<Object> first(Set<ConstraintViolation<Object>> violations) {
+        return violations.isEmpty() ? null : violations.iterator().next();
+    }
+
+    /**
+     * Analyse les contraintes d'une classe (une seule fois par classe).
+     */
+    private ClassConstraints inspect(Class<?> type) {
+        BeanDescriptor descriptor = validator.getConstraintsForClass(type);
+        if (!descriptor.isBeanConstrained()) {
+            log.debug("No constraints on {}, Bean Validation skipped", type.getSimpleName());
+            return new ClassConstraints(false, null);
+        }
+
+        List<PropertyCheck> checks = compile(type, descriptor);
+        log.debug("Constraints on {}: {}", type.getSimpleName(),
+            checks != null ? checks.size() + " compiled property checks" : "full Bean Validation");
+        return new ClassConstraints(true, checks);
+    }
+
+    /**
+     * Compile les contraintes si elles sont toutes supportées, sinon retourne null.
+     */
+    private List<PropertyCheck> compile(Class<?> type, BeanDescriptor descriptor) {
+        if (!descriptor.getConstraintDescriptors().isEmpty()) {
+            return null; // Contraintes de classe
+        }
+
+        List<PropertyCheck> checks = new ArrayList<>();
+        for (PropertyDescriptor property : descriptor.getConstrainedProperties()) {
+            if (property.isCascaded() || !property.getConstrainedContainerElementTypes().isEmpty()) {
+                return null;
+            }
+
+            Set<ConstraintDescriptor<?>> all = property.getConstraintDescriptors();
+            Set<ConstraintDescriptor<?>> onField = property.findConstraints()
+                .declaredOn(ElementType.FIELD)
+                .getConstraintDescriptors();
+            if (all.size() != onField.size()) {
+                return null; // Contraintes sur getter
+            }
+
+            Field field = findField(type, property.getPropertyName());
+            if (field == null) {
+                return null;
+            }
+
+            List<CompiledConstraints.Check> propertyChecks = new ArrayList<>();
+            for (ConstraintDescriptor<?> constraint : all) {
+                if (!constraint.getComposingConstraints().isEmpty()
+                        || !constraint.getGroups().equals(Set.of(Default.class))) {
+                    return null;
+                }
+                CompiledConstraints.Check check = CompiledConstraints.compile(constraint.getAnnotation());
+                if (check == null) {
+                    return null;
+                }
+                propertyChecks.add(check);
+            }
+
+            field.setAccessible(true);
+            checks.add(new PropertyCheck(property.getPropertyName(), field, propertyChecks));
+        }
+        return checks;
+    }
+
+    private Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException ignored) {
+                // Chercher dans la classe parente
+            }
+        }
+        return null;
+    }
+
+    private record ClassConstraints(boolean constrained, List<PropertyCheck> checks) {
+    }
+
+    /**
+     * Contrôles compilés d'une propriété.
+     */
+    private record PropertyCheck(String property, Field field, List<CompiledConstraints.Check> checks) {
+
+        boolean isCertainlyValid(Object entity) {
+            Object value;
+            try {
+                value = field.get(entity);
+            } catch (IllegalAccessException e) {
+                return false;
+            }
+            for (CompiledConstraints.Check check : checks) {
+                if (!check.isCertainlyValid(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.enums.CsvEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Banc de lecture CSV: OPENCSV contre MAPPED sur un fichier généré, 3 colonnes lues sur 10.
+ *
+ * Désactivé par défaut; à lancer avec:
+ * <pre>
+ * mvn test -Dtest=CsvEngineBenchmark -Dbenchmark=true [-Dbenchmark.rows=1000000] [-DargLine=-Xmx512m]
+ * </pre>
+ * Affiche la durée médiane de lecture de chaque moteur, après chauffe.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CsvEngineBenchmark {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    private static final String[] READ_COLUMNS = {"customerNumber", "email", "amount"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compareEngines() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        Path file = generate(directory.resolve("customers.csv"), rows);
+        System.out.printf("%,d lignes x 10 colonnes, %,d MB, %d colonnes lues par ligne, JDK %s, heap max %d MB%n",
+            rows, Files.size(file) / (1024 * 1024), READ_COLUMNS.length, Runtime.version().feature(),
+            Runtime.getRuntime().maxMemory() / (1024 * 1024));
+
+        for (CsvEngine engine : CsvEngine.values()) {
+            ImportExportProperties.Csv settings = new ImportExportProperties.Csv();
+            settings.setEngine(engine);
+            CsvParser parser = new CsvParser(settings);
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                assertThat(read(parser, file)).isEqualTo(rows);
+            }
+            long[] durations = new long[MEASURED_RUNS];
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                read(parser, file);
+                durations[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(durations);
+            System.out.printf("%-8s médiane %,d ms (min %,d ms)%n", engine,
+                durations[MEASURED_RUNS / 2] / 1_000_000, durations[0] / 1_000_000);
+            parser.destroy();
+        }
+    }
+
+    /**
+     * Lit le fichier comme un import: une ligne à la fois, seules les colonnes du mapper sont lues.
+     */
+    private static int read(CsvParser parser, Path file) throws Exception {
+        int count = 0;
+        long checksum = 0;
+        try (RowReader reader = parser.open(file)) {
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                for (String column : READ_COLUMNS) {
+                    checksum += row.get(column).length();
+                }
+                count++;
+            }
+        }
+        assertThat(checksum).isPositive();
+        return count;
+    }
+
+    /**
+     * Fichier clients de 10 colonnes (~130 octets par ligne), avec des champs quotés.
+     */
+    private static Path generate(Path file, int rows) throws IOException {
+        Random random = new Random(1);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("customerNumber,firstName,lastName,email,phone,birthDate,city,address,amount,status\n");
+            for (int i = 0; i < rows; i++) {
+                out.write("CUST-" + (1_000_000 + i) + ",Prénom" + random.nextInt(5_000) + ",Nom" + random.nextInt(20_000)
+                    + ",client" + i + "@exemple.fr,+221 77 " + (1_000_000 + random.nextInt(9_000_000))
+                    + "," + (1 + random.nextInt(28)) + "/" + (1 + random.nextInt(12)) + "/" + (1950 + random.nextInt(55))
+                    + ",Dakar,\"" + random.nextInt(200) + ", avenue Cheikh Anta Diop\""
+                    + "," + random.nextInt(1_000_000) + "." + random.nextInt(100)
+                    + "," + (random.nextBoolean() ? "ACTIVE" : "INACTIVE") + "\n");
+            }
+        }
+        return file;
+    }
+}
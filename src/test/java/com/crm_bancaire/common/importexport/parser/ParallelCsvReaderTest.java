@@ -0,0 +1,125 @@
+package com.crm_bancaire.common.importexport.parser;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import com.crm_bancaire.common.importexport.enums.CsvEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La lecture parallèle rend les mêmes lignes que la lecture séquentielle MAPPED,
+ * y compris quand les frontières de morceaux tombent dans un champ quoté multi-lignes.
+ */
+class ParallelCsvReaderTest {
+
+    private static final String[] VALUES = {
+        "simple", "", "\"quoted, with delimiter\"", "\"multi\nline\"", "\"multi\r\nline\r\nCRLF\"",
+        "\"doubled \"\"quotes\"\"\"", "\"\n\n\"", "5'11\"", "\"ends with newline\n\"", "  padded  ",
+    };
+
+    @TempDir
+    Path directory;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void readsSameRowsAsSequentialReaderAcrossChunkBoundaries() throws IOException {
+        Path file = generate(2_000, new Random(42));
+
+        List<Map<String, String>> sequential = readAll(MappedCsvReader.open(file, ',', StandardCharsets.UTF_8));
+        for (long chunkSize : new long[] {7, 64, 1_000, 16_384}) {
+            List<Map<String, String>> parallel = readAll(
+                ParallelCsvReader.open(file, ',', StandardCharsets.UTF_8, pool, chunkSize));
+
+            assertThat(parallel).as("chunkSize=%d", chunkSize).isEqualTo(sequential);
+        }
+        assertThat(sequential).hasSize(2_000);
+    }
+
+    @Test
+    void chunkStartingInsideQuotedNewlineIsReadFromPreviousRecord() throws IOException {
+        // Chaque enregistrement a un champ quoté plus long qu'un morceau, rempli de fins de ligne
+        StringBuilder csv = new StringBuilder("id,text\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append(i).append(",\"").append("line\n".repeat(10)).append("\"\n");
+        }
+        Path file = write(csv.toString());
+
+        List<Map<String, String>> rows = readAll(
+            ParallelCsvReader.open(file, ',', StandardCharsets.UTF_8, pool, 16));
+
+        assertThat(rows).hasSize(50);
+        assertThat(rows).extracting(row -> row.get("id")).startsWith("0", "1", "2").endsWith("49");
+        assertThat(rows).allSatisfy(row -> assertThat(row.get("text")).isEqualTo("line\n".repeat(10).trim()));
+    }
+
+    @Test
+    void openCsvEngineIsNotReadInParallel() throws Exception {
+        Path file = generate(500, new Random(7));
+        ImportExportProperties.Csv settings = new ImportExportProperties.Csv();
+        settings.setParallelism(4);
+        settings.setChunkSize(DataSize.ofBytes(64));
+
+        CsvParser openCsv = new CsvParser(settings);
+        settings.setEngine(CsvEngine.MAPPED);
+        CsvParser mapped = new CsvParser(settings);
+        try (RowReader sequential = openCsv.open(file); RowReader parallel = mapped.open(file)) {
+            assertThat(sequential).isNotInstanceOf(ParallelCsvReader.class);
+            assertThat(parallel).isInstanceOf(ParallelCsvReader.class);
+        } finally {
+            openCsv.destroy();
+            mapped.destroy();
+        }
+    }
+
+    private Path generate(int rows, Random random) throws IOException {
+        StringBuilder csv = new StringBuilder("id,a,b,c\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i);
+            for (int column = 0; column < 3; column++) {
+                csv.append(',').append(VALUES[random.nextInt(VALUES.length)]);
+            }
+            csv.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+            if (random.nextInt(50) == 0) {
+                csv.append('\n');
+            }
+        }
+        return write(csv.toString());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(directory, "rows", ".csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<Map<String, String>> readAll(RowReader reader) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        try (reader) {
+            Map<String, String> row;
+            while ((row = reader.next()) != null) {
+                rows.add(new LinkedHashMap<>(row));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,67 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.config.ImportExportProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Limites de concurrence du contrôle d'admission, dont le poids d'un import d'archive.
+ */
+class ImportExportSchedulerTest {
+
+    @Test
+    void disabledByDefault() {
+        ImportExportScheduler scheduler = new ImportExportScheduler(new ImportExportProperties());
+
+        try (ImportExportScheduler.Permit first = scheduler.admitArchive("Client", 1_000);
+             ImportExportScheduler.Permit second = scheduler.admitImport("Client", "clients.csv", 1_000)) {
+            assertThat(scheduler.getRunning()).isZero();
+        }
+    }
+
+    @Test
+    void archiveCountsAsParallelImports() {
+        ImportExportScheduler scheduler = new ImportExportScheduler(properties(3));
+
+        try (ImportExportScheduler.Permit archive = scheduler.admitArchive("Client", 1_000)) {
+            assertThat(scheduler.getRunning()).isEqualTo(3);
+            try (ImportExportScheduler.Permit single = scheduler.admitImport("Compte", "comptes.csv", 1_000)) {
+                assertThat(scheduler.getRunning()).isEqualTo(4);
+                assertThatThrownBy(() -> scheduler.admitImport("Carte", "cartes.csv", 1_000))
+                    .isInstanceOf(AdmissionRejectedException.class);
+            }
+        }
+        assertThat(scheduler.getRunning()).isZero();
+    }
+
+    @Test
+    void archiveAboveGlobalLimitStartsAlone() {
+        ImportExportScheduler scheduler = new ImportExportScheduler(properties(8));
+
+        try (ImportExportScheduler.Permit single = scheduler.admitImport("Compte", "comptes.csv", 1_000)) {
+            assertThatThrownBy(() -> scheduler.admitArchive("Client", 1_000))
+                .isInstanceOf(AdmissionRejectedException.class);
+        }
+        try (ImportExportScheduler.Permit archive = scheduler.admitArchive("Client", 1_000)) {
+            assertThat(scheduler.getRunning()).isEqualTo(8);
+            assertThatThrownBy(() -> scheduler.admitImport("Compte", "comptes.csv", 1_000))
+                .isInstanceOf(AdmissionRejectedException.class);
+        }
+    }
+
+    /**
+     * Admission activée, 4 opérations au plus, attente de 50 ms avant refus.
+     */
+    private static ImportExportProperties properties(int archiveParallelism) {
+        ImportExportProperties properties = new ImportExportProperties();
+        properties.getArchive().setParallelism(archiveParallelism);
+        properties.getAdmission().setEnabled(true);
+        properties.getAdmission().setMaxConcurrent(4);
+        properties.getAdmission().setQueueTimeout(Duration.ofMillis(50));
+        return properties;
+    }
+}
@@ -0,0 +1,167 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.ImportColumn;
+import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.config.ImportExportAutoConfiguration;
+import com.crm_bancaire.common.importexport.dto.ImportJobResponse;
+import com.crm_bancaire.common.importexport.dto.ImportResponse;
+import com.crm_bancaire.common.importexport.enums.FailureStrategy;
+import com.crm_bancaire.common.importexport.enums.ImportJobStatus;
+import com.crm_bancaire.common.importexport.enums.TransactionMode;
+import com.crm_bancaire.common.importexport.mapper.AnnotatedImportMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkpoints d'un import et reprise après un arrêt sur erreur.
+ */
+@SpringJUnitConfig(ImportResumeTest.Config.class)
+class ImportResumeTest {
+
+    private static final Importable IMPORTABLE = FailFast.class.getAnnotation(Importable.class);
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS customer");
+        jdbcTemplate.execute("CREATE TABLE customer (email VARCHAR(50) PRIMARY KEY, name VARCHAR(20))");
+    }
+
+    @Test
+    void resumesAfterLastCommittedRow() throws Exception {
+        CustomerService service = new CustomerService(jdbcTemplate);
+        service.unavailableFor = "c13@test.fr";
+
+        // Batchs de 5: lignes 2-6, 7-11 commitées, la ligne 14 (c13) arrête le 3e batch
+        ImportResponse first = importService.importFile(customers(20), service, new CustomerMapper(), IMPORTABLE);
+
+        assertThat(first.isSuccess()).isFalse();
+        assertThat(first.getSuccessCount()).isEqualTo(12);
+        assertThat(countCustomers()).isEqualTo(12);
+        ImportJobResponse job = importService.getJob(first.getJobId(), IMPORTABLE).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(job.getSuccessCount()).isEqualTo(12);
+        assertThat(job.getErrorCount()).isZero();
+
+        service.unavailableFor = null;
+        ImportResponse resumed = importService.resumeImport(first.getJobId(), service, new CustomerMapper(), IMPORTABLE);
+
+        assertThat(resumed.isSuccess()).isTrue();
+        assertThat(resumed.getMessage()).contains("reprise après la ligne 13");
+        assertThat(resumed.getSuccessCount()).isEqualTo(20);
+        assertThat(resumed.getErrorCount()).isZero();
+        assertThat(countCustomers()).isEqualTo(20);
+    }
+
+    @Test
+    void completedImportIsNotResumed() {
+        CustomerService service = new CustomerService(jdbcTemplate);
+        ImportResponse first = importService.importFile(customers(8), service, new CustomerMapper(), IMPORTABLE);
+        assertThat(first.isSuccess()).isTrue();
+
+        ImportResponse resumed = importService.resumeImport(first.getJobId(), service, new CustomerMapper(), IMPORTABLE);
+
+        assertThat(resumed.isSuccess()).isFalse();
+        assertThat(resumed.getMessage()).startsWith("Import déjà terminé");
+        assertThat(countCustomers()).isEqualTo(8);
+    }
+
+    private static MockMultipartFile customers(int rows) {
+        StringBuilder csv = new StringBuilder("email,name\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append('c').append(i).append("@test.fr,Client ").append(i).append('\n');
+        }
+        return new MockMultipartFile("file", "customers.csv", "text/csv",
+            csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int countCustomers() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Integer.class);
+    }
+
+    public static class Customer {
+        @ImportColumn(required = true)
+        private String email;
+
+        @ImportColumn
+        private String name;
+    }
+
+    public static class CustomerMapper extends AnnotatedImportMapper<Customer> {
+
+        @Override
+        public Customer getExampleRow() {
+            return new Customer();
+        }
+    }
+
+    /**
+     * Insère chaque client (clé primaire email: une ligne réécrite par la reprise échouerait).
+     */
+    public static class CustomerService {
+
+        private final JdbcTemplate jdbcTemplate;
+        private volatile String unavailableFor;
+
+        CustomerService(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        public void save(Customer customer) {
+            if (customer.email.equals(unavailableFor)) {
+                throw new IllegalStateException("Service indisponible");
+            }
+            jdbcTemplate.update("INSERT INTO customer (email, name) VALUES (?, ?)", customer.email, customer.name);
+        }
+    }
+
+    @Importable(entity = "Customer", mapper = CustomerMapper.class, batchSize = 5,
+        transactionMode = TransactionMode.PER_BATCH, failureStrategy = FailureStrategy.FAIL_FAST)
+    private static class FailFast {
+    }
+
+    @Configuration
+    @Import(ImportExportAutoConfiguration.class)
+    static class Config {
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:resume;DB_CLOSE_DELAY=-1");
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+    }
+}
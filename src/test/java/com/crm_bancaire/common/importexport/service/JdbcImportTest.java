@@ -0,0 +1,185 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.ImportColumn;
+import com.crm_bancaire.common.importexport.annotation.ImportTable;
+import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.config.ImportExportAutoConfiguration;
+import com.crm_bancaire.common.importexport.dto.ImportError;
+import com.crm_bancaire.common.importexport.dto.ImportResponse;
+import com.crm_bancaire.common.importexport.enums.FailureStrategy;
+import com.crm_bancaire.common.importexport.enums.ImportMode;
+import com.crm_bancaire.common.importexport.enums.TransactionMode;
+import com.crm_bancaire.common.importexport.mapper.AnnotatedImportMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chargement JDBC direct (@ImportTable) sur une base H2, dans les transactions de l'import.
+ */
+@SpringJUnitConfig(JdbcImportTest.Config.class)
+class JdbcImportTest {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ref_country");
+        jdbcTemplate.execute("CREATE TABLE ref_country (code VARCHAR(10) PRIMARY KEY, label VARCHAR(10))");
+    }
+
+    @Test
+    void insertsInBatches() {
+        ImportResponse response = importCountries(csv(25, -1), Insert.class);
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getSuccessCount()).isEqualTo(25);
+        assertThat(countCountries()).isEqualTo(25);
+        assertThat(label("C17")).isEqualTo("L17");
+    }
+
+    @Test
+    void upsertUpdatesExistingKeysAndInsertsNewOnes() {
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO ref_country (code, label) VALUES (?, ?)", "C" + i, "old");
+        }
+        // C3 répété dans le premier batch: seule la dernière ligne est écrite
+        String csv = csv(25, -1).replace("code,label\n", "code,label\nC3,first\n");
+
+        ImportResponse response = importCountries(csv, Upsert.class);
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getSuccessCount()).isEqualTo(25);
+        assertThat(response.getUpdatedCount()).isEqualTo(5);
+        assertThat(response.getSupersededCount()).isEqualTo(1);
+        assertThat(countCountries()).isEqualTo(25);
+        assertThat(label("C1")).isEqualTo("L1");
+        assertThat(label("C3")).isEqualTo("L3");
+    }
+
+    @Test
+    void perBatchReplaysFailedBatchRowByRow() {
+        ImportResponse response = importCountries(csv(25, 14), Insert.class);
+
+        assertThat(response.getSuccessCount()).isEqualTo(24);
+        assertThat(response.getErrors()).extracting(ImportError::getRow).containsExactly(15);
+        assertThat(countCountries()).isEqualTo(24);
+    }
+
+    @Test
+    void perFileRollsBackEveryBatch() {
+        jdbcTemplate.update("INSERT INTO ref_country (code, label) VALUES ('C1', 'old')");
+
+        ImportResponse response = importCountries(csv(25, 22), UpsertPerFile.class);
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(jdbcTemplate.queryForList("SELECT code, label FROM ref_country"))
+            .containsExactly(Map.of("CODE", "C1", "LABEL", "old"));
+    }
+
+    /**
+     * Lignes C1..C{rows}; la ligne {@code invalid} a un libellé trop long pour la colonne.
+     */
+    private static String csv(int rows, int invalid) {
+        StringBuilder csv = new StringBuilder("code,label\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append('C').append(i).append(',').append(i == invalid ? "libellé trop long" : "L" + i).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private ImportResponse importCountries(String csv, Class<?> configuration) {
+        MockMultipartFile file = new MockMultipartFile("file", "countries.csv", "text/csv",
+            csv.getBytes(StandardCharsets.UTF_8));
+        return importService.importFile(file, new Object(), new CountryMapper(),
+            configuration.getAnnotation(Importable.class));
+    }
+
+    private int countCountries() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ref_country", Integer.class);
+    }
+
+    private String label(String code) {
+        return jdbcTemplate.queryForObject("SELECT label FROM ref_country WHERE code = ?", String.class, code);
+    }
+
+    public static class Country {
+        @ImportColumn(required = true)
+        private String code;
+
+        @ImportColumn
+        private String label;
+    }
+
+    public static class CountryMapper extends AnnotatedImportMapper<Country> {
+
+        @Override
+        public Country getExampleRow() {
+            return new Country();
+        }
+    }
+
+    @Importable(entity = "Country", mapper = CountryMapper.class, batchSize = 10,
+        transactionMode = TransactionMode.PER_BATCH, failureStrategy = FailureStrategy.SKIP_ERRORS,
+        table = @ImportTable(name = "ref_country", columns = {"code", "label"}, jdbcBatchSize = 4))
+    private static class Insert {
+    }
+
+    @Importable(entity = "Country", mapper = CountryMapper.class, batchSize = 10,
+        transactionMode = TransactionMode.PER_BATCH, failureStrategy = FailureStrategy.SKIP_ERRORS,
+        mode = ImportMode.UPSERT, businessKey = "code",
+        table = @ImportTable(name = "ref_country", columns = {"code", "label"}, jdbcBatchSize = 4))
+    private static class Upsert {
+    }
+
+    @Importable(entity = "Country", mapper = CountryMapper.class, batchSize = 10,
+        transactionMode = TransactionMode.PER_FILE, failureStrategy = FailureStrategy.FAIL_FAST,
+        mode = ImportMode.UPSERT, businessKey = "code",
+        table = @ImportTable(name = "ref_country", columns = {"code", "label"}, jdbcBatchSize = 4))
+    private static class UpsertPerFile {
+    }
+
+    @Configuration
+    @Import(ImportExportAutoConfiguration.class)
+    static class Config {
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:jdbc-import;DB_CLOSE_DELAY=-1");
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.crm_bancaire.common.importexport.service;
+
+import com.crm_bancaire.common.importexport.annotation.ImportColumn;
+import com.crm_bancaire.common.importexport.annotation.Importable;
+import com.crm_bancaire.common.importexport.config.ImportExportAutoConfiguration;
+import com.crm_bancaire.common.importexport.dto.ImportError;
+import com.crm_bancaire.common.importexport.dto.ImportResponse;
+import com.crm_bancaire.common.importexport.enums.FailureStrategy;
+import com.crm_bancaire.common.importexport.enums.TransactionMode;
+import com.crm_bancaire.common.importexport.mapper.AnnotatedImportMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Frontières de transaction des sauvegardes (PER_BATCH, PER_FILE) sur une base H2.
+ */
+@SpringJUnitConfig(TransactionModeTest.Config.class)
+class TransactionModeTest {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS customer");
+        jdbcTemplate.execute("CREATE TABLE customer (id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+            + " email VARCHAR(50) NOT NULL UNIQUE, name VARCHAR(5))");
+    }
+
+    @Test
+    void perBatchReplaysRolledBackBatchRowByRow() {
+        CustomerService service = new CustomerService(jdbcTemplate);
+
+        ImportResponse response = importCustomers(service, PerBatch.class);
+
+        assertPerBatchResult(response);
+    }
+
+    @Test
+    void perBatchReplaysRolledBackSaveAllRowByRow() {
+        CustomerService service = new BatchCustomerService(jdbcTemplate);
+
+        ImportResponse response = importCustomers(service, PerBatch.class);
+
+        assertPerBatchResult(response);
+    }
+
+    @Test
+    void perFileRollsBackWholeFile() {
+        ImportResponse response = importCustomers(new BatchCustomerService(jdbcTemplate), PerFile.class);
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(response.getSuccessCount()).isZero();
+        assertThat(countCustomers()).isZero();
+    }
+
+    /**
+     * 10 lignes, batchs de 4: la ligne 6 (2e batch) dépasse la taille de la colonne name.
+     * Le 2e batch est annulé puis rejoué ligne par ligne: les identifiants générés par
+     * la tentative annulée ne doivent pas faire passer ses lignes pour des mises à jour.
+     */
+    private void assertPerBatchResult(ImportResponse response) {
+        assertThat(response.getSuccessCount()).isEqualTo(9);
+        assertThat(response.getUpdatedCount()).isZero();
+        assertThat(response.getErrors()).extracting(ImportError::getRow).containsExactly(7);
+        assertThat(jdbcTemplate.queryForList("SELECT email FROM customer ORDER BY id", String.class))
+            .containsExactly("c1@test.fr", "c2@test.fr", "c3@test.fr", "c4@test.fr", "c5@test.fr",
+                "c7@test.fr", "c8@test.fr", "c9@test.fr", "c10@test.fr");
+    }
+
+    private ImportResponse importCustomers(CustomerService service, Class<?> configuration) {
+        StringBuilder csv = new StringBuilder("email,name\n");
+        for (int i = 1; i <= 10; i++) {
+            csv.append('c').append(i).append("@test.fr,").append(i == 6 ? "tropLong" : "N" + i).append('\n');
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "customers.csv", "text/csv",
+            csv.toString().getBytes(StandardCharsets.UTF_8));
+        return importService.importFile(file, service, new CustomerMapper(),
+            configuration.getAnnotation(Importable.class));
+    }
+
+    private int countCustomers() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Integer.class);
+    }
+
+    public static class Customer {
+        private Long id;
+
+        @ImportColumn(required = true)
+        private String email;
+
+        @ImportColumn
+        private String name;
+    }
+
+    public static class CustomerMapper extends AnnotatedImportMapper<Customer> {
+
+        @Override
+        public Customer getExampleRow() {
+            return new Customer();
+        }
+    }
+
+    /**
+     * save(T) à la façon d'un repository: insertion (identifiant généré renseigné sur
+     * l'entité) si l'identifiant est null, sinon mise à jour de l'enregistrement existant.
+     */
+    public static class CustomerService {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        CustomerService(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        public void save(Customer customer) {
+            if (customer.id != null) {
+                int updated = jdbcTemplate.update("UPDATE customer SET email = ?, name = ? WHERE id = ?",
+                    customer.email, customer.name, customer.id);
+                if (updated == 0) {
+                    throw new IllegalStateException("Client introuvable: " + customer.id);
+                }
+                return;
+            }
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO customer (email, name) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS);
+                statement.setString(1, customer.email);
+                statement.setString(2, customer.name);
+                return statement;
+            }, keys);
+            customer.id = keys.getKey().longValue();
+        }
+    }
+
+    public static class BatchCustomerService extends CustomerService {
+
+        BatchCustomerService(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        public void saveAll(List<Customer> customers) {
+            customers.forEach(this::save);
+        }
+    }
+
+    @Importable(entity = "Customer", mapper = CustomerMapper.class, batchSize = 4,
+        transactionMode = TransactionMode.PER_BATCH, failureStrategy = FailureStrategy.SKIP_ERRORS)
+    private static class PerBatch {
+    }
+
+    @Importable(entity = "Customer", mapper = CustomerMapper.class, batchSize = 4,
+        transactionMode = TransactionMode.PER_FILE, failureStrategy = FailureStrategy.FAIL_FAST)
+    private static class PerFile {
+    }
+
+    @Configuration
+    @Import(ImportExportAutoConfiguration.class)
+    static class Config {
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:transactions;DB_CLOSE_DELAY=-1");
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+    }
+}
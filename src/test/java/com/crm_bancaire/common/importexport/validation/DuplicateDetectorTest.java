@@ -0,0 +1,73 @@
+package com.crm_bancaire.common.importexport.validation;
+
+import com.crm_bancaire.common.importexport.mapper.ImportFieldException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Détection des doublons, y compris quand des clés différentes ont le même hash.
+ */
+class DuplicateDetectorTest {
+
+    private static final String[] KEY = {"email"};
+
+    @Test
+    void reportsDuplicateWithFirstOccurrence() throws Exception {
+        try (DuplicateDetector detector = DuplicateDetector.of(KEY, List.of("email", "name"), 0)) {
+            detector.check(2, row("a@test.fr"));
+            detector.check(3, row("b@test.fr"));
+
+            assertThatThrownBy(() -> detector.check(4, row(" a@test.fr ")))
+                .isInstanceOf(ImportFieldException.class)
+                .hasMessageContaining("première occurrence: ligne 2");
+        }
+    }
+
+    @Test
+    void collidingHashesOfDistinctKeysAreNotDuplicates() throws Exception {
+        // Toutes les clés ont le même hash: seule la comparaison exacte les distingue
+        try (DuplicateDetector detector = new DuplicateDetector(KEY, 0, row -> 42L)) {
+            detector.check(2, row("a@test.fr"));
+            detector.check(3, row("b@test.fr"));
+            detector.check(4, row("c@test.fr"));
+
+            assertThatThrownBy(() -> detector.check(5, row("a@test.fr")))
+                .hasMessageContaining("première occurrence: ligne 2");
+            assertThatThrownBy(() -> detector.check(6, row("c@test.fr")))
+                .hasMessageContaining("première occurrence: ligne 4");
+            assertThatThrownBy(() -> detector.check(7, row("b@test.fr")))
+                .hasMessageContaining("première occurrence: ligne 3");
+            detector.check(8, row("d@test.fr"));
+        }
+    }
+
+    @Test
+    void blankKeysAreIgnored() throws Exception {
+        try (DuplicateDetector detector = new DuplicateDetector(KEY, 0, row -> 42L)) {
+            detector.check(2, row(" "));
+            detector.check(3, row(null));
+            detector.check(4, row(""));
+        }
+    }
+
+    @Test
+    void uniqueColumnsAreCheckedAgainstFileHeaders() throws Exception {
+        assertThat(DuplicateDetector.of(new String[0], List.of("email"), 0)).isNull();
+        assertThatThrownBy(() -> DuplicateDetector.of(KEY, List.of("name"), 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("email");
+    }
+
+    private static Map<String, String> row(String email) {
+        Map<String, String> row = new HashMap<>();
+        row.put("email", email);
+        row.put("name", "Client");
+        return row;
+    }
+}